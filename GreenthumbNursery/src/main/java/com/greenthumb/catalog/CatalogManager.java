@@ -0,0 +1,237 @@
+package com.greenthumb.catalog;
+
+import com.greenthumb.dao.OrderItemDAO;
+import com.greenthumb.dao.OrderItemDAOImpl;
+import com.greenthumb.dao.PlantChangeListener;
+import com.greenthumb.dao.PlantChangeMarker;
+import com.greenthumb.dao.PlantChangeNotifier;
+import com.greenthumb.dao.PlantDAO;
+import com.greenthumb.dao.PlantDAOImpl;
+import com.greenthumb.model.Plant;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the current CatalogSnapshot up to date.
+ * The full catalog is loaded once; after that a background thread polls the cheap
+ * plants change marker (MAX(updated_at), COUNT(*)) and, when it moves, loads only
+ * the rows updated since the last snapshot and publishes a new snapshot. Rows updated in
+ * the marker's own second are re-read on every poll, since a change within that second
+ * does not move the marker. A row count that no longer matches means plants were
+ * deleted, and the catalog is reloaded.
+ * Plant changes committed by this application trigger a poll right away.
+ * Units sold per plant, which rank name completions, are reloaded every few minutes.
+ */
+public final class CatalogManager implements PlantChangeListener {
+    public static final long DEFAULT_POLL_INTERVAL_MILLIS = TimeUnit.SECONDS.toMillis(5);
+    private static final long UNITS_SOLD_REFRESH_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+    // Changed rows are re-read this far back from the last marker, so a row whose
+    // updated_at is older than a concurrent, earlier-committed change is not missed
+    private static final long CHANGE_OVERLAP_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private static CatalogManager instance = null;
+
+    private final PlantDAO plantDAO;
+    private final OrderItemDAO orderItemDAO;
+    private final long pollIntervalMillis;
+    private long unitsSoldLoadedAt = 0;
+    private volatile CatalogSnapshot snapshot = null;
+    private volatile ScheduledExecutorService poller = null;
+    // Guards starting and stopping the poller apart from the catalog's own lock, which a
+    // poll holds while it loads; the Event Dispatch Thread must not wait for that
+    private final Object pollerLock = new Object();
+
+    /**
+     * Create a catalog manager and register it for plant change notifications
+     * @param plantDAO DAO to load plants from; should not be a caching DAO
+     * @param orderItemDAO DAO to load units sold per plant from
+     * @param pollIntervalMillis Delay between change marker polls
+     */
+    public CatalogManager(PlantDAO plantDAO, OrderItemDAO orderItemDAO, long pollIntervalMillis) {
+        this.plantDAO = plantDAO;
+        this.orderItemDAO = orderItemDAO;
+        this.pollIntervalMillis = pollIntervalMillis;
+        PlantChangeNotifier.addListener(this);
+    }
+
+    /**
+     * Get the catalog shared by the whole application
+     * @return Shared catalog manager
+     */
+    public static synchronized CatalogManager getInstance() {
+        if (instance == null) {
+            instance = new CatalogManager(new PlantDAOImpl(), new OrderItemDAOImpl(), DEFAULT_POLL_INTERVAL_MILLIS);
+        }
+        return instance;
+    }
+
+    /**
+     * Start polling for changes. Returns at once: the first poll, which runs right away
+     * on the poller thread, loads the catalog (or brings the last snapshot up to date) and
+     * builds the autocomplete index. Until then getSnapshot() may return null.
+     */
+    public void start() {
+        synchronized (pollerLock) {
+            if (poller == null) {
+                poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "catalog-poller");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+                poller.scheduleWithFixedDelay(this::pollQuietly, 0, pollIntervalMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    /**
+     * Stop polling. The last snapshot stays available and is brought up to date by the next start.
+     */
+    public void stop() {
+        synchronized (pollerLock) {
+            if (poller != null) {
+                poller.shutdownNow();
+                poller = null;
+            }
+        }
+    }
+
+    /**
+     * Get the current snapshot
+     * @return Current snapshot, or null if the catalog has not been loaded
+     */
+    public CatalogSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Check the change marker and apply any changes since the current snapshot
+     * @return true if the snapshot is up to date, false if the database could not be read
+     */
+    public synchronized boolean refresh() {
+        CatalogSnapshot current = snapshot;
+        if (current == null || current.getChangeMarker().getLastUpdated() == null) {
+            return reload();
+        }
+
+        if (System.currentTimeMillis() - unitsSoldLoadedAt >= UNITS_SOLD_REFRESH_MILLIS) {
+            Map<String, Integer> unitsSold = loadUnitsSold(current.getUnitsSold());
+            if (!unitsSold.equals(current.getUnitsSold())) {
+                current = current.withUnitsSold(current.getVersion() + 1, unitsSold);
+                snapshot = current;
+            }
+        }
+
+        PlantChangeMarker marker = plantDAO.getChangeMarker();
+        if (marker == null) {
+            return false;
+        }
+        boolean markerMoved = !marker.equals(current.getChangeMarker());
+        // updated_at has one-second resolution, so a plant changed after the last poll but
+        // within the same second leaves the marker as it was: re-read that second
+        Timestamp since = new Timestamp(current.getChangeMarker().getLastUpdated().getTime()
+                - (markerMoved ? CHANGE_OVERLAP_MILLIS : 0));
+        List<Plant> changed = plantDAO.getPlantsUpdatedSince(since);
+        if (changed == null) {
+            return false;
+        }
+        if (!markerMoved) {
+            changed = differing(current, changed);
+            if (changed.isEmpty()) {
+                return true;
+            }
+        }
+
+        CatalogSnapshot next = current.withChanges(current.getVersion() + 1, marker, changed);
+        if (next.size() != marker.getRowCount()) {
+            // Plants were deleted (or inserted while the delta was read)
+            return reload();
+        }
+        snapshot = next;
+        return true;
+    }
+
+    /**
+     * Replace the snapshot with a full load of the plants table
+     * @return true if the catalog was loaded, false if the database could not be read
+     */
+    public synchronized boolean reload() {
+        // Read the marker first so changes made during the load are picked up by the next poll
+        PlantChangeMarker marker = plantDAO.getChangeMarker();
+        if (marker == null) {
+            return false;
+        }
+        List<Plant> plants = plantDAO.getAllPlants();
+        if (plants.isEmpty() && marker.getRowCount() > 0) {
+            System.err.println("Error loading plant catalog: no plants returned");
+            return false;
+        }
+
+        CatalogSnapshot current = snapshot;
+        Map<String, Integer> unitsSold = loadUnitsSold(current != null ? current.getUnitsSold() : Collections.emptyMap());
+        snapshot = CatalogSnapshot.of(current != null ? current.getVersion() + 1 : 1, marker, plants, unitsSold);
+        return true;
+    }
+
+    /**
+     * Keep the plants that are not in a snapshot as they are now
+     */
+    private static List<Plant> differing(CatalogSnapshot current, List<Plant> plants) {
+        List<Plant> differing = new ArrayList<>();
+        for (Plant plant : plants) {
+            Plant known = current.getPlant(plant.getPlantId());
+            if (known == null || !known.toString().equals(plant.toString())) {
+                differing.add(plant);
+            }
+        }
+        return differing;
+    }
+
+    /**
+     * Load units sold per plant, keeping the previous figures if the query fails
+     */
+    private Map<String, Integer> loadUnitsSold(Map<String, Integer> previous) {
+        Map<String, Integer> unitsSold = orderItemDAO.getQuantitySoldByPlant();
+        if (unitsSold == null) {
+            return previous;
+        }
+        unitsSoldLoadedAt = System.currentTimeMillis();
+        return Collections.unmodifiableMap(unitsSold);
+    }
+
+    @Override
+    public void plantsChanged(Set<String> plantIds) {
+        // Not synchronized, so a committing writer never waits for a poll in progress
+        ScheduledExecutorService executor = poller;
+        if (executor != null) {
+            try {
+                executor.execute(this::pollQuietly);
+            } catch (RejectedExecutionException e) {
+                // Stopped meanwhile; the next start brings the snapshot up to date
+            }
+        }
+    }
+
+    private void pollQuietly() {
+        try {
+            refresh();
+            CatalogSnapshot current = snapshot;
+            if (current != null) {
+                current.prepareAutocomplete();
+            }
+        } catch (RuntimeException e) {
+            // Keep the poller alive; the next poll tries again
+            System.err.println("Error refreshing plant catalog: " + e.getMessage());
+        }
+    }
+}
+
@@ -0,0 +1,396 @@
+package com.greenthumb.catalog;
+
+import com.greenthumb.dao.PlantChangeMarker;
+import com.greenthumb.model.Plant;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable in-memory copy of the plant catalog.
+ * A snapshot is never modified after it is built; applying changes produces a new
+ * snapshot (copy-on-write), so readers can use one without any locking.
+ * Plants are kept in plant ID order, and every plant handed out is a copy.
+ * Name queries are answered from a PlantSearchIndex built with the snapshot, type,
+ * price and stock criteria from a PlantBitmapIndex, price ranges in price order from a
+ * PriceIndex, and name completions from a PlantAutocomplete ranked by units sold,
+ * built on first use.
+ */
+public final class CatalogSnapshot {
+    private static final Comparator<Plant> BY_PLANT_ID = Comparator.comparing(Plant::getPlantId);
+
+    private final long version;
+    private final PlantChangeMarker changeMarker;
+    private final Plant[] plants;
+    private final PlantSearchIndex searchIndex;
+    private final PriceIndex priceIndex;
+    private final PlantBitmapIndex bitmapIndex;
+    private final Map<String, Integer> unitsSold;
+    private volatile PlantAutocomplete autocomplete;
+
+    private CatalogSnapshot(long version, PlantChangeMarker changeMarker, Plant[] plants,
+                            PlantSearchIndex searchIndex, PriceIndex priceIndex, PlantBitmapIndex bitmapIndex,
+                            Map<String, Integer> unitsSold, PlantAutocomplete autocomplete) {
+        this.version = version;
+        this.changeMarker = changeMarker;
+        this.plants = plants;
+        this.searchIndex = searchIndex;
+        this.priceIndex = priceIndex;
+        this.bitmapIndex = bitmapIndex;
+        this.unitsSold = unitsSold;
+        this.autocomplete = autocomplete;
+    }
+
+    /**
+     * Build a snapshot from a full load of the plants table
+     * @param version Snapshot version
+     * @param changeMarker Change marker read before the plants were loaded
+     * @param plants All plants
+     * @param unitsSold Units sold by plant ID, used to rank completions
+     * @return New snapshot
+     */
+    static CatalogSnapshot of(long version, PlantChangeMarker changeMarker, Collection<Plant> plants,
+                              Map<String, Integer> unitsSold) {
+        Plant[] sorted = new Plant[plants.size()];
+        int i = 0;
+        for (Plant plant : plants) {
+            sorted[i++] = copyOf(plant);
+        }
+        Arrays.sort(sorted, BY_PLANT_ID);
+        PriceIndex priceIndex = PriceIndex.build(pricesOf(sorted));
+        return new CatalogSnapshot(version, changeMarker, sorted, PlantSearchIndex.build(Arrays.asList(sorted)),
+                priceIndex, PlantBitmapIndex.build(sorted, priceIndex), unitsSold, null);
+    }
+
+    /**
+     * Build a new snapshot with inserted or updated plants replacing their old versions.
+     * Only the changed plants are sorted; they are merged into the plants of this
+     * snapshot, which are already in order, and the indexes are updated from this
+     * snapshot's indexes.
+     * @param newVersion Version of the new snapshot
+     * @param newMarker Change marker read before the changed plants were loaded
+     * @param changed Inserted or updated plants
+     * @return New snapshot; this snapshot is left untouched
+     */
+    CatalogSnapshot withChanges(long newVersion, PlantChangeMarker newMarker, Collection<Plant> changed) {
+        Plant[] updates = new Plant[changed.size()];
+        int count = 0;
+        for (Plant plant : changed) {
+            updates[count++] = copyOf(plant);
+        }
+        // Stable sort, so the last version of a plant listed twice comes last and wins
+        Arrays.sort(updates, BY_PLANT_ID);
+        int[] positions = new int[count];
+        int distinct = 0;
+        int inserted = 0;
+        for (int i = 0; i < count; i++) {
+            if (distinct > 0 && updates[distinct - 1].getPlantId().equals(updates[i].getPlantId())) {
+                updates[distinct - 1] = updates[i];
+                continue;
+            }
+            positions[distinct] = ordinalOf(updates[i].getPlantId());
+            if (positions[distinct] < 0) {
+                inserted++;
+            }
+            updates[distinct++] = updates[i];
+        }
+
+        Plant[] merged = new Plant[plants.length + inserted];
+        int[] oldToNew = new int[plants.length];
+        int[] changedOrdinals = new int[distinct];
+        Plant[] previous = new Plant[distinct];
+        int[] pricesChanged = new int[distinct];
+        int priceChanges = 0;
+        int oldOrdinal = 0;
+        int ordinal = 0;
+        for (int i = 0; i < distinct; i++) {
+            int end = positions[i] >= 0 ? positions[i] : -positions[i] - 1;
+            while (oldOrdinal < end) {
+                oldToNew[oldOrdinal] = ordinal;
+                merged[ordinal++] = plants[oldOrdinal++];
+            }
+            if (positions[i] >= 0) {
+                previous[i] = plants[oldOrdinal];
+                oldToNew[oldOrdinal++] = ordinal;
+            }
+            if (previous[i] == null || Double.compare(previous[i].getPrice(), updates[i].getPrice()) != 0) {
+                pricesChanged[priceChanges++] = ordinal;
+            }
+            changedOrdinals[i] = ordinal;
+            merged[ordinal++] = updates[i];
+        }
+        while (oldOrdinal < plants.length) {
+            oldToNew[oldOrdinal] = ordinal;
+            merged[ordinal++] = plants[oldOrdinal++];
+        }
+
+        PriceIndex nextPriceIndex = priceChanges == 0 ? priceIndex
+                : priceIndex.withChanges(oldToNew, pricesOf(merged), Arrays.copyOf(pricesChanged, priceChanges));
+        List<Plant> latest = Arrays.asList(updates).subList(0, distinct);
+        // Completions only depend on names, so stock and price changes keep the autocomplete index
+        PlantAutocomplete current = autocomplete;
+        PlantAutocomplete nextAutocomplete = current != null && current.unaffectedBy(this::oldVersion, latest)
+                ? current : null;
+        return new CatalogSnapshot(newVersion, newMarker, merged, searchIndex.withChanges(this::oldVersion, latest),
+                nextPriceIndex, bitmapIndex.withChanges(merged, changedOrdinals, previous, nextPriceIndex),
+                unitsSold, nextAutocomplete);
+    }
+
+    /**
+     * Build a new snapshot with the same plants and new popularity figures
+     * @param newVersion Version of the new snapshot
+     * @param newUnitsSold Units sold by plant ID
+     * @return New snapshot; this snapshot is left untouched
+     */
+    CatalogSnapshot withUnitsSold(long newVersion, Map<String, Integer> newUnitsSold) {
+        return new CatalogSnapshot(newVersion, changeMarker, plants, searchIndex, priceIndex, bitmapIndex,
+                newUnitsSold, null);
+    }
+
+    /**
+     * Get snapshot version; a higher version is a newer snapshot
+     * @return Version number
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Get the change marker of the plants table this snapshot reflects
+     * @return Change marker
+     */
+    public PlantChangeMarker getChangeMarker() {
+        return changeMarker;
+    }
+
+    public PlantSearchIndex getSearchIndex() {
+        return searchIndex;
+    }
+
+    public PriceIndex getPriceIndex() {
+        return priceIndex;
+    }
+
+    public PlantBitmapIndex getBitmapIndex() {
+        return bitmapIndex;
+    }
+
+    Map<String, Integer> getUnitsSold() {
+        return unitsSold;
+    }
+
+    /**
+     * Complete a typed prefix of any word of a plant name. The first call on a
+     * snapshot builds the autocomplete index, so call this off the event dispatch thread.
+     * @param prefix Typed text
+     * @param limit Maximum number of completions
+     * @return Distinct plant names, best selling first
+     */
+    public List<String> completeName(String prefix, int limit) {
+        return autocomplete().complete(prefix, limit);
+    }
+
+    /**
+     * Build the autocomplete index now if it has not been built yet
+     */
+    void prepareAutocomplete() {
+        autocomplete();
+    }
+
+    private PlantAutocomplete autocomplete() {
+        PlantAutocomplete index = autocomplete;
+        if (index == null) {
+            // Building twice in a race is harmless; both results are equal
+            index = PlantAutocomplete.build(Arrays.asList(plants), unitsSold);
+            autocomplete = index;
+        }
+        return index;
+    }
+
+    public int size() {
+        return plants.length;
+    }
+
+    /**
+     * Get plant by ID
+     * @param plantId Plant ID
+     * @return Copy of the plant, or null if not in the catalog
+     */
+    public Plant getPlant(String plantId) {
+        int ordinal = ordinalOf(plantId);
+        return ordinal >= 0 ? copyOf(plants[ordinal]) : null;
+    }
+
+    /**
+     * Get quantity in stock for a plant
+     * @param plantId Plant ID
+     * @return Quantity in stock, or 0 if the plant is not in the catalog
+     */
+    public int getQuantity(String plantId) {
+        int ordinal = ordinalOf(plantId);
+        return ordinal >= 0 ? plants[ordinal].getQuantity() : 0;
+    }
+
+    public List<Plant> getAllPlants() {
+        List<Plant> result = new ArrayList<>(plants.length);
+        for (Plant plant : plants) {
+            result.add(copyOf(plant));
+        }
+        return result;
+    }
+
+    /**
+     * Get plants with stock available
+     * @return List of plants with quantity greater than 0
+     */
+    public List<Plant> getAvailablePlants() {
+        return plantsOf(bitmapIndex.getInStock());
+    }
+
+    /**
+     * Get plants of a type (case-insensitive)
+     * @param type Plant type
+     * @return List of plants of the type
+     */
+    public List<Plant> getPlantsByType(String type) {
+        return search(null, type, null, null);
+    }
+
+    /**
+     * Search plants by criteria. The name is a full-text query over name, type and
+     * description (see PlantSearchIndex) and results are ranked by relevance; without
+     * a name, plants are listed in plant ID order, or cheapest first when only a price
+     * range is given. Type is a case-insensitive exact match and the price bounds are inclusive.
+     * @param name Search words (can be null or blank)
+     * @param type Plant type (can be null or blank)
+     * @param minPrice Minimum price (can be null)
+     * @param maxPrice Maximum price (can be null)
+     * @return List of plants matching criteria
+     */
+    public List<Plant> search(String name, String type, Double minPrice, Double maxPrice) {
+        boolean noName = name == null || name.trim().isEmpty();
+        if (noName && typeFilter(type) == null && (minPrice != null || maxPrice != null)) {
+            return getPlantsByPriceRange(minPrice != null ? minPrice : Double.NEGATIVE_INFINITY,
+                    maxPrice != null ? maxPrice : Double.POSITIVE_INFINITY);
+        }
+        CompressedBitmap filter = bitmapIndex.filter(typeFilter(type), minPrice, maxPrice, false);
+        if (noName) {
+            return plantsOf(filter);
+        }
+
+        List<Plant> result = new ArrayList<>();
+        for (String plantId : searchIndex.search(name)) {
+            int ordinal = ordinalOf(plantId);
+            if (ordinal >= 0 && filter.contains(ordinal)) {
+                result.add(copyOf(plants[ordinal]));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get plants priced within a range
+     * @param minPrice Inclusive minimum price
+     * @param maxPrice Inclusive maximum price
+     * @return List of plants, cheapest first
+     */
+    public List<Plant> getPlantsByPriceRange(double minPrice, double maxPrice) {
+        List<Plant> result = new ArrayList<>(priceIndex.countInRange(minPrice, maxPrice));
+        priceIndex.forEachInRange(minPrice, maxPrice, ordinal -> result.add(copyOf(plants[ordinal])));
+        return result;
+    }
+
+    /**
+     * Count the plants matching search criteria per type and price band
+     * @param name Search words (can be null or blank)
+     * @param type Plant type (can be null or blank)
+     * @param minPrice Minimum price (can be null)
+     * @param maxPrice Maximum price (can be null)
+     * @return Facet counts
+     */
+    public PlantFacets facets(String name, String type, Double minPrice, Double maxPrice) {
+        CompressedBitmap candidates = null;
+        if (name != null && !name.trim().isEmpty()) {
+            List<String> hits = searchIndex.search(name);
+            int[] ordinals = new int[hits.size()];
+            int n = 0;
+            for (String plantId : hits) {
+                int ordinal = ordinalOf(plantId);
+                if (ordinal >= 0) {
+                    ordinals[n++] = ordinal;
+                }
+            }
+            Arrays.sort(ordinals, 0, n);
+            candidates = CompressedBitmap.of(ordinals, n);
+        }
+        return bitmapIndex.facets(candidates, typeFilter(type), minPrice, maxPrice);
+    }
+
+    private List<Plant> plantsOf(CompressedBitmap ordinals) {
+        List<Plant> result = new ArrayList<>(ordinals.getCardinality());
+        ordinals.forEach(ordinal -> result.add(copyOf(plants[ordinal])));
+        return result;
+    }
+
+    /**
+     * Position of a plant in the plants array, which is sorted by plant ID
+     * @return Position, or (-(insertion point) - 1) if the plant is not in the array
+     */
+    private int ordinalOf(String plantId) {
+        int low = 0;
+        int high = plants.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = plants[mid].getPlantId().compareTo(plantId);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    /**
+     * Old version of a plant, or null if it is not in this snapshot
+     */
+    private Plant oldVersion(String plantId) {
+        int ordinal = ordinalOf(plantId);
+        return ordinal >= 0 ? plants[ordinal] : null;
+    }
+
+    private static String typeFilter(String type) {
+        return type != null && !type.trim().isEmpty() ? type : null;
+    }
+
+    private static double[] pricesOf(Plant[] plants) {
+        double[] prices = new double[plants.length];
+        for (int i = 0; i < plants.length; i++) {
+            prices[i] = plants[i].getPrice();
+        }
+        return prices;
+    }
+
+    /**
+     * Plants are mutable, so the snapshot keeps and hands out its own copies
+     */
+    private static Plant copyOf(Plant plant) {
+        if (plant == null) {
+            return null;
+        }
+        return new Plant(plant.getPlantId(), plant.getName(), plant.getType(), plant.getPrice(),
+                plant.getQuantity(), plant.getDescription());
+    }
+
+    @Override
+    public String toString() {
+        return "CatalogSnapshot{version=" + version + ", plants=" + plants.length + ", marker=" + changeMarker + '}';
+    }
+}
+
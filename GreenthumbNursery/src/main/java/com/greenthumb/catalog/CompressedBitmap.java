@@ -0,0 +1,586 @@
+package com.greenthumb.catalog;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Immutable compressed bitmap of non-negative ints, laid out like a Roaring bitmap.
+ * Values are grouped by their high 16 bits. Each group stores its low 16 bits either
+ * as a sorted char array, while it holds at most 4096 values, or as a 65536-bit word
+ * array, so sparse and dense sets both stay small. AND, OR and intersection counts
+ * work group by group, and dense groups are combined a 64-bit word at a time.
+ */
+public final class CompressedBitmap {
+    // Largest group kept as an array; 4096 chars take as much space as the 1024-word bitmap
+    private static final int ARRAY_MAX = 4096;
+
+    public static final CompressedBitmap EMPTY = new CompressedBitmap(new char[0], new Container[0]);
+
+    // High 16 bits of each group, ascending, with the group's low bits
+    private final char[] keys;
+    private final Container[] containers;
+
+    private CompressedBitmap(char[] keys, Container[] containers) {
+        this.keys = keys;
+        this.containers = containers;
+    }
+
+    /**
+     * Build a bitmap from ascending, distinct values
+     * @param values Sorted values
+     * @param length Number of values to use from the start of the array
+     * @return New bitmap
+     */
+    public static CompressedBitmap of(int[] values, int length) {
+        char[] keys = new char[length];
+        Container[] containers = new Container[length];
+        int groups = 0;
+        int start = 0;
+        while (start < length) {
+            int high = values[start] >>> 16;
+            int end = start + 1;
+            while (end < length && values[end] >>> 16 == high) {
+                end++;
+            }
+            keys[groups] = (char) high;
+            containers[groups] = end - start <= ARRAY_MAX
+                    ? ArrayContainer.of(values, start, end)
+                    : BitmapContainer.of(values, start, end);
+            groups++;
+            start = end;
+        }
+        return new CompressedBitmap(Arrays.copyOf(keys, groups), Arrays.copyOf(containers, groups));
+    }
+
+    public int getCardinality() {
+        int cardinality = 0;
+        for (Container container : containers) {
+            cardinality += container.cardinality();
+        }
+        return cardinality;
+    }
+
+    public boolean isEmpty() {
+        return containers.length == 0;
+    }
+
+    public boolean contains(int value) {
+        int group = Arrays.binarySearch(keys, (char) (value >>> 16));
+        return group >= 0 && containers[group].contains((char) value);
+    }
+
+    /**
+     * Intersect with another bitmap
+     * @param other Other bitmap
+     * @return Values in both bitmaps
+     */
+    public CompressedBitmap and(CompressedBitmap other) {
+        int capacity = Math.min(keys.length, other.keys.length);
+        char[] resultKeys = new char[capacity];
+        Container[] resultContainers = new Container[capacity];
+        int n = 0;
+        int i = 0;
+        int j = 0;
+        while (i < keys.length && j < other.keys.length) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                Container container = containers[i].and(other.containers[j]);
+                if (container != null) {
+                    resultKeys[n] = keys[i];
+                    resultContainers[n] = container;
+                    n++;
+                }
+                i++;
+                j++;
+            }
+        }
+        return new CompressedBitmap(Arrays.copyOf(resultKeys, n), Arrays.copyOf(resultContainers, n));
+    }
+
+    /**
+     * Unite with another bitmap
+     * @param other Other bitmap
+     * @return Values in either bitmap
+     */
+    public CompressedBitmap or(CompressedBitmap other) {
+        char[] resultKeys = new char[keys.length + other.keys.length];
+        Container[] resultContainers = new Container[resultKeys.length];
+        int n = 0;
+        int i = 0;
+        int j = 0;
+        while (i < keys.length || j < other.keys.length) {
+            if (j == other.keys.length || (i < keys.length && keys[i] < other.keys[j])) {
+                resultKeys[n] = keys[i];
+                resultContainers[n++] = containers[i++];
+            } else if (i == keys.length || keys[i] > other.keys[j]) {
+                resultKeys[n] = other.keys[j];
+                resultContainers[n++] = other.containers[j++];
+            } else {
+                resultKeys[n] = keys[i];
+                resultContainers[n++] = containers[i++].or(other.containers[j++]);
+            }
+        }
+        return new CompressedBitmap(Arrays.copyOf(resultKeys, n), Arrays.copyOf(resultContainers, n));
+    }
+
+    /**
+     * Remove the values of another bitmap
+     * @param other Values to remove
+     * @return Values in this bitmap but not in the other
+     */
+    public CompressedBitmap andNot(CompressedBitmap other) {
+        char[] resultKeys = new char[keys.length];
+        Container[] resultContainers = new Container[keys.length];
+        int n = 0;
+        int j = 0;
+        for (int i = 0; i < keys.length; i++) {
+            while (j < other.keys.length && other.keys[j] < keys[i]) {
+                j++;
+            }
+            Container container = j < other.keys.length && other.keys[j] == keys[i]
+                    ? containers[i].andNot(other.containers[j])
+                    : containers[i];
+            if (container != null) {
+                resultKeys[n] = keys[i];
+                resultContainers[n++] = container;
+            }
+        }
+        return new CompressedBitmap(Arrays.copyOf(resultKeys, n), Arrays.copyOf(resultContainers, n));
+    }
+
+    /**
+     * Count the values in both bitmaps without building the intersection
+     * @param other Other bitmap
+     * @return Size of the intersection
+     */
+    public int andCardinality(CompressedBitmap other) {
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < keys.length && j < other.keys.length) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                count += containers[i++].andCardinality(other.containers[j++]);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Visit every value in ascending order
+     * @param action Callback for each value
+     */
+    public void forEach(IntConsumer action) {
+        for (int group = 0; group < keys.length; group++) {
+            containers[group].forEach(keys[group] << 16, action);
+        }
+    }
+
+    /**
+     * Keep the values whose entry in a column lies within a range, e.g. plants by price
+     * @param column Column value of each value
+     * @param min Inclusive minimum
+     * @param max Inclusive maximum
+     * @return Values within the range
+     */
+    public CompressedBitmap filterRange(double[] column, double min, double max) {
+        char[] resultKeys = new char[keys.length];
+        Container[] resultContainers = new Container[keys.length];
+        int n = 0;
+        for (int group = 0; group < keys.length; group++) {
+            Container container = containers[group].filterRange(keys[group] << 16, column, min, max);
+            if (container != null) {
+                resultKeys[n] = keys[group];
+                resultContainers[n++] = container;
+            }
+        }
+        return new CompressedBitmap(Arrays.copyOf(resultKeys, n), Arrays.copyOf(resultContainers, n));
+    }
+
+    /**
+     * Count values per class in one pass, e.g. plants per type
+     * @param classOf Class of each value
+     * @param counts Counts to add to, indexed by class
+     */
+    public void countByClass(int[] classOf, int[] counts) {
+        for (int group = 0; group < keys.length; group++) {
+            containers[group].countByClass(keys[group] << 16, classOf, counts);
+        }
+    }
+
+    /**
+     * Get all values
+     * @return Values in ascending order
+     */
+    public int[] toArray() {
+        int[] values = new int[getCardinality()];
+        int[] n = {0};
+        forEach(value -> values[n[0]++] = value);
+        return values;
+    }
+
+    @Override
+    public String toString() {
+        return "CompressedBitmap{cardinality=" + getCardinality() + ", groups=" + keys.length + '}';
+    }
+
+    /**
+     * Low 16 bits of the values of one group
+     */
+    private abstract static class Container {
+        abstract int cardinality();
+
+        abstract boolean contains(char low);
+
+        /**
+         * @return Intersection, or null if it is empty
+         */
+        abstract Container and(Container other);
+
+        abstract Container or(Container other);
+
+        /**
+         * @return Difference, or null if it is empty
+         */
+        abstract Container andNot(Container other);
+
+        abstract int andCardinality(Container other);
+
+        abstract void forEach(int base, IntConsumer action);
+
+        abstract void countByClass(int base, int[] classOf, int[] counts);
+
+        /**
+         * @return Values within the range, or null if there are none
+         */
+        abstract Container filterRange(int base, double[] column, double min, double max);
+    }
+
+    /**
+     * Sparse group: sorted low bits
+     */
+    private static final class ArrayContainer extends Container {
+        final char[] values;
+
+        ArrayContainer(char[] values) {
+            this.values = values;
+        }
+
+        static ArrayContainer of(int[] values, int start, int end) {
+            char[] lows = new char[end - start];
+            for (int i = start; i < end; i++) {
+                lows[i - start] = (char) values[i];
+            }
+            return new ArrayContainer(lows);
+        }
+
+        @Override
+        int cardinality() {
+            return values.length;
+        }
+
+        @Override
+        boolean contains(char low) {
+            return Arrays.binarySearch(values, low) >= 0;
+        }
+
+        @Override
+        Container and(Container other) {
+            char[] result = new char[values.length];
+            int n = 0;
+            if (other instanceof ArrayContainer) {
+                char[] others = ((ArrayContainer) other).values;
+                int i = 0;
+                int j = 0;
+                while (i < values.length && j < others.length) {
+                    if (values[i] < others[j]) {
+                        i++;
+                    } else if (values[i] > others[j]) {
+                        j++;
+                    } else {
+                        result[n++] = values[i];
+                        i++;
+                        j++;
+                    }
+                }
+            } else {
+                // Branch-free: always store, advance only on a hit
+                long[] words = ((BitmapContainer) other).words;
+                for (char value : values) {
+                    result[n] = value;
+                    n += (int) (words[value >>> 6] >>> value) & 1;
+                }
+            }
+            return n == 0 ? null : new ArrayContainer(Arrays.copyOf(result, n));
+        }
+
+        @Override
+        Container andNot(Container other) {
+            char[] result = new char[values.length];
+            int n = 0;
+            if (other instanceof ArrayContainer) {
+                char[] others = ((ArrayContainer) other).values;
+                int j = 0;
+                for (char value : values) {
+                    while (j < others.length && others[j] < value) {
+                        j++;
+                    }
+                    if (j == others.length || others[j] != value) {
+                        result[n++] = value;
+                    }
+                }
+            } else {
+                long[] words = ((BitmapContainer) other).words;
+                for (char value : values) {
+                    result[n] = value;
+                    n += (int) (~words[value >>> 6] >>> value) & 1;
+                }
+            }
+            return n == 0 ? null : new ArrayContainer(Arrays.copyOf(result, n));
+        }
+
+        @Override
+        Container or(Container other) {
+            if (other instanceof BitmapContainer) {
+                return other.or(this);
+            }
+            char[] others = ((ArrayContainer) other).values;
+            char[] result = new char[values.length + others.length];
+            int n = 0;
+            int i = 0;
+            int j = 0;
+            while (i < values.length || j < others.length) {
+                if (j == others.length || (i < values.length && values[i] < others[j])) {
+                    result[n++] = values[i++];
+                } else if (i == values.length || values[i] > others[j]) {
+                    result[n++] = others[j++];
+                } else {
+                    result[n++] = values[i++];
+                    j++;
+                }
+            }
+            if (n <= ARRAY_MAX) {
+                return new ArrayContainer(Arrays.copyOf(result, n));
+            }
+            long[] words = new long[1024];
+            for (int k = 0; k < n; k++) {
+                words[result[k] >>> 6] |= 1L << result[k];
+            }
+            return new BitmapContainer(words, n);
+        }
+
+        @Override
+        int andCardinality(Container other) {
+            int count = 0;
+            if (other instanceof ArrayContainer) {
+                char[] others = ((ArrayContainer) other).values;
+                int i = 0;
+                int j = 0;
+                while (i < values.length && j < others.length) {
+                    if (values[i] < others[j]) {
+                        i++;
+                    } else if (values[i] > others[j]) {
+                        j++;
+                    } else {
+                        count++;
+                        i++;
+                        j++;
+                    }
+                }
+            } else {
+                long[] words = ((BitmapContainer) other).words;
+                for (char value : values) {
+                    if ((words[value >>> 6] & (1L << value)) != 0) {
+                        count++;
+                    }
+                }
+            }
+            return count;
+        }
+
+        @Override
+        void forEach(int base, IntConsumer action) {
+            for (char value : values) {
+                action.accept(base | value);
+            }
+        }
+
+        @Override
+        void countByClass(int base, int[] classOf, int[] counts) {
+            for (char value : values) {
+                counts[classOf[base | value]]++;
+            }
+        }
+
+        @Override
+        Container filterRange(int base, double[] column, double min, double max) {
+            char[] result = new char[values.length];
+            int n = 0;
+            for (char value : values) {
+                double x = column[base | value];
+                result[n] = value;
+                n += (x >= min ? 1 : 0) & (x <= max ? 1 : 0);
+            }
+            return n == 0 ? null : new ArrayContainer(Arrays.copyOf(result, n));
+        }
+    }
+
+    /**
+     * Dense group: one bit per possible low value
+     */
+    private static final class BitmapContainer extends Container {
+        final long[] words;
+        final int cardinality;
+
+        BitmapContainer(long[] words, int cardinality) {
+            this.words = words;
+            this.cardinality = cardinality;
+        }
+
+        static BitmapContainer of(int[] values, int start, int end) {
+            long[] words = new long[1024];
+            for (int i = start; i < end; i++) {
+                char low = (char) values[i];
+                words[low >>> 6] |= 1L << low;
+            }
+            return new BitmapContainer(words, end - start);
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        boolean contains(char low) {
+            return (words[low >>> 6] & (1L << low)) != 0;
+        }
+
+        @Override
+        Container and(Container other) {
+            if (other instanceof ArrayContainer) {
+                return other.and(this);
+            }
+            long[] others = ((BitmapContainer) other).words;
+            long[] result = new long[1024];
+            for (int w = 0; w < 1024; w++) {
+                result[w] = words[w] & others[w];
+            }
+            return fromWords(result);
+        }
+
+        @Override
+        Container andNot(Container other) {
+            long[] result = words.clone();
+            if (other instanceof ArrayContainer) {
+                for (char value : ((ArrayContainer) other).values) {
+                    result[value >>> 6] &= ~(1L << value);
+                }
+            } else {
+                long[] others = ((BitmapContainer) other).words;
+                for (int w = 0; w < 1024; w++) {
+                    result[w] &= ~others[w];
+                }
+            }
+            return fromWords(result);
+        }
+
+        /**
+         * Wrap words in the smaller container type
+         * @return Container, or null if no bit is set
+         */
+        private static Container fromWords(long[] result) {
+            int count = 0;
+            for (long word : result) {
+                count += Long.bitCount(word);
+            }
+            if (count == 0) {
+                return null;
+            }
+            if (count > ARRAY_MAX) {
+                return new BitmapContainer(result, count);
+            }
+            char[] values = new char[count];
+            int n = 0;
+            for (int w = 0; w < 1024; w++) {
+                for (long word = result[w]; word != 0; word &= word - 1) {
+                    values[n++] = (char) (w * 64 + Long.numberOfTrailingZeros(word));
+                }
+            }
+            return new ArrayContainer(values);
+        }
+
+        @Override
+        Container or(Container other) {
+            long[] result = words.clone();
+            if (other instanceof ArrayContainer) {
+                for (char value : ((ArrayContainer) other).values) {
+                    result[value >>> 6] |= 1L << value;
+                }
+            } else {
+                long[] others = ((BitmapContainer) other).words;
+                for (int w = 0; w < 1024; w++) {
+                    result[w] |= others[w];
+                }
+            }
+            int count = 0;
+            for (long word : result) {
+                count += Long.bitCount(word);
+            }
+            return new BitmapContainer(result, count);
+        }
+
+        @Override
+        int andCardinality(Container other) {
+            if (other instanceof ArrayContainer) {
+                return other.andCardinality(this);
+            }
+            long[] others = ((BitmapContainer) other).words;
+            int count = 0;
+            for (int w = 0; w < 1024; w++) {
+                count += Long.bitCount(words[w] & others[w]);
+            }
+            return count;
+        }
+
+        @Override
+        void forEach(int base, IntConsumer action) {
+            for (int w = 0; w < 1024; w++) {
+                for (long word = words[w]; word != 0; word &= word - 1) {
+                    action.accept(base | (w * 64 + Long.numberOfTrailingZeros(word)));
+                }
+            }
+        }
+
+        @Override
+        void countByClass(int base, int[] classOf, int[] counts) {
+            for (int w = 0; w < 1024; w++) {
+                for (long word = words[w]; word != 0; word &= word - 1) {
+                    counts[classOf[base | (w * 64 + Long.numberOfTrailingZeros(word))]]++;
+                }
+            }
+        }
+
+        @Override
+        Container filterRange(int base, double[] column, double min, double max) {
+            long[] result = new long[1024];
+            for (int w = 0; w < 1024; w++) {
+                long kept = 0;
+                for (long word = words[w]; word != 0; word &= word - 1) {
+                    int bit = Long.numberOfTrailingZeros(word);
+                    double x = column[base | (w * 64 + bit)];
+                    kept |= (long) ((x >= min ? 1 : 0) & (x <= max ? 1 : 0)) << bit;
+                }
+                result[w] = kept;
+            }
+            return fromWords(result);
+        }
+    }
+}
+
@@ -0,0 +1,256 @@
+package com.greenthumb.catalog;
+
+import com.greenthumb.model.Plant;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Immutable autocomplete index over plant names.
+ * Every suffix of a normalized name that starts at a word ("monstera deliciosa",
+ * "deliciosa") is an entry, and entries are kept in one sorted array of
+ * (plant, offset) pairs, so the entries completing a typed prefix form a single
+ * range found by binary search. A segment tree over the entries' popularity gives
+ * the most popular plant in any range in O(log n), so the top k completions are
+ * found in O(k log n) however many plants share the prefix.
+ */
+public final class PlantAutocomplete {
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    // Plant ordinal -> display name, normalized name and popularity
+    private final String[] names;
+    private final String[] normalizedNames;
+    private final int[] popularity;
+    // Sorted entries, each (plant ordinal << 16 | offset into the normalized name)
+    private final long[] entries;
+    // Bottom-up segment tree of entry indexes; each node holds the most popular entry below it
+    private final int[] tree;
+
+    private PlantAutocomplete(String[] names, String[] normalizedNames, int[] popularity, long[] entries) {
+        this.names = names;
+        this.normalizedNames = normalizedNames;
+        this.popularity = popularity;
+        this.entries = entries;
+        this.tree = new int[entries.length * 2];
+        for (int i = 0; i < entries.length; i++) {
+            tree[entries.length + i] = i;
+        }
+        for (int node = entries.length - 1; node > 0; node--) {
+            tree[node] = better(tree[2 * node], tree[2 * node + 1]);
+        }
+    }
+
+    /**
+     * Build an autocomplete index
+     * @param plants Plants to complete
+     * @param unitsSold Popularity by plant ID; plants not in the map count as never sold
+     * @return New index
+     */
+    public static PlantAutocomplete build(Collection<Plant> plants, Map<String, Integer> unitsSold) {
+        String[] names = new String[plants.size()];
+        String[] normalizedNames = new String[plants.size()];
+        int[] popularity = new int[plants.size()];
+        List<Long> entryList = new ArrayList<>(plants.size() * 2);
+        int ordinal = 0;
+        for (Plant plant : plants) {
+            names[ordinal] = plant.getName() != null ? plant.getName() : "";
+            normalizedNames[ordinal] = normalize(names[ordinal]);
+            popularity[ordinal] = unitsSold.getOrDefault(plant.getPlantId(), 0);
+            String normalized = normalizedNames[ordinal];
+            for (int offset = 0; offset < normalized.length() && offset < 0xffff; offset++) {
+                boolean wordStart = offset == 0 || !Character.isLetterOrDigit(normalized.charAt(offset - 1));
+                if (wordStart && Character.isLetterOrDigit(normalized.charAt(offset))) {
+                    entryList.add(((long) ordinal << 16) | offset);
+                }
+            }
+            ordinal++;
+        }
+
+        entryList.sort((a, b) -> compareSuffixes(normalizedNames, a, b));
+        long[] entries = new long[entryList.size()];
+        for (int i = 0; i < entries.length; i++) {
+            entries[i] = entryList.get(i);
+        }
+        return new PlantAutocomplete(names, normalizedNames, popularity, entries);
+    }
+
+    /**
+     * Complete a typed prefix of any word of a plant name
+     * @param prefix Typed text
+     * @param limit Maximum number of completions
+     * @return Distinct plant names, most popular first
+     */
+    public List<String> complete(String prefix, int limit) {
+        String key = normalize(prefix);
+        if (key.isEmpty() || limit <= 0 || entries.length == 0) {
+            return Collections.emptyList();
+        }
+        int from = firstEntry(key, false);
+        int to = firstEntry(key, true);
+        if (from >= to) {
+            return Collections.emptyList();
+        }
+
+        // Repeatedly take the most popular entry of a range and split the range around it
+        PriorityQueue<int[]> ranges = new PriorityQueue<>((a, b) -> compareEntries(b[2], a[2]));
+        ranges.add(new int[]{from, to, best(from, to)});
+        List<String> completions = new ArrayList<>(limit);
+        Set<String> seen = new HashSet<>();
+        while (!ranges.isEmpty() && completions.size() < limit) {
+            int[] range = ranges.poll();
+            int entry = range[2];
+            String name = names[ordinalOf(entries[entry])];
+            if (seen.add(name)) {
+                completions.add(name);
+            }
+            if (range[0] < entry) {
+                ranges.add(new int[]{range[0], entry, best(range[0], entry)});
+            }
+            if (entry + 1 < range[1]) {
+                ranges.add(new int[]{entry + 1, range[1], best(entry + 1, range[1])});
+            }
+        }
+        return completions;
+    }
+
+    /**
+     * Check if the index still matches a set of plants, i.e. no plant was added and no name changed
+     * @param oldPlants Looks up the old version of a plant by ID, or null if there is none
+     * @param changed Plants that changed since the index was built
+     * @return true if the index can be reused
+     */
+    boolean unaffectedBy(Function<String, Plant> oldPlants, Collection<Plant> changed) {
+        for (Plant plant : changed) {
+            Plant old = oldPlants.apply(plant.getPlantId());
+            if (old == null || !String.valueOf(old.getName()).equals(String.valueOf(plant.getName()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Index of the first entry whose suffix is not less than the key, or, if past is
+     * true, of the first entry after all suffixes starting with the key
+     */
+    private int firstEntry(String key, boolean past) {
+        int low = 0;
+        int high = entries.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int cmp = compareToKey(entries[mid], key);
+            if (cmp < 0 || (past && cmp == 0)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Compare an entry's suffix with a key; 0 means the suffix starts with the key
+     */
+    private int compareToKey(long entry, String key) {
+        String name = normalizedNames[ordinalOf(entry)];
+        int offset = offsetOf(entry);
+        int length = Math.min(name.length() - offset, key.length());
+        for (int i = 0; i < length; i++) {
+            int diff = name.charAt(offset + i) - key.charAt(i);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return name.length() - offset >= key.length() ? 0 : -1;
+    }
+
+    /**
+     * Most popular entry in [from, to)
+     */
+    private int best(int from, int to) {
+        int result = from;
+        for (int low = from + entries.length, high = to + entries.length; low < high; low >>= 1, high >>= 1) {
+            if ((low & 1) == 1) {
+                result = better(result, tree[low++]);
+            }
+            if ((high & 1) == 1) {
+                result = better(result, tree[--high]);
+            }
+        }
+        return result;
+    }
+
+    private int better(int a, int b) {
+        return compareEntries(a, b) >= 0 ? a : b;
+    }
+
+    /**
+     * Order entries by popularity, then alphabetically (earlier entry wins)
+     */
+    private int compareEntries(int a, int b) {
+        int cmp = Integer.compare(popularity[ordinalOf(entries[a])], popularity[ordinalOf(entries[b])]);
+        return cmp != 0 ? cmp : Integer.compare(b, a);
+    }
+
+    private static int compareSuffixes(String[] normalizedNames, long a, long b) {
+        String nameA = normalizedNames[ordinalOf(a)];
+        String nameB = normalizedNames[ordinalOf(b)];
+        int i = offsetOf(a);
+        int j = offsetOf(b);
+        while (i < nameA.length() && j < nameB.length()) {
+            int diff = nameA.charAt(i++) - nameB.charAt(j++);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return (nameA.length() - i) - (nameB.length() - j);
+    }
+
+    private static int ordinalOf(long entry) {
+        return (int) (entry >>> 16);
+    }
+
+    private static int offsetOf(long entry) {
+        return (int) (entry & 0xffff);
+    }
+
+    /**
+     * Lower-case, remove accents, drop leading spaces and collapse runs of whitespace
+     */
+    private static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String folded = text;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) >= 128) {
+                folded = COMBINING_MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+                break;
+            }
+        }
+        StringBuilder result = new StringBuilder(folded.length());
+        for (int i = 0; i < folded.length(); i++) {
+            char c = folded.charAt(i);
+            if (Character.isWhitespace(c)) {
+                if (result.length() > 0 && result.charAt(result.length() - 1) != ' ') {
+                    result.append(' ');
+                }
+            } else {
+                result.append(c);
+            }
+        }
+        return result.toString().toLowerCase(Locale.ROOT);
+    }
+}
+
@@ -0,0 +1,501 @@
+package com.greenthumb.catalog;
+
+import com.greenthumb.model.Plant;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Immutable bitmap index over the plants of a snapshot, for filtering and facet counts.
+ * A plant is identified by its ordinal in the snapshot. There is one CompressedBitmap
+ * per plant type, per display price band and for plants in stock; any combination of
+ * criteria is answered by ANDing bitmaps. Facet counts come from a single pass over
+ * the filtered plants using each plant's type and band number.
+ * Price ranges use range encoding over the snapshot's PriceIndex: its positions are
+ * split into buckets of equal size, and for every bucket a bitmap holds all plants in
+ * lower buckets, so the whole buckets of a range are one AND NOT of two bitmaps and
+ * only the plants at the ends of the range, outside whole buckets, are added one by one.
+ */
+public final class PlantBitmapIndex {
+    // Upper bounds of the display price bands; the last band has no upper bound
+    private static final double[] PRICE_BAND_EDGES = {10, 25, 50, 100};
+    private static final String[] PRICE_BAND_LABELS = priceBandLabels();
+    private static final int PRICE_BUCKETS = 64;
+
+    private final int size;
+    private final double[] prices;
+    private final CompressedBitmap all;
+    private final CompressedBitmap inStock;
+    // Keyed by lower-cased type, with the type as first spelled for display
+    private final Map<String, CompressedBitmap> byType;
+    private final Map<String, String> typeNames;
+    private final CompressedBitmap[] byPriceBand;
+    // Type keys by number, and each plant's type number and price band
+    private final String[] typeKeys;
+    private final int[] typeOf;
+    private final int[] bandOf;
+    // First price index position of each bucket (plus the end), and for bucket b the plants of buckets below b
+    private final PriceIndex priceIndex;
+    private final int[] bucketStart;
+    private final CompressedBitmap[] belowBucket;
+
+    private PlantBitmapIndex(int size, double[] prices, CompressedBitmap all, CompressedBitmap inStock,
+                             Map<String, CompressedBitmap> byType, Map<String, String> typeNames,
+                             CompressedBitmap[] byPriceBand, String[] typeKeys, int[] typeOf, int[] bandOf,
+                             PriceIndex priceIndex, int[] bucketStart,
+                             CompressedBitmap[] belowBucket) {
+        this.size = size;
+        this.prices = prices;
+        this.all = all;
+        this.inStock = inStock;
+        this.byType = byType;
+        this.typeNames = typeNames;
+        this.byPriceBand = byPriceBand;
+        this.typeKeys = typeKeys;
+        this.typeOf = typeOf;
+        this.bandOf = bandOf;
+        this.priceIndex = priceIndex;
+        this.bucketStart = bucketStart;
+        this.belowBucket = belowBucket;
+    }
+
+    /**
+     * Build an index over plants
+     * @param plants Plants; a plant's ordinal is its position in this array
+     * @param priceIndex Price index over the same plants
+     * @return New index
+     */
+    static PlantBitmapIndex build(Plant[] plants, PriceIndex priceIndex) {
+        int[] allOrdinals = new int[plants.length];
+        int[] inStockOrdinals = new int[plants.length];
+        int inStockCount = 0;
+        double[] prices = new double[plants.length];
+        Map<String, int[]> typeOrdinals = new HashMap<>();
+        Map<String, Integer> typeCounts = new HashMap<>();
+        Map<String, String> typeNames = new HashMap<>();
+        int[][] bandOrdinals = new int[PRICE_BAND_EDGES.length + 1][plants.length];
+        int[] bandCounts = new int[PRICE_BAND_EDGES.length + 1];
+        Map<String, Integer> typeNumbers = new HashMap<>();
+        int[] typeOf = new int[plants.length];
+        int[] bandOf = new int[plants.length];
+
+        for (int ordinal = 0; ordinal < plants.length; ordinal++) {
+            Plant plant = plants[ordinal];
+            allOrdinals[ordinal] = ordinal;
+            prices[ordinal] = plant.getPrice();
+            if (plant.getQuantity() > 0) {
+                inStockOrdinals[inStockCount++] = ordinal;
+            }
+
+            String type = typeKey(plant.getType());
+            typeNames.putIfAbsent(type, plant.getType() != null ? plant.getType().trim() : "");
+            int count = typeCounts.getOrDefault(type, 0);
+            int[] ordinals = typeOrdinals.get(type);
+            if (ordinals == null) {
+                ordinals = new int[16];
+            } else if (count == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, count * 2);
+            }
+            ordinals[count] = ordinal;
+            typeOrdinals.put(type, ordinals);
+            typeCounts.put(type, count + 1);
+            Integer typeNumber = typeNumbers.get(type);
+            if (typeNumber == null) {
+                typeNumber = typeNumbers.size();
+                typeNumbers.put(type, typeNumber);
+            }
+            typeOf[ordinal] = typeNumber;
+
+            int band = priceBand(plant.getPrice());
+            bandOf[ordinal] = band;
+            bandOrdinals[band][bandCounts[band]++] = ordinal;
+        }
+
+        Map<String, CompressedBitmap> byType = new HashMap<>();
+        for (Map.Entry<String, int[]> entry : typeOrdinals.entrySet()) {
+            byType.put(entry.getKey(), CompressedBitmap.of(entry.getValue(), typeCounts.get(entry.getKey())));
+        }
+        String[] typeKeys = new String[typeNumbers.size()];
+        for (Map.Entry<String, Integer> entry : typeNumbers.entrySet()) {
+            typeKeys[entry.getValue()] = entry.getKey();
+        }
+        CompressedBitmap[] byPriceBand = new CompressedBitmap[bandOrdinals.length];
+        for (int band = 0; band < bandOrdinals.length; band++) {
+            byPriceBand[band] = CompressedBitmap.of(bandOrdinals[band], bandCounts[band]);
+        }
+
+        int[] bucketStart = bucketStarts(plants.length);
+        return new PlantBitmapIndex(plants.length, prices, CompressedBitmap.of(allOrdinals, plants.length),
+                CompressedBitmap.of(inStockOrdinals, inStockCount), byType, typeNames, byPriceBand,
+                typeKeys, typeOf, bandOf, priceIndex, bucketStart, belowBuckets(priceIndex, bucketStart));
+    }
+
+    /**
+     * Build an index for an updated set of plants from this one. If the plants indexed
+     * here keep their ordinals (plants were only updated, or added after all of them),
+     * only the type, band and stock bitmaps the changed plants leave or join are patched,
+     * and only the price buckets whose plants moved are rebuilt; otherwise the index is
+     * built again.
+     * @param plants New plants; a plant's ordinal is its position in this array
+     * @param changed Ordinals of the added or updated plants, ascending
+     * @param previous Old version of each changed plant, or null for an added plant
+     * @param priceIndex Price index over the new plants
+     * @return New index; this index is left untouched
+     */
+    PlantBitmapIndex withChanges(Plant[] plants, int[] changed, Plant[] previous, PriceIndex priceIndex) {
+        for (int i = 0; i < changed.length; i++) {
+            if (previous[i] == null && changed[i] < size) {
+                // An added plant moved the plants after it to other ordinals
+                return build(plants, priceIndex);
+            }
+        }
+        if (changed.length == 0) {
+            return this;
+        }
+
+        double[] newPrices = Arrays.copyOf(prices, plants.length);
+        int[] newTypeOf = Arrays.copyOf(typeOf, plants.length);
+        int[] newBandOf = Arrays.copyOf(bandOf, plants.length);
+        Map<String, String> newTypeNames = typeNames;
+        String[] newTypeKeys = typeKeys;
+        Map<String, Integer> typeNumbers = new HashMap<>();
+        for (int t = 0; t < typeKeys.length; t++) {
+            typeNumbers.put(typeKeys[t], t);
+        }
+        // Class of each changed plant before and after the change, -1 for none
+        int[] oldTypes = new int[changed.length];
+        int[] newTypes = new int[changed.length];
+        int[] oldBands = new int[changed.length];
+        int[] newBands = new int[changed.length];
+        int[] oldStock = new int[changed.length];
+        int[] newStock = new int[changed.length];
+        for (int i = 0; i < changed.length; i++) {
+            int ordinal = changed[i];
+            Plant plant = plants[ordinal];
+            String type = typeKey(plant.getType());
+            Integer typeNumber = typeNumbers.get(type);
+            if (typeNumber == null) {
+                typeNumber = typeNumbers.size();
+                typeNumbers.put(type, typeNumber);
+                newTypeKeys = Arrays.copyOf(newTypeKeys, typeNumber + 1);
+                newTypeKeys[typeNumber] = type;
+                if (newTypeNames == typeNames) {
+                    newTypeNames = new HashMap<>(typeNames);
+                }
+                newTypeNames.put(type, plant.getType() != null ? plant.getType().trim() : "");
+            }
+            oldTypes[i] = previous[i] != null ? typeOf[ordinal] : -1;
+            oldBands[i] = previous[i] != null ? bandOf[ordinal] : -1;
+            oldStock[i] = previous[i] != null ? (previous[i].getQuantity() > 0 ? 1 : 0) : -1;
+            newTypes[i] = typeNumber;
+            newBands[i] = priceBand(plant.getPrice());
+            newStock[i] = plant.getQuantity() > 0 ? 1 : 0;
+            newPrices[ordinal] = plant.getPrice();
+            newTypeOf[ordinal] = newTypes[i];
+            newBandOf[ordinal] = newBands[i];
+        }
+
+        Map<String, CompressedBitmap> newByType = new HashMap<>(byType);
+        boolean[] typeTouched = touched(oldTypes, newTypes, newTypeKeys.length);
+        for (int t = 0; t < newTypeKeys.length; t++) {
+            if (typeTouched[t]) {
+                newByType.put(newTypeKeys[t], patch(byType.getOrDefault(newTypeKeys[t], CompressedBitmap.EMPTY),
+                        changed, oldTypes, newTypes, t));
+            }
+        }
+        CompressedBitmap[] newByPriceBand = byPriceBand.clone();
+        boolean[] bandTouched = touched(oldBands, newBands, byPriceBand.length);
+        for (int band = 0; band < byPriceBand.length; band++) {
+            if (bandTouched[band]) {
+                newByPriceBand[band] = patch(byPriceBand[band], changed, oldBands, newBands, band);
+            }
+        }
+        CompressedBitmap newInStock = patch(inStock, changed, oldStock, newStock, 1);
+        CompressedBitmap newAll = all;
+        if (plants.length > size) {
+            int[] added = new int[plants.length - size];
+            for (int i = 0; i < added.length; i++) {
+                added[i] = size + i;
+            }
+            newAll = all.or(CompressedBitmap.of(added, added.length));
+        }
+
+        int[] newBucketStart = bucketStart;
+        CompressedBitmap[] newBelowBucket = belowBucket;
+        if (plants.length != size) {
+            newBucketStart = bucketStarts(plants.length);
+            newBelowBucket = belowBuckets(priceIndex, newBucketStart);
+        } else if (priceIndex != this.priceIndex) {
+            // Plants only move between the lowest and highest position a changed plant
+            // had or has now, so only bucket boundaries within that span see other plants below them
+            int lowest = size;
+            int highest = -1;
+            for (int ordinal : changed) {
+                if (Double.compare(prices[ordinal], newPrices[ordinal]) != 0) {
+                    int oldPosition = this.priceIndex.positionOf(ordinal, prices[ordinal]);
+                    int newPosition = priceIndex.positionOf(ordinal, newPrices[ordinal]);
+                    lowest = Math.min(lowest, Math.min(oldPosition, newPosition));
+                    highest = Math.max(highest, Math.max(oldPosition, newPosition));
+                }
+            }
+            newBelowBucket = belowBucket.clone();
+            for (int b = 1; b < bucketStart.length; b++) {
+                if (bucketStart[b] > lowest && bucketStart[b] <= highest) {
+                    newBelowBucket[b] = newBelowBucket[b - 1].or(priceRange(priceIndex, bucketStart[b - 1], bucketStart[b]));
+                }
+            }
+        }
+
+        return new PlantBitmapIndex(plants.length, newPrices, newAll, newInStock, newByType, newTypeNames,
+                newByPriceBand, newTypeKeys, newTypeOf, newBandOf, priceIndex, newBucketStart, newBelowBucket);
+    }
+
+    /**
+     * Get plants matching all given criteria
+     * @param type Plant type, case-insensitive (can be null)
+     * @param minPrice Inclusive minimum price (can be null)
+     * @param maxPrice Inclusive maximum price (can be null)
+     * @param inStockOnly true to keep only plants with stock available
+     * @return Ordinals of matching plants
+     */
+    public CompressedBitmap filter(String type, Double minPrice, Double maxPrice, boolean inStockOnly) {
+        CompressedBitmap result = and(inStockOnly ? inStock : null, type != null ? typeBitmap(type) : null);
+        if (result != null && (minPrice != null || maxPrice != null) && result.getCardinality() < size / 16) {
+            // Few candidates left: checking their prices is cheaper than building the price bitmap
+            return result.filterRange(prices, lowerBound(minPrice), upperBound(maxPrice));
+        }
+        result = and(result, priceBitmap(minPrice, maxPrice));
+        return result != null ? result : all;
+    }
+
+    /**
+     * Count matching plants per type and price band
+     * @param candidates Plants to count among, e.g. the hits of a name search (null for all plants)
+     * @param type Plant type filter (can be null)
+     * @param minPrice Inclusive minimum price (can be null)
+     * @param maxPrice Inclusive maximum price (can be null)
+     * @return Facet counts
+     */
+    public PlantFacets facets(CompressedBitmap candidates, String type, Double minPrice, Double maxPrice) {
+        CompressedBitmap typeFilter = type != null ? typeBitmap(type) : null;
+        CompressedBitmap forTypes = and(candidates, priceBitmap(minPrice, maxPrice));
+        Map<String, Integer> typeCounts = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        int[] countsByType = new int[typeKeys.length];
+        if (forTypes != null) {
+            forTypes.countByClass(typeOf, countsByType);
+        }
+        for (int t = 0; t < typeKeys.length; t++) {
+            int count = forTypes != null ? countsByType[t] : byType.get(typeKeys[t]).getCardinality();
+            if (count > 0) {
+                typeCounts.put(typeNames.get(typeKeys[t]), count);
+            }
+        }
+
+        CompressedBitmap forBands = and(candidates, typeFilter);
+        int[] countsByBand = new int[byPriceBand.length];
+        if (forBands != null) {
+            forBands.countByClass(bandOf, countsByBand);
+        }
+        Map<String, Integer> bandCounts = new LinkedHashMap<>();
+        for (int band = 0; band < byPriceBand.length; band++) {
+            bandCounts.put(PRICE_BAND_LABELS[band],
+                    forBands != null ? countsByBand[band] : byPriceBand[band].getCardinality());
+        }
+
+        CompressedBitmap matching = and(forTypes, typeFilter);
+        return new PlantFacets(matching != null ? matching.getCardinality() : size, count(matching, inStock),
+                typeCounts, bandCounts);
+    }
+
+    public CompressedBitmap getInStock() {
+        return inStock;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private CompressedBitmap typeBitmap(String type) {
+        return byType.getOrDefault(typeKey(type), CompressedBitmap.EMPTY);
+    }
+
+    /**
+     * Plants priced within [minPrice, maxPrice]
+     * @return Matching ordinals, or null if neither bound is set
+     */
+    private CompressedBitmap priceBitmap(Double minPrice, Double maxPrice) {
+        if (minPrice == null && maxPrice == null) {
+            return null;
+        }
+        int from = minPrice != null ? priceIndex.lowerBound(minPrice) : 0;
+        int to = maxPrice != null ? priceIndex.upperBound(maxPrice) : priceIndex.size();
+        if (to <= from) {
+            return CompressedBitmap.EMPTY;
+        }
+        // Whole buckets are those from the first bucket starting at or after from to the last ending at or before to
+        int firstWhole = firstBucketAtOrAfter(from);
+        int endWhole = firstBucketAtOrAfter(to + 1) - 1;
+        if (endWhole <= firstWhole) {
+            return priceRange(priceIndex, from, to);
+        }
+        CompressedBitmap result = firstWhole == 0 ? belowBucket[endWhole]
+                : belowBucket[endWhole].andNot(belowBucket[firstWhole]);
+        if (from < bucketStart[firstWhole]) {
+            result = result.or(priceRange(priceIndex, from, bucketStart[firstWhole]));
+        }
+        if (bucketStart[endWhole] < to) {
+            result = result.or(priceRange(priceIndex, bucketStart[endWhole], to));
+        }
+        return result;
+    }
+
+    /**
+     * First bucket boundary at or after a price index position
+     */
+    private int firstBucketAtOrAfter(int position) {
+        int low = 0;
+        int high = bucketStart.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (bucketStart[mid] < position) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Classes that a changed plant left or joined
+     */
+    private static boolean[] touched(int[] oldClasses, int[] newClasses, int classes) {
+        boolean[] touched = new boolean[classes];
+        for (int i = 0; i < oldClasses.length; i++) {
+            if (oldClasses[i] != newClasses[i]) {
+                if (oldClasses[i] >= 0) {
+                    touched[oldClasses[i]] = true;
+                }
+                touched[newClasses[i]] = true;
+            }
+        }
+        return touched;
+    }
+
+    /**
+     * Remove the changed plants that left a class from its bitmap and add those that joined it
+     * @param bitmap Plants of the class before the change
+     * @param changed Ordinals of the changed plants, ascending
+     * @param oldClasses Class of each changed plant before the change, -1 for none
+     * @param newClasses Class of each changed plant after the change
+     * @param cls Class of the bitmap
+     * @return Plants of the class after the change
+     */
+    private static CompressedBitmap patch(CompressedBitmap bitmap, int[] changed, int[] oldClasses,
+                                          int[] newClasses, int cls) {
+        int[] removed = new int[changed.length];
+        int removedCount = 0;
+        int[] added = new int[changed.length];
+        int addedCount = 0;
+        for (int i = 0; i < changed.length; i++) {
+            if (oldClasses[i] == cls && newClasses[i] != cls) {
+                removed[removedCount++] = changed[i];
+            } else if (oldClasses[i] != cls && newClasses[i] == cls) {
+                added[addedCount++] = changed[i];
+            }
+        }
+        if (removedCount > 0) {
+            bitmap = bitmap.andNot(CompressedBitmap.of(removed, removedCount));
+        }
+        if (addedCount > 0) {
+            bitmap = bitmap.or(CompressedBitmap.of(added, addedCount));
+        }
+        return bitmap;
+    }
+
+    /**
+     * First price index position of each price bucket, plus the end
+     */
+    private static int[] bucketStarts(int size) {
+        int buckets = Math.min(PRICE_BUCKETS, size);
+        int[] bucketStart = new int[buckets + 1];
+        for (int b = 1; b <= buckets; b++) {
+            bucketStart[b] = (int) ((long) b * size / buckets);
+        }
+        return bucketStart;
+    }
+
+    /**
+     * For each bucket, the plants of the buckets below it
+     */
+    private static CompressedBitmap[] belowBuckets(PriceIndex priceIndex, int[] bucketStart) {
+        CompressedBitmap[] belowBucket = new CompressedBitmap[bucketStart.length];
+        belowBucket[0] = CompressedBitmap.EMPTY;
+        for (int b = 1; b < bucketStart.length; b++) {
+            belowBucket[b] = belowBucket[b - 1].or(priceRange(priceIndex, bucketStart[b - 1], bucketStart[b]));
+        }
+        return belowBucket;
+    }
+
+    /**
+     * Plants at a range of price index positions
+     */
+    private static CompressedBitmap priceRange(PriceIndex priceIndex, int from, int to) {
+        int[] ordinals = new int[to - from];
+        priceIndex.copyOrdinals(from, to, ordinals, 0);
+        Arrays.sort(ordinals);
+        return CompressedBitmap.of(ordinals, ordinals.length);
+    }
+
+    private static double lowerBound(Double minPrice) {
+        return minPrice != null ? minPrice : Double.NEGATIVE_INFINITY;
+    }
+
+    private static double upperBound(Double maxPrice) {
+        return maxPrice != null ? maxPrice : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Intersect two filters, where null stands for all plants
+     */
+    private static CompressedBitmap and(CompressedBitmap a, CompressedBitmap b) {
+        if (a == null) {
+            return b;
+        }
+        return b == null ? a : a.and(b);
+    }
+
+    /**
+     * Size of the intersection of a filter, where null stands for all plants, with a bitmap
+     */
+    private static int count(CompressedBitmap filter, CompressedBitmap bitmap) {
+        return filter != null ? filter.andCardinality(bitmap) : bitmap.getCardinality();
+    }
+
+    private static int priceBand(double price) {
+        int band = 0;
+        while (band < PRICE_BAND_EDGES.length && price >= PRICE_BAND_EDGES[band]) {
+            band++;
+        }
+        return band;
+    }
+
+    private static String[] priceBandLabels() {
+        String[] labels = new String[PRICE_BAND_EDGES.length + 1];
+        labels[0] = String.format("Under $%.0f", PRICE_BAND_EDGES[0]);
+        for (int band = 1; band < PRICE_BAND_EDGES.length; band++) {
+            labels[band] = String.format("$%.0f - $%.0f", PRICE_BAND_EDGES[band - 1], PRICE_BAND_EDGES[band]);
+        }
+        labels[PRICE_BAND_EDGES.length] = String.format("$%.0f and over", PRICE_BAND_EDGES[PRICE_BAND_EDGES.length - 1]);
+        return labels;
+    }
+
+    private static String typeKey(String type) {
+        return type != null ? type.trim().toLowerCase(Locale.ROOT) : "";
+    }
+}
+
@@ -0,0 +1,62 @@
+package com.greenthumb.catalog;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Facet counts for a plant search: how many matching plants fall in each type and
+ * price band. Type counts ignore the type filter and price band counts ignore the
+ * price filter, so each facet shows what choosing another value would return.
+ */
+public class PlantFacets {
+    private final int total;
+    private final int inStock;
+    private final Map<String, Integer> typeCounts;
+    private final Map<String, Integer> priceBandCounts;
+
+    PlantFacets(int total, int inStock, Map<String, Integer> typeCounts, Map<String, Integer> priceBandCounts) {
+        this.total = total;
+        this.inStock = inStock;
+        this.typeCounts = Collections.unmodifiableMap(typeCounts);
+        this.priceBandCounts = Collections.unmodifiableMap(priceBandCounts);
+    }
+
+    /**
+     * Get number of plants matching all criteria
+     * @return Matching plant count
+     */
+    public int getTotal() {
+        return total;
+    }
+
+    /**
+     * Get number of matching plants with stock available
+     * @return In-stock plant count
+     */
+    public int getInStock() {
+        return inStock;
+    }
+
+    /**
+     * Get plant counts per type, sorted by type name; types without plants are left out
+     * @return Map of type to plant count
+     */
+    public Map<String, Integer> getTypeCounts() {
+        return typeCounts;
+    }
+
+    /**
+     * Get plant counts per price band, cheapest band first
+     * @return Map of band label (e.g. "$10 - $25") to plant count
+     */
+    public Map<String, Integer> getPriceBandCounts() {
+        return priceBandCounts;
+    }
+
+    @Override
+    public String toString() {
+        return "PlantFacets{total=" + total + ", inStock=" + inStock + ", types=" + typeCounts +
+                ", priceBands=" + priceBandCounts + '}';
+    }
+}
+
@@ -0,0 +1,543 @@
+package com.greenthumb.catalog;
+
+import com.greenthumb.model.Plant;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Immutable inverted index over plant name, type and description.
+ * Text is split into lower-cased, accent-free word tokens. Each token maps to a
+ * postings list of (document, weight) pairs sorted by document, where a document
+ * is a plant's ordinal in this index. Weights are TF-IDF style: a term counts more
+ * in the name than in the type, and more in the type than in the description, and
+ * matches in short fields count more than matches in long ones.
+ *
+ * A query matches plants containing every query word, either exactly or as a
+ * word prefix (exact words rank higher), and results are ranked by summed score.
+ * A query word that no indexed word starts with is taken to be misspelled and
+ * matches the indexed words closest to it by trigram similarity (see TrigramIndex),
+ * so "monstera delicosa" still finds Monstera deliciosa.
+ * Plant IDs rather than plants are indexed, so stock changes never touch the index.
+ */
+public final class PlantSearchIndex {
+    static final float NAME_WEIGHT = 3.0f;
+    static final float TYPE_WEIGHT = 2.0f;
+    static final float DESCRIPTION_WEIGHT = 1.0f;
+
+    // Score factor for a query word that only matches as a prefix of an indexed word
+    private static final float PREFIX_MATCH_FACTOR = 0.5f;
+
+    // Typo tolerance: a query word that no indexed word starts with matches the most
+    // similar indexed words instead, scored by similarity times FUZZY_MATCH_FACTOR
+    private static final float FUZZY_SIMILARITY_THRESHOLD = 0.4f;
+    private static final float FUZZY_MATCH_FACTOR = 0.5f;
+    private static final int MAX_FUZZY_TERMS = 5;
+    private static final int MIN_FUZZY_WORD_LENGTH = 3;
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Set<String> STOP_WORDS = new HashSet<>(Arrays.asList(
+            "a", "an", "and", "are", "as", "for", "in", "is", "it", "of", "on", "or", "the", "to", "with"));
+
+    private static final PlantSearchIndex EMPTY = new PlantSearchIndex(new String[0], Collections.emptyMap(),
+            new String[0], new int[0][], new float[0][]);
+
+    // Document ordinal -> plant ID, and back
+    private final String[] plantIds;
+    private final Map<String, Integer> ordinals;
+    // Sorted terms with their postings; postingDocs[i] is sorted ascending
+    private final String[] terms;
+    private final int[][] postingDocs;
+    private final float[][] postingWeights;
+    private volatile TrigramIndex trigramIndex = null;
+
+    private PlantSearchIndex(String[] plantIds, Map<String, Integer> ordinals,
+                             String[] terms, int[][] postingDocs, float[][] postingWeights) {
+        this.plantIds = plantIds;
+        this.ordinals = ordinals;
+        this.terms = terms;
+        this.postingDocs = postingDocs;
+        this.postingWeights = postingWeights;
+    }
+
+    /**
+     * Build an index over a set of plants
+     * @param plants Plants to index
+     * @return New index
+     */
+    public static PlantSearchIndex build(Collection<Plant> plants) {
+        if (plants.isEmpty()) {
+            return EMPTY;
+        }
+
+        String[] plantIds = new String[plants.size()];
+        Map<String, Integer> ordinals = new HashMap<>(plants.size() * 2);
+        Map<String, PostingsBuilder> postings = new HashMap<>();
+        int doc = 0;
+        for (Plant plant : plants) {
+            plantIds[doc] = plant.getPlantId();
+            ordinals.put(plant.getPlantId(), doc);
+            for (Map.Entry<String, Float> term : termWeights(plant).entrySet()) {
+                postings.computeIfAbsent(term.getKey(), k -> new PostingsBuilder()).add(doc, term.getValue());
+            }
+            doc++;
+        }
+
+        String[] terms = postings.keySet().toArray(new String[0]);
+        Arrays.sort(terms);
+        int[][] postingDocs = new int[terms.length][];
+        float[][] postingWeights = new float[terms.length][];
+        for (int i = 0; i < terms.length; i++) {
+            PostingsBuilder builder = postings.get(terms[i]);
+            postingDocs[i] = Arrays.copyOf(builder.docs, builder.size);
+            postingWeights[i] = Arrays.copyOf(builder.weights, builder.size);
+        }
+        return new PlantSearchIndex(plantIds, ordinals, terms, postingDocs, postingWeights);
+    }
+
+    /**
+     * Build a new index reflecting inserted or updated plants. Only postings lists of
+     * terms whose plants changed text are rebuilt; if no indexed text changed, this
+     * index is returned as is.
+     * @param oldPlants Looks up a plant by ID as indexed in this index, or null if it is not indexed
+     * @param changed Inserted or updated plants
+     * @return Updated index; this index is left untouched
+     */
+    PlantSearchIndex withChanges(Function<String, Plant> oldPlants, Collection<Plant> changed) {
+        // term -> (document -> new weight, or null if the document no longer has the term)
+        Map<String, Map<Integer, Float>> edits = new TreeMap<>();
+        List<String> addedIds = new ArrayList<>();
+        for (Plant plant : changed) {
+            Plant old = oldPlants.apply(plant.getPlantId());
+            if (old != null && sameText(old, plant)) {
+                continue;
+            }
+
+            Integer doc = ordinals.get(plant.getPlantId());
+            if (doc == null) {
+                doc = plantIds.length + addedIds.size();
+                addedIds.add(plant.getPlantId());
+            } else if (old != null) {
+                for (String term : termWeights(old).keySet()) {
+                    edits.computeIfAbsent(term, k -> new HashMap<>()).put(doc, null);
+                }
+            }
+            for (Map.Entry<String, Float> term : termWeights(plant).entrySet()) {
+                edits.computeIfAbsent(term.getKey(), k -> new HashMap<>()).put(doc, term.getValue());
+            }
+        }
+        if (edits.isEmpty() && addedIds.isEmpty()) {
+            return this;
+        }
+
+        String[] newPlantIds = plantIds;
+        Map<String, Integer> newOrdinals = ordinals;
+        if (!addedIds.isEmpty()) {
+            newPlantIds = Arrays.copyOf(plantIds, plantIds.length + addedIds.size());
+            newOrdinals = new HashMap<>(ordinals);
+            for (int i = 0; i < addedIds.size(); i++) {
+                newPlantIds[plantIds.length + i] = addedIds.get(i);
+                newOrdinals.put(addedIds.get(i), plantIds.length + i);
+            }
+        }
+
+        // Merge the sorted old terms with the sorted edited terms
+        List<String> newTerms = new ArrayList<>(terms.length + edits.size());
+        List<int[]> newDocs = new ArrayList<>(terms.length + edits.size());
+        List<float[]> newWeights = new ArrayList<>(terms.length + edits.size());
+        int i = 0;
+        for (Map.Entry<String, Map<Integer, Float>> edit : edits.entrySet()) {
+            String term = edit.getKey();
+            while (i < terms.length && terms[i].compareTo(term) < 0) {
+                newTerms.add(terms[i]);
+                newDocs.add(postingDocs[i]);
+                newWeights.add(postingWeights[i]);
+                i++;
+            }
+            boolean existing = i < terms.length && terms[i].equals(term);
+            PostingsBuilder builder = new PostingsBuilder();
+            if (existing) {
+                for (int p = 0; p < postingDocs[i].length; p++) {
+                    if (!edit.getValue().containsKey(postingDocs[i][p])) {
+                        builder.add(postingDocs[i][p], postingWeights[i][p]);
+                    }
+                }
+                i++;
+            }
+            for (Map.Entry<Integer, Float> doc : edit.getValue().entrySet()) {
+                if (doc.getValue() != null) {
+                    builder.add(doc.getKey(), doc.getValue());
+                }
+            }
+            if (builder.size > 0) {
+                builder.sortByDoc();
+                newTerms.add(term);
+                newDocs.add(Arrays.copyOf(builder.docs, builder.size));
+                newWeights.add(Arrays.copyOf(builder.weights, builder.size));
+            }
+        }
+        while (i < terms.length) {
+            newTerms.add(terms[i]);
+            newDocs.add(postingDocs[i]);
+            newWeights.add(postingWeights[i]);
+            i++;
+        }
+
+        return new PlantSearchIndex(newPlantIds, newOrdinals, newTerms.toArray(new String[0]),
+                newDocs.toArray(new int[0][]), newWeights.toArray(new float[0][]));
+    }
+
+    /**
+     * Search the index
+     * @param query Free-text query
+     * @return IDs of matching plants, best match first; empty if the query has no searchable words
+     */
+    public List<String> search(String query) {
+        List<String> words = tokenize(query);
+        if (words.isEmpty() || plantIds.length == 0) {
+            return Collections.emptyList();
+        }
+
+        List<WordTerms> perWord = new ArrayList<>(words.size());
+        for (String word : new HashSet<>(words)) {
+            WordTerms wordTerms = prefixTerms(word);
+            if (wordTerms.postings == 0) {
+                // No indexed word starts with it, so treat it as a typo
+                wordTerms = similarTerms(word);
+            }
+            if (wordTerms.postings == 0) {
+                return Collections.emptyList();
+            }
+            perWord.add(wordTerms);
+        }
+
+        // Start from the rarest word; the other words only need to be checked against
+        // its candidates, so common words are probed rather than read in full
+        perWord.sort((a, b) -> Long.compare(a.postings, b.postings));
+        Matches result = match(perWord.get(0));
+        for (int w = 1; w < perWord.size() && result.size > 0; w++) {
+            WordTerms wordTerms = perWord.get(w);
+            long probeCost = (long) result.size * wordTerms.termIds.length * 20;
+            result = probeCost < wordTerms.postings ? probe(result, wordTerms) : result.intersect(match(wordTerms));
+        }
+
+        // Sort by score descending, then by document ascending. Scores are positive,
+        // so their float bits sort like the scores themselves.
+        long[] ranked = new long[result.size];
+        for (int r = 0; r < result.size; r++) {
+            ranked[r] = ((long) Float.floatToIntBits(result.scores[r]) << 32) | (0xffffffffL - result.docs[r]);
+        }
+        Arrays.sort(ranked);
+        List<String> ids = new ArrayList<>(ranked.length);
+        for (int r = ranked.length - 1; r >= 0; r--) {
+            ids.add(plantIds[(int) (0xffffffffL - (ranked[r] & 0xffffffffL))]);
+        }
+        return ids;
+    }
+
+    public int getTermCount() {
+        return terms.length;
+    }
+
+    /**
+     * Find the terms matching one query word exactly or as a prefix
+     */
+    private WordTerms prefixTerms(String word) {
+        int from = lowerBound(word);
+        int to = lowerBound(word + Character.MAX_VALUE);
+        int[] termIds = new int[to - from];
+        float[] factors = new float[to - from];
+        for (int t = from; t < to; t++) {
+            termIds[t - from] = t;
+            factors[t - from] = terms[t].equals(word) ? 1.0f : PREFIX_MATCH_FACTOR;
+        }
+        return new WordTerms(termIds, factors);
+    }
+
+    /**
+     * Find the terms closest in spelling to a query word, scored by their trigram similarity
+     */
+    private WordTerms similarTerms(String word) {
+        if (word.length() < MIN_FUZZY_WORD_LENGTH) {
+            return new WordTerms(new int[0], new float[0]);
+        }
+        List<TrigramIndex.Match> similar = trigramIndex().similar(word, FUZZY_SIMILARITY_THRESHOLD, MAX_FUZZY_TERMS);
+        int[] termIds = new int[similar.size()];
+        float[] factors = new float[similar.size()];
+        for (int i = 0; i < termIds.length; i++) {
+            termIds[i] = similar.get(i).wordId;
+            factors[i] = similar.get(i).similarity * FUZZY_MATCH_FACTOR;
+        }
+        return new WordTerms(termIds, factors);
+    }
+
+    /**
+     * Trigram index over the terms, built on first use
+     */
+    private TrigramIndex trigramIndex() {
+        TrigramIndex index = trigramIndex;
+        if (index == null) {
+            // Building twice in a race is harmless; both results are equal
+            index = TrigramIndex.build(terms);
+            trigramIndex = index;
+        }
+        return index;
+    }
+
+    /**
+     * Collect the documents matching a query word
+     */
+    private Matches match(WordTerms wordTerms) {
+        if (wordTerms.termIds.length == 1) {
+            int term = wordTerms.termIds[0];
+            float idf = idf(postingDocs[term].length) * wordTerms.factors[0];
+            float[] scores = new float[postingDocs[term].length];
+            for (int p = 0; p < scores.length; p++) {
+                scores[p] = postingWeights[term][p] * idf;
+            }
+            return new Matches(postingDocs[term], scores, scores.length);
+        }
+
+        // Several terms match: pack (document, score) pairs into longs,
+        // sort by document and add up the scores of each document
+        int total = (int) wordTerms.postings;
+        long[] packed = new long[total];
+        int n = 0;
+        for (int i = 0; i < wordTerms.termIds.length; i++) {
+            int term = wordTerms.termIds[i];
+            float idf = idf(postingDocs[term].length) * wordTerms.factors[i];
+            for (int p = 0; p < postingDocs[term].length; p++) {
+                packed[n++] = ((long) postingDocs[term][p] << 32) | (Float.floatToIntBits(postingWeights[term][p] * idf) & 0xffffffffL);
+            }
+        }
+        Arrays.sort(packed);
+
+        int[] docs = new int[total];
+        float[] scores = new float[total];
+        int size = 0;
+        for (long entry : packed) {
+            int doc = (int) (entry >>> 32);
+            float score = Float.intBitsToFloat((int) entry);
+            if (size > 0 && docs[size - 1] == doc) {
+                scores[size - 1] += score;
+            } else {
+                docs[size] = doc;
+                scores[size] = score;
+                size++;
+            }
+        }
+        return new Matches(docs, scores, size);
+    }
+
+    /**
+     * Keep the candidates that also match a query word, looking each one up by binary search
+     */
+    private Matches probe(Matches candidates, WordTerms wordTerms) {
+        int[] docs = new int[candidates.size];
+        float[] scores = new float[candidates.size];
+        int n = 0;
+        for (int c = 0; c < candidates.size; c++) {
+            int doc = candidates.docs[c];
+            float score = 0.0f;
+            boolean found = false;
+            for (int i = 0; i < wordTerms.termIds.length; i++) {
+                int term = wordTerms.termIds[i];
+                int p = Arrays.binarySearch(postingDocs[term], doc);
+                if (p >= 0) {
+                    score += postingWeights[term][p] * idf(postingDocs[term].length) * wordTerms.factors[i];
+                    found = true;
+                }
+            }
+            if (found) {
+                docs[n] = doc;
+                scores[n] = candidates.scores[c] + score;
+                n++;
+            }
+        }
+        return new Matches(docs, scores, n);
+    }
+
+    private float idf(int documentFrequency) {
+        return (float) Math.log(1.0 + (double) plantIds.length / documentFrequency);
+    }
+
+    /**
+     * Index of the first term not less than the key
+     */
+    private int lowerBound(String key) {
+        int index = Arrays.binarySearch(terms, key);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    /**
+     * Split text into searchable words: lower-cased, accents removed, stop words dropped
+     * @param text Text to split (can be null)
+     * @return Words in order of appearance
+     */
+    static List<String> tokenize(String text) {
+        if (text == null || text.isEmpty()) {
+            return Collections.emptyList();
+        }
+        if (!isAscii(text)) {
+            text = COMBINING_MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        }
+
+        List<String> words = new ArrayList<>();
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                word.append(c);
+            } else if (word.length() > 0) {
+                String token = word.toString().toLowerCase(Locale.ROOT);
+                if (!STOP_WORDS.contains(token)) {
+                    words.add(token);
+                }
+                word.setLength(0);
+            }
+        }
+        return words;
+    }
+
+    private static boolean isAscii(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) >= 128) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean sameText(Plant a, Plant b) {
+        return Objects.equals(a.getName(), b.getName()) && Objects.equals(a.getType(), b.getType())
+                && Objects.equals(a.getDescription(), b.getDescription());
+    }
+
+    /**
+     * Weight of every term of a plant, summed over its fields
+     */
+    private static Map<String, Float> termWeights(Plant plant) {
+        Map<String, Float> weights = new HashMap<>();
+        addField(weights, plant.getName(), NAME_WEIGHT);
+        addField(weights, plant.getType(), TYPE_WEIGHT);
+        addField(weights, plant.getDescription(), DESCRIPTION_WEIGHT);
+        return weights;
+    }
+
+    private static void addField(Map<String, Float> weights, String text, float fieldWeight) {
+        List<String> words = tokenize(text);
+        if (words.isEmpty()) {
+            return;
+        }
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String word : words) {
+            frequencies.merge(word, 1, Integer::sum);
+        }
+        double lengthNorm = Math.sqrt(words.size());
+        for (Map.Entry<String, Integer> word : frequencies.entrySet()) {
+            float weight = (float) (fieldWeight * (1.0 + Math.log(word.getValue())) / lengthNorm);
+            weights.merge(word.getKey(), weight, Float::sum);
+        }
+    }
+
+    /**
+     * Terms matching one query word, with the score factor of each and their total postings count
+     */
+    private final class WordTerms {
+        final int[] termIds;
+        final float[] factors;
+        final long postings;
+
+        WordTerms(int[] termIds, float[] factors) {
+            this.termIds = termIds;
+            this.factors = factors;
+            long total = 0;
+            for (int term : termIds) {
+                total += postingDocs[term].length;
+            }
+            this.postings = total;
+        }
+    }
+
+    /**
+     * Growable (document, weight) list
+     */
+    private static class PostingsBuilder {
+        int[] docs = new int[4];
+        float[] weights = new float[4];
+        int size = 0;
+
+        void add(int doc, float weight) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            docs[size] = doc;
+            weights[size] = weight;
+            size++;
+        }
+
+        void sortByDoc() {
+            long[] packed = new long[size];
+            for (int i = 0; i < size; i++) {
+                packed[i] = ((long) docs[i] << 32) | (Float.floatToIntBits(weights[i]) & 0xffffffffL);
+            }
+            Arrays.sort(packed);
+            for (int i = 0; i < size; i++) {
+                docs[i] = (int) (packed[i] >>> 32);
+                weights[i] = Float.intBitsToFloat((int) packed[i]);
+            }
+        }
+    }
+
+    /**
+     * Documents matched so far with their accumulated scores, sorted by document
+     */
+    private static class Matches {
+        final int[] docs;
+        final float[] scores;
+        final int size;
+
+        Matches(int[] docs, float[] scores, int size) {
+            this.docs = docs;
+            this.scores = scores;
+            this.size = size;
+        }
+
+        Matches intersect(Matches other) {
+            int[] docs = new int[Math.min(size, other.size)];
+            float[] scores = new float[docs.length];
+            int n = 0;
+            int i = 0;
+            int j = 0;
+            while (i < size && j < other.size) {
+                if (this.docs[i] < other.docs[j]) {
+                    i++;
+                } else if (this.docs[i] > other.docs[j]) {
+                    j++;
+                } else {
+                    docs[n] = this.docs[i];
+                    scores[n] = this.scores[i] + other.scores[j];
+                    n++;
+                    i++;
+                    j++;
+                }
+            }
+            return new Matches(docs, scores, n);
+        }
+    }
+}
+
@@ -0,0 +1,241 @@
+package com.greenthumb.catalog;
+
+import java.util.function.IntConsumer;
+
+/**
+ * Immutable price index over the plants of a snapshot.
+ * Prices are kept sorted in a primitive double array, with a parallel int array holding
+ * the plant ordinal of each price (a permutation of the ordinals), so a price range is
+ * found by two binary searches and its plants are read off in price order in
+ * O(log n + k), without boxing. Plants with equal prices are kept in ordinal order.
+ * After a delta refresh the index is updated by merging the changed plants into the
+ * unchanged entries, which stay sorted, instead of sorting everything again.
+ */
+public final class PriceIndex {
+    // Ascending prices, and the ordinal of the plant with each price
+    private final double[] prices;
+    private final int[] ordinals;
+
+    private PriceIndex(double[] prices, int[] ordinals) {
+        this.prices = prices;
+        this.ordinals = ordinals;
+    }
+
+    /**
+     * Build an index over plant prices
+     * @param pricesByOrdinal Price of each plant, indexed by ordinal
+     * @return New index
+     */
+    static PriceIndex build(double[] pricesByOrdinal) {
+        int[] ordinals = new int[pricesByOrdinal.length];
+        for (int ordinal = 0; ordinal < ordinals.length; ordinal++) {
+            ordinals[ordinal] = ordinal;
+        }
+        sortByPrice(ordinals, pricesByOrdinal);
+        return new PriceIndex(pricesOf(ordinals, pricesByOrdinal), ordinals);
+    }
+
+    /**
+     * Build an index for a new set of plants from this one
+     * @param oldToNew New ordinal of each plant indexed here, or -1 if the plant is gone;
+     *                 must preserve the order of the plants that remain
+     * @param pricesByOrdinal Price of each plant of the new set, indexed by new ordinal
+     * @param changed New ordinals of plants that were added or whose price changed
+     * @return New index; this index is left untouched
+     */
+    PriceIndex withChanges(int[] oldToNew, double[] pricesByOrdinal, int[] changed) {
+        boolean[] isChanged = new boolean[pricesByOrdinal.length];
+        for (int ordinal : changed) {
+            isChanged[ordinal] = true;
+        }
+        int[] kept = new int[ordinals.length];
+        int keptCount = 0;
+        for (int ordinal : ordinals) {
+            int newOrdinal = oldToNew[ordinal];
+            if (newOrdinal >= 0 && !isChanged[newOrdinal]) {
+                kept[keptCount++] = newOrdinal;
+            }
+        }
+        int[] added = changed.clone();
+        sortByPrice(added, pricesByOrdinal);
+
+        int[] merged = new int[keptCount + added.length];
+        int i = 0;
+        int j = 0;
+        for (int n = 0; n < merged.length; n++) {
+            if (j == added.length || (i < keptCount && !before(added[j], kept[i], pricesByOrdinal))) {
+                merged[n] = kept[i++];
+            } else {
+                merged[n] = added[j++];
+            }
+        }
+        return new PriceIndex(pricesOf(merged, pricesByOrdinal), merged);
+    }
+
+    public int size() {
+        return prices.length;
+    }
+
+    /**
+     * Find where a price range starts
+     * @param minPrice Inclusive minimum price
+     * @return Position of the first plant priced at or above the minimum
+     */
+    public int lowerBound(double minPrice) {
+        int low = 0;
+        int high = prices.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (prices[mid] < minPrice) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Find where a price range ends
+     * @param maxPrice Inclusive maximum price
+     * @return Position after the last plant priced at or below the maximum
+     */
+    public int upperBound(double maxPrice) {
+        int low = 0;
+        int high = prices.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (prices[mid] <= maxPrice) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Get the price at a position
+     * @param position Position, from 0 (cheapest) to size() - 1
+     * @return Price
+     */
+    public double priceAt(int position) {
+        return prices[position];
+    }
+
+    /**
+     * Get the plant at a position
+     * @param position Position, from 0 (cheapest) to size() - 1
+     * @return Plant ordinal
+     */
+    public int ordinalAt(int position) {
+        return ordinals[position];
+    }
+
+    /**
+     * Find the position of a plant; equally priced plants are in ordinal order, so this
+     * is a binary search on price, then ordinal
+     * @param ordinal Plant ordinal
+     * @param price Price of the plant in this index
+     * @return Position of the plant
+     */
+    int positionOf(int ordinal, double price) {
+        int low = 0;
+        int high = prices.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int cmp = Double.compare(prices[mid], price);
+            if (cmp < 0 || (cmp == 0 && ordinals[mid] < ordinal)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Count plants priced within a range
+     * @param minPrice Inclusive minimum price
+     * @param maxPrice Inclusive maximum price
+     * @return Number of plants
+     */
+    public int countInRange(double minPrice, double maxPrice) {
+        return Math.max(0, upperBound(maxPrice) - lowerBound(minPrice));
+    }
+
+    /**
+     * Visit the plants priced within a range, cheapest first
+     * @param minPrice Inclusive minimum price
+     * @param maxPrice Inclusive maximum price
+     * @param action Callback for each plant ordinal
+     */
+    public void forEachInRange(double minPrice, double maxPrice, IntConsumer action) {
+        int end = upperBound(maxPrice);
+        for (int position = lowerBound(minPrice); position < end; position++) {
+            action.accept(ordinals[position]);
+        }
+    }
+
+    /**
+     * Copy the plant ordinals of a range of positions
+     * @param from First position
+     * @param to Position after the last one
+     * @param target Array to copy into
+     * @param offset Where to start in the target array
+     */
+    public void copyOrdinals(int from, int to, int[] target, int offset) {
+        System.arraycopy(ordinals, from, target, offset, to - from);
+    }
+
+    /**
+     * Plant a sorts before plant b: cheaper, or equally priced with a lower ordinal
+     */
+    private static boolean before(int a, int b, double[] pricesByOrdinal) {
+        int cmp = Double.compare(pricesByOrdinal[a], pricesByOrdinal[b]);
+        return cmp < 0 || (cmp == 0 && a < b);
+    }
+
+    /**
+     * Sort ordinals by price, then ordinal, with a bottom-up merge sort on primitive arrays
+     */
+    private static void sortByPrice(int[] ordinals, double[] pricesByOrdinal) {
+        int[] source = ordinals;
+        int[] target = new int[ordinals.length];
+        for (int width = 1; width < ordinals.length; width *= 2) {
+            for (int start = 0; start < ordinals.length; start += 2 * width) {
+                int mid = Math.min(start + width, ordinals.length);
+                int end = Math.min(start + 2 * width, ordinals.length);
+                int i = start;
+                int j = mid;
+                for (int n = start; n < end; n++) {
+                    if (j == end || (i < mid && !before(source[j], source[i], pricesByOrdinal))) {
+                        target[n] = source[i++];
+                    } else {
+                        target[n] = source[j++];
+                    }
+                }
+            }
+            int[] swap = source;
+            source = target;
+            target = swap;
+        }
+        if (source != ordinals) {
+            System.arraycopy(source, 0, ordinals, 0, ordinals.length);
+        }
+    }
+
+    private static double[] pricesOf(int[] ordinals, double[] pricesByOrdinal) {
+        double[] prices = new double[ordinals.length];
+        for (int i = 0; i < ordinals.length; i++) {
+            prices[i] = pricesByOrdinal[ordinals[i]];
+        }
+        return prices;
+    }
+
+    @Override
+    public String toString() {
+        return "PriceIndex{size=" + prices.length + '}';
+    }
+}
+
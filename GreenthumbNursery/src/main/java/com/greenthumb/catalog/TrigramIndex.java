@@ -0,0 +1,149 @@
+package com.greenthumb.catalog;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact trigram index over a word list, used to find the words closest to a misspelled one.
+ * Each word is padded as "  word " and split into three-character grams, as PostgreSQL's
+ * pg_trgm does, and similarity is the Jaccard coefficient of two words' gram sets.
+ * Grams are packed into longs and kept in one sorted array, with a parallel array of
+ * postings listing the IDs (positions in the word list) of the words containing each gram.
+ */
+final class TrigramIndex {
+    // Sorted distinct grams and, for each, the ascending IDs of the words containing it
+    private final long[] grams;
+    private final int[][] postings;
+    // Number of distinct grams of each word
+    private final int[] gramCounts;
+
+    private TrigramIndex(long[] grams, int[][] postings, int[] gramCounts) {
+        this.grams = grams;
+        this.postings = postings;
+        this.gramCounts = gramCounts;
+    }
+
+    /**
+     * Build an index over a word list
+     * @param words Words to index; a word's ID is its position in this array
+     * @return New index
+     */
+    static TrigramIndex build(String[] words) {
+        Map<Long, int[]> lists = new HashMap<>();
+        Map<Long, Integer> sizes = new HashMap<>();
+        int[] gramCounts = new int[words.length];
+        for (int id = 0; id < words.length; id++) {
+            long[] wordGrams = gramsOf(words[id]);
+            gramCounts[id] = wordGrams.length;
+            for (long gram : wordGrams) {
+                int size = sizes.getOrDefault(gram, 0);
+                int[] list = lists.get(gram);
+                if (list == null) {
+                    list = new int[4];
+                } else if (size == list.length) {
+                    list = Arrays.copyOf(list, size * 2);
+                }
+                list[size] = id;
+                lists.put(gram, list);
+                sizes.put(gram, size + 1);
+            }
+        }
+
+        long[] grams = new long[lists.size()];
+        int i = 0;
+        for (Long gram : lists.keySet()) {
+            grams[i++] = gram;
+        }
+        Arrays.sort(grams);
+        int[][] postings = new int[grams.length][];
+        for (i = 0; i < grams.length; i++) {
+            postings[i] = Arrays.copyOf(lists.get(grams[i]), sizes.get(grams[i]));
+        }
+        return new TrigramIndex(grams, postings, gramCounts);
+    }
+
+    /**
+     * Find the indexed words most similar to a word
+     * @param word Lower-case word
+     * @param threshold Minimum similarity, between 0 and 1
+     * @param limit Maximum number of words to return
+     * @return Similar words, most similar first
+     */
+    List<Match> similar(String word, float threshold, int limit) {
+        long[] queryGrams = gramsOf(word);
+        int total = 0;
+        int[] found = new int[queryGrams.length];
+        for (int q = 0; q < queryGrams.length; q++) {
+            found[q] = Arrays.binarySearch(grams, queryGrams[q]);
+            if (found[q] >= 0) {
+                total += postings[found[q]].length;
+            }
+        }
+        if (total == 0) {
+            return new ArrayList<>();
+        }
+
+        // Count shared grams per word by sorting the concatenated postings
+        int[] ids = new int[total];
+        int n = 0;
+        for (int index : found) {
+            if (index >= 0) {
+                System.arraycopy(postings[index], 0, ids, n, postings[index].length);
+                n += postings[index].length;
+            }
+        }
+        Arrays.sort(ids);
+
+        List<Match> matches = new ArrayList<>();
+        for (int start = 0; start < ids.length; ) {
+            int end = start + 1;
+            while (end < ids.length && ids[end] == ids[start]) {
+                end++;
+            }
+            int shared = end - start;
+            float similarity = (float) shared / (queryGrams.length + gramCounts[ids[start]] - shared);
+            if (similarity >= threshold) {
+                matches.add(new Match(ids[start], similarity));
+            }
+            start = end;
+        }
+        matches.sort((a, b) -> Float.compare(b.similarity, a.similarity));
+        return matches.size() > limit ? new ArrayList<>(matches.subList(0, limit)) : matches;
+    }
+
+    /**
+     * Distinct grams of a padded word, packed 16 bits per character and sorted
+     */
+    static long[] gramsOf(String word) {
+        String padded = "  " + word + " ";
+        long[] result = new long[padded.length() - 2];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = ((long) padded.charAt(i) << 32) | ((long) padded.charAt(i + 1) << 16) | padded.charAt(i + 2);
+        }
+        Arrays.sort(result);
+        int distinct = 0;
+        for (int i = 0; i < result.length; i++) {
+            if (i == 0 || result[i] != result[i - 1]) {
+                result[distinct++] = result[i];
+            }
+        }
+        return Arrays.copyOf(result, distinct);
+    }
+
+    /**
+     * An indexed word and its similarity to the query word
+     */
+    static final class Match {
+        final int wordId;
+        final float similarity;
+
+        Match(int wordId, float similarity) {
+            this.wordId = wordId;
+            this.similarity = similarity;
+        }
+    }
+}
+
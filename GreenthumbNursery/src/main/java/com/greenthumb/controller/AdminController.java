@@ -2,10 +2,13 @@ package com.greenthumb.controller;
 
 import com.greenthumb.dao.*;
 import com.greenthumb.model.*;
+import com.greenthumb.util.SwingUtil;
 import com.greenthumb.view.AdminDashboardView;
 
 import javax.swing.JOptionPane;
+import java.io.File;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -23,7 +26,7 @@ public class AdminController {
     public AdminController(User currentUser) {
         this.currentUser = currentUser;
         this.userDAO = new UserDAOImpl();
-        this.plantDAO = new PlantDAOImpl();
+        this.plantDAO = CachingPlantDAO.getInstance();
         this.orderDAO = new OrderDAOImpl();
         this.orderItemDAO = new OrderItemDAOImpl();
         this.dashboardView = new AdminDashboardView(this);
@@ -216,6 +219,40 @@ public class AdminController {
         }
     }
 
+    /**
+     * Import plants from a supplier catalog CSV file, inserting new plants and updating existing ones
+     * @param file CSV file with plant_id, name, type, price, quantity, description columns
+     * @return true if at least one plant was imported, false otherwise
+     */
+    public boolean importPlantCatalog(File file) {
+        try {
+            PlantCatalogImporter importer = new PlantCatalogImporter(plantDAO);
+            PlantCatalogImporter.ImportResult result = importer.importCsv(file);
+
+            StringBuilder summary = new StringBuilder();
+            summary.append("Imported ").append(result.getImported()).append(" plants, rejected ")
+                   .append(result.getRejected()).append(" rows.");
+            List<String> errors = result.getErrors();
+            for (int i = 0; i < errors.size() && i < 10; i++) {
+                summary.append("\n").append(errors.get(i));
+            }
+            if (errors.size() > 10 || result.getSuppressedErrorCount() > 0) {
+                summary.append("\n...");
+            }
+
+            if (result.getRejected() == 0) {
+                showSuccessMessage(summary.toString());
+            } else {
+                showErrorMessage(summary.toString());
+            }
+            return result.getImported() > 0;
+
+        } catch (Exception e) {
+            showErrorMessage("Error importing plant catalog: " + e.getMessage());
+            return false;
+        }
+    }
+
     /**
      * Update existing plant
      * @param plant Plant object with updated information
@@ -313,6 +350,55 @@ public class AdminController {
         }
     }
 
+    /**
+     * Get one page of orders, newest first
+     * @param status Order status to filter by, or null for all orders
+     * @param cursor Cursor from the previous page, or null for the first page
+     * @param pageSize Maximum number of orders on the page
+     * @return Page of orders, or null on error
+     */
+    public OrderPage getOrdersPage(String status, String cursor, int pageSize) {
+        try {
+            if (status == null) {
+                return orderDAO.getOrdersPage(cursor, pageSize);
+            }
+            return orderDAO.getOrdersPageByStatus(status, cursor, pageSize);
+        } catch (Exception e) {
+            showErrorMessage("Error retrieving orders: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Get the page of orders starting at a position, newest first
+     * @param status Order status to filter by, or null for all orders
+     * @param offset Number of orders to skip
+     * @param pageSize Maximum number of orders on the page
+     * @return Page of orders, or null on error
+     */
+    public OrderPage getOrdersPageAt(String status, int offset, int pageSize) {
+        try {
+            return orderDAO.getOrdersPageAt(status, offset, pageSize);
+        } catch (Exception e) {
+            showErrorMessage("Error retrieving orders: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Count orders
+     * @param status Order status to filter by, or null for all orders
+     * @return Number of orders, or -1 on error
+     */
+    public int countOrders(String status) {
+        try {
+            return orderDAO.countOrders(status);
+        } catch (Exception e) {
+            showErrorMessage("Error counting orders: " + e.getMessage());
+            return -1;
+        }
+    }
+
     /**
      * Update order status
      * @param orderId Order ID
@@ -412,21 +498,24 @@ public class AdminController {
      */
     public String generateSalesReport() {
         try {
-            List<Order> allOrders = orderDAO.getAllOrders();
-            List<Order> recentOrders = orderDAO.getRecentOrders(30);
-
-            double totalSales = 0;
-            for (Order order : allOrders) {
-                if (!"Cancelled".equals(order.getStatus())) {
-                    totalSales += order.getTotalAmount();
-                }
+            // One aggregate query; the result size depends on the number of days, not orders
+            SalesSummary summary = orderDAO.getSalesSummary(null, null, 30);
+            if (summary == null) {
+                showErrorMessage("Error generating sales report: the orders could not be read.");
+                return "Error generating report.";
             }
 
             StringBuilder report = new StringBuilder();
             report.append("=== SALES REPORT ===\n");
-            report.append("Total Orders: ").append(allOrders.size()).append("\n");
-            report.append("Recent Orders (30 days): ").append(recentOrders.size()).append("\n");
-            report.append("Total Sales: $").append(String.format("%.2f", totalSales)).append("\n\n");
+            report.append("Total Orders: ").append(summary.getTotalOrders()).append("\n");
+            report.append("Recent Orders (").append(summary.getRecentDays()).append(" days): ")
+                    .append(summary.getRecentCount()).append("\n");
+            report.append("Total Sales: $").append(String.format("%.2f", summary.getTotalRevenue())).append("\n\n");
+            
+            report.append("Orders by Status:\n");
+            for (Map.Entry<String, Long> entry : summary.getOrderCountsByStatus().entrySet()) {
+                report.append("  ").append(entry.getKey()).append(": ").append(entry.getValue()).append("\n");
+            }
 
             return report.toString();
 
@@ -462,7 +551,8 @@ public class AdminController {
      * @param message Error message
      */
     private void showErrorMessage(String message) {
-        JOptionPane.showMessageDialog(dashboardView, message, "Error", JOptionPane.ERROR_MESSAGE);
+        SwingUtil.runOnEventThread(() ->
+                JOptionPane.showMessageDialog(dashboardView, message, "Error", JOptionPane.ERROR_MESSAGE));
     }
 
     /**
@@ -470,7 +560,8 @@ public class AdminController {
      * @param message Success message
      */
     private void showSuccessMessage(String message) {
-        JOptionPane.showMessageDialog(dashboardView, message, "Success", JOptionPane.INFORMATION_MESSAGE);
+        SwingUtil.runOnEventThread(() ->
+                JOptionPane.showMessageDialog(dashboardView, message, "Success", JOptionPane.INFORMATION_MESSAGE));
     }
 
     /**
@@ -478,7 +569,8 @@ public class AdminController {
      * @param message Info message
      */
     private void showInfoMessage(String message) {
-        JOptionPane.showMessageDialog(dashboardView, message, "Information", JOptionPane.INFORMATION_MESSAGE);
+        SwingUtil.runOnEventThread(() ->
+                JOptionPane.showMessageDialog(dashboardView, message, "Information", JOptionPane.INFORMATION_MESSAGE));
     }
 }
 
@@ -1,10 +1,15 @@
 package com.greenthumb.controller;
 
+import com.greenthumb.catalog.CatalogManager;
+import com.greenthumb.catalog.CatalogSnapshot;
+import com.greenthumb.catalog.PlantFacets;
 import com.greenthumb.dao.*;
 import com.greenthumb.model.*;
+import com.greenthumb.util.SwingUtil;
 import com.greenthumb.view.CustomerDashboardView;
 
 import javax.swing.JOptionPane;
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
@@ -20,7 +25,9 @@ public class CustomerController {
     private PlantDAO plantDAO;
     private OrderDAO orderDAO;
     private OrderItemDAO orderItemDAO;
+    private InventoryDAO inventoryDAO;
     private UserDAO userDAO;
+    private CatalogManager catalog;
     private List<OrderItem> shoppingCart;
 
     public CustomerController(User currentUser) {
@@ -30,11 +37,16 @@ public class CustomerController {
             throw new IllegalArgumentException("User must be a Customer");
         }
         
-        this.plantDAO = new PlantDAOImpl();
+        this.plantDAO = CachingPlantDAO.getInstance();
         this.orderDAO = new OrderDAOImpl();
         this.orderItemDAO = new OrderItemDAOImpl();
+        this.inventoryDAO = new InventoryDAOImpl();
         this.userDAO = new UserDAOImpl();
+        this.catalog = CatalogManager.getInstance();
         this.shoppingCart = new ArrayList<>();
+        // Browsing is served from the in-memory catalog once it has loaded in the
+        // background; until then it falls back to the database
+        catalog.start();
         this.dashboardView = new CustomerDashboardView(this);
     }
 
@@ -63,6 +75,10 @@ public class CustomerController {
      */
     public List<Plant> getAvailablePlants() {
         try {
+            CatalogSnapshot snapshot = catalog.getSnapshot();
+            if (snapshot != null) {
+                return snapshot.getAvailablePlants();
+            }
             return plantDAO.getAvailablePlants();
         } catch (Exception e) {
             showErrorMessage("Error retrieving plants: " + e.getMessage());
@@ -71,8 +87,8 @@ public class CustomerController {
     }
 
     /**
-     * Search plants by criteria
-     * @param name Plant name (can be null)
+     * Search plants by criteria, ranked by relevance when search words are given
+     * @param name Search words matched against name, type and description (can be null)
      * @param type Plant type (can be null)
      * @param minPrice Minimum price (can be null)
      * @param maxPrice Maximum price (can be null)
@@ -80,6 +96,10 @@ public class CustomerController {
      */
     public List<Plant> searchPlants(String name, String type, Double minPrice, Double maxPrice) {
         try {
+            CatalogSnapshot snapshot = catalog.getSnapshot();
+            if (snapshot != null) {
+                return snapshot.search(name, type, minPrice, maxPrice);
+            }
             return plantDAO.searchPlants(name, type, minPrice, maxPrice);
         } catch (Exception e) {
             showErrorMessage("Error searching plants: " + e.getMessage());
@@ -87,6 +107,45 @@ public class CustomerController {
         }
     }
 
+    /**
+     * Count the plants matching search criteria per type and price band
+     * @param name Search words (can be null)
+     * @param type Plant type (can be null)
+     * @param minPrice Minimum price (can be null)
+     * @param maxPrice Maximum price (can be null)
+     * @return Facet counts, or null if the catalog is not loaded
+     */
+    public PlantFacets getPlantFacets(String name, String type, Double minPrice, Double maxPrice) {
+        try {
+            CatalogSnapshot snapshot = catalog.getSnapshot();
+            if (snapshot != null) {
+                return snapshot.facets(name, type, minPrice, maxPrice);
+            }
+        } catch (Exception e) {
+            System.err.println("Error counting plant facets: " + e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * Get plant name completions for a typed prefix, best selling first.
+     * Called off the event dispatch thread, so errors are logged rather than shown.
+     * @param prefix Typed text
+     * @param limit Maximum number of completions
+     * @return List of plant names
+     */
+    public List<String> getNameCompletions(String prefix, int limit) {
+        try {
+            CatalogSnapshot snapshot = catalog.getSnapshot();
+            if (snapshot != null) {
+                return snapshot.completeName(prefix, limit);
+            }
+        } catch (Exception e) {
+            System.err.println("Error completing plant name: " + e.getMessage());
+        }
+        return new ArrayList<>();
+    }
+
     /**
      * Get plant by ID
      * @param plantId Plant ID
@@ -94,6 +153,10 @@ public class CustomerController {
      */
     public Plant getPlantById(String plantId) {
         try {
+            CatalogSnapshot snapshot = catalog.getSnapshot();
+            if (snapshot != null) {
+                return snapshot.getPlant(plantId);
+            }
             return plantDAO.getPlantById(plantId);
         } catch (Exception e) {
             showErrorMessage("Error retrieving plant: " + e.getMessage());
@@ -108,6 +171,10 @@ public class CustomerController {
      */
     public List<Plant> getPlantsByType(String type) {
         try {
+            CatalogSnapshot snapshot = catalog.getSnapshot();
+            if (snapshot != null) {
+                return snapshot.getPlantsByType(type);
+            }
             return plantDAO.searchPlantsByType(type);
         } catch (Exception e) {
             showErrorMessage("Error retrieving plants by type: " + e.getMessage());
@@ -266,36 +333,41 @@ public class CustomerController {
                 return false;
             }
 
-            // Verify stock availability before placing order
-            for (OrderItem item : shoppingCart) {
-                Plant plant = plantDAO.getPlantById(item.getPlantId());
-                if (plant == null || !plant.isAvailable(item.getQuantity())) {
-                    showErrorMessage("Insufficient stock for: " + (plant != null ? plant.getName() : item.getPlantId()));
-                    return false;
-                }
+            // Verify stock availability before placing order; stock is taken when the order is processed
+            InventoryResult availability = inventoryDAO.checkAvailability(shoppingCart);
+            if (!availability.isSuccess()) {
+                OrderItem item = availability.getFailedItems().get(0);
+                showErrorMessage("Insufficient stock for: " + (item.getPlant() != null ? item.getPlant().getName() : item.getPlantId()));
+                return false;
             }
 
             // Create order
             String orderId = "order_" + UUID.randomUUID().toString().substring(0, 8);
             Order order = new Order(orderId, currentCustomer.getCustomerId(), new Date(), calculateCartTotal(), Order.STATUS_PENDING);
 
-            boolean orderCreated = orderDAO.createOrder(order);
-            if (!orderCreated) {
-                showErrorMessage("Failed to create order.");
-                return false;
-            }
+            // Order and items commit together; any failure rolls back the whole order
+            try {
+                TransactionManager.inTransaction(() -> {
+                    if (!orderDAO.createOrder(order)) {
+                        throw new SQLException("Failed to create order.");
+                    }
 
-            // Create order items
-            for (OrderItem item : shoppingCart) {
-                item.setOrderId(orderId);
-                item.setOrderItemId("item_" + UUID.randomUUID().toString().substring(0, 8));
-                
-                boolean itemCreated = orderItemDAO.createOrderItem(item);
-                if (!itemCreated) {
-                    showErrorMessage("Failed to create order item for: " + item.getPlant().getName());
-                    // Consider rolling back the order creation here
-                    return false;
-                }
+                    for (OrderItem item : shoppingCart) {
+                        item.setOrderId(orderId);
+                        item.setOrderItemId("item_" + UUID.randomUUID().toString().substring(0, 8));
+                    }
+
+                    boolean[] itemsCreated = orderItemDAO.createOrderItems(shoppingCart);
+                    for (int i = 0; i < itemsCreated.length; i++) {
+                        if (!itemsCreated[i]) {
+                            throw new SQLException("Failed to create order item for: " + shoppingCart.get(i).getPlant().getName());
+                        }
+                    }
+                    return null;
+                });
+            } catch (SQLException e) {
+                showErrorMessage(e.getMessage());
+                return false;
             }
 
             // Clear cart after successful order
@@ -469,6 +541,9 @@ public class CustomerController {
         // Clear cart on logout
         clearCart();
         
+        // No customer is browsing, so stop polling; the snapshot is refreshed on the next login
+        catalog.stop();
+        
         // Return to login
         LoginController loginController = new LoginController(null);
         loginController.logout();
@@ -479,7 +554,8 @@ public class CustomerController {
      * @param message Error message
      */
     private void showErrorMessage(String message) {
-        JOptionPane.showMessageDialog(dashboardView, message, "Error", JOptionPane.ERROR_MESSAGE);
+        SwingUtil.runOnEventThread(() ->
+                JOptionPane.showMessageDialog(dashboardView, message, "Error", JOptionPane.ERROR_MESSAGE));
     }
 
     /**
@@ -487,7 +563,8 @@ public class CustomerController {
      * @param message Success message
      */
     private void showSuccessMessage(String message) {
-        JOptionPane.showMessageDialog(dashboardView, message, "Success", JOptionPane.INFORMATION_MESSAGE);
+        SwingUtil.runOnEventThread(() ->
+                JOptionPane.showMessageDialog(dashboardView, message, "Success", JOptionPane.INFORMATION_MESSAGE));
     }
 
     /**
@@ -495,7 +572,8 @@ public class CustomerController {
      * @param message Info message
      */
     private void showInfoMessage(String message) {
-        JOptionPane.showMessageDialog(dashboardView, message, "Information", JOptionPane.INFORMATION_MESSAGE);
+        SwingUtil.runOnEventThread(() ->
+                JOptionPane.showMessageDialog(dashboardView, message, "Information", JOptionPane.INFORMATION_MESSAGE));
     }
 }
 
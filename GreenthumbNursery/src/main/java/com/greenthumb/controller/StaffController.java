@@ -1,30 +1,84 @@
 package com.greenthumb.controller;
 
+import com.greenthumb.catalog.CatalogManager;
+import com.greenthumb.catalog.CatalogSnapshot;
 import com.greenthumb.dao.*;
 import com.greenthumb.model.*;
+import com.greenthumb.util.SwingUtil;
 import com.greenthumb.view.StaffDashboardView;
 
 import javax.swing.JOptionPane;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Controller class for handling staff operations.
  * Implements MVC pattern by coordinating between StaffDashboardView and model classes.
  */
 public class StaffController {
+    public static final long DEFAULT_ORDER_POLL_INTERVAL_MILLIS = TimeUnit.SECONDS.toMillis(5);
+
+    // Changed orders are re-read this far back from the last marker, so an order whose
+    // updated_at is older than a concurrent, earlier-committed change is not missed
+    private static final long ORDER_CHANGE_OVERLAP_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    // Orders are counted, to notice deletions, on every this many polls only
+    private static final int ORDER_COUNT_EVERY_POLLS = 12;
+    // After failed polls the delay doubles, up to this many times
+    private static final int MAX_ORDER_POLL_BACKOFF_SHIFT = 6;
+
     private StaffDashboardView dashboardView;
     private User currentUser;
     private PlantDAO plantDAO;
     private OrderDAO orderDAO;
     private OrderItemDAO orderItemDAO;
+    private InventoryDAO inventoryDAO;
     private UserDAO userDAO;
+    private CatalogManager catalog;
+    private final long orderPollIntervalMillis;
+    private ScheduledExecutorService orderPoller;
+    // Poll state, only used on the poller thread: latest updated_at the dashboard has
+    // seen, and the last order count with the time it was taken
+    private OrderChangeMarker orderMarker;
+    // Orders read by the last poll that read any, by ID, as they were then; a poll whose
+    // marker has not moved only passes on the orders that differ from these
+    private Map<String, String> ordersAtMarker = Collections.emptyMap();
+    private long countedOrders = -1;
+    private Date ordersCountedAt;
+    private int pollsSinceCount;
+    private int failedPolls;
 
     public StaffController(User currentUser) {
+        this(currentUser, DEFAULT_ORDER_POLL_INTERVAL_MILLIS);
+    }
+
+    /**
+     * Create the controller and its dashboard
+     * @param currentUser Logged-in staff user
+     * @param orderPollIntervalMillis Delay between checks for changed orders
+     */
+    public StaffController(User currentUser, long orderPollIntervalMillis) {
         this.currentUser = currentUser;
-        this.plantDAO = new PlantDAOImpl();
+        this.orderPollIntervalMillis = orderPollIntervalMillis;
+        this.plantDAO = CachingPlantDAO.getInstance();
         this.orderDAO = new OrderDAOImpl();
         this.orderItemDAO = new OrderItemDAOImpl();
+        this.inventoryDAO = new InventoryDAOImpl();
         this.userDAO = new UserDAOImpl();
+        this.catalog = CatalogManager.getInstance();
+        // Plant search is served from the in-memory catalog once it has loaded in the
+        // background; until then it falls back to the database
+        catalog.start();
+        // The first poll only takes the marker; it is queued before the dashboard loads its orders
+        startOrderPolling();
         this.dashboardView = new StaffDashboardView(this);
     }
 
@@ -109,8 +163,8 @@ public class StaffController {
     }
 
     /**
-     * Search plants by criteria
-     * @param name Plant name (can be null)
+     * Search plants by criteria, ranked by relevance when search words are given
+     * @param name Search words matched against name, type and description (can be null)
      * @param type Plant type (can be null)
      * @param minPrice Minimum price (can be null)
      * @param maxPrice Maximum price (can be null)
@@ -118,6 +172,10 @@ public class StaffController {
      */
     public List<Plant> searchPlants(String name, String type, Double minPrice, Double maxPrice) {
         try {
+            CatalogSnapshot snapshot = catalog.getSnapshot();
+            if (snapshot != null) {
+                return snapshot.search(name, type, minPrice, maxPrice);
+            }
             return plantDAO.searchPlants(name, type, minPrice, maxPrice);
         } catch (Exception e) {
             showErrorMessage("Error searching plants: " + e.getMessage());
@@ -153,6 +211,191 @@ public class StaffController {
         }
     }
 
+    /**
+     * Get one page of orders, newest first
+     * @param status Order status to filter by, or null for all orders
+     * @param cursor Cursor from the previous page, or null for the first page
+     * @param pageSize Maximum number of orders on the page
+     * @return Page of orders, or null on error
+     */
+    public OrderPage getOrdersPage(String status, String cursor, int pageSize) {
+        try {
+            if (status == null) {
+                return orderDAO.getOrdersPage(cursor, pageSize);
+            }
+            return orderDAO.getOrdersPageByStatus(status, cursor, pageSize);
+        } catch (Exception e) {
+            showErrorMessage("Error retrieving orders: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Get the page of orders starting at a position, newest first
+     * @param status Order status to filter by, or null for all orders
+     * @param offset Number of orders to skip
+     * @param pageSize Maximum number of orders on the page
+     * @return Page of orders, or null on error
+     */
+    public OrderPage getOrdersPageAt(String status, int offset, int pageSize) {
+        try {
+            return orderDAO.getOrdersPageAt(status, offset, pageSize);
+        } catch (Exception e) {
+            showErrorMessage("Error retrieving orders: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Count orders
+     * @param status Order status to filter by, or null for all orders
+     * @return Number of orders, or -1 on error
+     */
+    public int countOrders(String status) {
+        try {
+            return orderDAO.countOrders(status);
+        } catch (Exception e) {
+            showErrorMessage("Error counting orders: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    /**
+     * Start checking for changed orders in the background. Each poll reads only the
+     * latest updated_at of the orders; when it moves, the orders updated since the last
+     * poll are loaded and merged into the dashboard's order table. Deleted orders leave
+     * no updated_at behind, so every few polls the orders are counted as well, and a
+     * count that differs from the last one plus the orders placed since then reloads the
+     * orders on screen. Failed polls are retried less and less often.
+     */
+    private synchronized void startOrderPolling() {
+        if (orderPoller == null) {
+            orderPoller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "order-change-poller");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduleOrderPoll(0);
+        }
+    }
+
+    private synchronized void stopOrderPolling() {
+        if (orderPoller != null) {
+            orderPoller.shutdownNow();
+            orderPoller = null;
+        }
+    }
+
+    private synchronized void scheduleOrderPoll(long delayMillis) {
+        if (orderPoller != null) {
+            orderPoller.schedule(this::pollOrderChanges, delayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void pollOrderChanges() {
+        boolean polled;
+        try {
+            polled = checkOrderChanges();
+        } catch (RuntimeException e) {
+            System.err.println("Error polling for order changes: " + e.getMessage());
+            polled = false;
+        }
+
+        if (polled) {
+            if (failedPolls > 0) {
+                System.err.println("Polling for order changes resumed");
+            }
+            failedPolls = 0;
+        } else if (++failedPolls == 1) {
+            System.err.println("Polling for order changes failed; retrying less often until it succeeds");
+        }
+        scheduleOrderPoll(orderPollIntervalMillis << Math.min(failedPolls, MAX_ORDER_POLL_BACKOFF_SHIFT));
+    }
+
+    /**
+     * Load orders changed since the last poll and hand them to the dashboard
+     * @return true if the poll succeeded, false if the database could not be read
+     */
+    private boolean checkOrderChanges() {
+        boolean countRows = orderMarker == null || pollsSinceCount + 1 >= ORDER_COUNT_EVERY_POLLS;
+        Date countedAt = new Date();
+        OrderChangeMarker marker = orderDAO.getChangeMarker(countRows);
+        if (marker == null) {
+            return false;
+        }
+        OrderChangeMarker previous = orderMarker;
+        if (previous == null) {
+            // First poll: the dashboard loads the orders from here on
+            orderMarker = marker;
+            countedOrders = marker.getRowCount();
+            ordersCountedAt = countedAt;
+            return true;
+        }
+
+        boolean ordersDeleted = false;
+        if (countRows) {
+            int placed = orderDAO.countOrdersPlacedSince(ordersCountedAt);
+            if (placed < 0) {
+                return false;
+            }
+            // Comparing with the orders placed since the last count also catches an order
+            // deleted while another was placed. Order dates come from the placing client's
+            // clock, so skew can cause a needless reload but rarely hides a deletion.
+            ordersDeleted = marker.getRowCount() != countedOrders + placed;
+        }
+
+        List<Order> changed = Collections.emptyList();
+        Map<String, String> seenAtMarker = ordersAtMarker;
+        if (marker.getLastUpdated() != null) {
+            boolean markerMoved = !marker.getLastUpdated().equals(previous.getLastUpdated());
+            Timestamp since;
+            if (!markerMoved) {
+                // updated_at has one-second resolution, so an order placed or changed after the
+                // last poll but within the same second leaves the marker as it was
+                since = new Timestamp(marker.getLastUpdated().getTime());
+            } else if (previous.getLastUpdated() == null) {
+                since = new Timestamp(0);
+            } else {
+                since = new Timestamp(previous.getLastUpdated().getTime() - ORDER_CHANGE_OVERLAP_MILLIS);
+            }
+            changed = orderDAO.getOrdersChangedSince(since);
+            if (changed == null) {
+                return false;
+            }
+
+            seenAtMarker = new HashMap<>();
+            for (Order order : changed) {
+                seenAtMarker.put(order.getOrderId(), order.toString());
+            }
+            if (!markerMoved) {
+                // Only pass on the orders that differ from when they were last read
+                List<Order> unseen = new ArrayList<>();
+                for (Order order : changed) {
+                    if (!order.toString().equals(ordersAtMarker.get(order.getOrderId()))) {
+                        unseen.add(order);
+                    }
+                }
+                changed = unseen;
+            }
+        }
+
+        orderMarker = marker;
+        ordersAtMarker = seenAtMarker;
+        if (countRows) {
+            countedOrders = marker.getRowCount();
+            ordersCountedAt = countedAt;
+            pollsSinceCount = 0;
+        } else {
+            pollsSinceCount++;
+        }
+        if (!changed.isEmpty() || ordersDeleted) {
+            List<Order> changedOrders = changed;
+            boolean deleted = ordersDeleted;
+            SwingUtil.runOnEventThread(() -> dashboardView.ordersChanged(changedOrders, deleted));
+        }
+        return true;
+    }
+
     /**
      * Get orders by status
      * @param status Order status
@@ -182,20 +425,20 @@ public class StaffController {
                 return false;
             }
 
+            String currentStatus = order.getStatus();
             if (!order.updateStatus(newStatus)) {
-                showErrorMessage("Invalid status transition from " + order.getStatus() + " to " + newStatus);
+                showErrorMessage("Invalid status transition from " + currentStatus + " to " + newStatus);
                 return false;
             }
 
+            // An order moving to Processing takes its items out of stock in the same transaction
+            if ("Processing".equals(newStatus)) {
+                return moveToProcessing(orderId, currentStatus);
+            }
+
             boolean success = orderDAO.updateOrderStatus(orderId, newStatus);
             if (success) {
                 showSuccessMessage("Order status updated successfully.");
-                
-                // If order is being processed, update plant quantities
-                if ("Processing".equals(newStatus)) {
-                    updateInventoryForOrder(orderId);
-                }
-                
                 return true;
             } else {
                 showErrorMessage("Failed to update order status.");
@@ -239,17 +482,7 @@ public class StaffController {
                 return false;
             }
 
-            // Check inventory availability
-            List<OrderItem> orderItems = orderItemDAO.getOrderItemsByOrderId(orderId);
-            for (OrderItem item : orderItems) {
-                Plant plant = plantDAO.getPlantById(item.getPlantId());
-                if (plant == null || !plant.isAvailable(item.getQuantity())) {
-                    showErrorMessage("Insufficient stock for plant: " + (plant != null ? plant.getName() : item.getPlantId()));
-                    return false;
-                }
-            }
-
-            // Update order status
+            // Update order status; stock is checked and decremented atomically with it
             boolean success = updateOrderStatus(orderId, "Processing");
             if (success) {
                 showSuccessMessage("Order processed successfully.");
@@ -265,23 +498,64 @@ public class StaffController {
     }
 
     /**
-     * Update inventory when order is processed
+     * Change order status to Processing and decrement stock for all its items in one
+     * transaction. The status change only applies if the order still has the status
+     * it was read with, so two staff members cannot process the same order twice.
      * @param orderId Order ID
+     * @param currentStatus Status the order was read with
+     * @return true if the order was moved to Processing, false if nothing was changed
      */
-    private void updateInventoryForOrder(String orderId) {
+    private boolean moveToProcessing(String orderId, String currentStatus) {
         try {
-            List<OrderItem> orderItems = orderItemDAO.getOrderItemsByOrderId(orderId);
-            
-            for (OrderItem item : orderItems) {
-                Plant plant = plantDAO.getPlantById(item.getPlantId());
-                if (plant != null) {
-                    int newQuantity = plant.getQuantity() - item.getQuantity();
-                    plantDAO.updatePlantQuantity(plant.getPlantId(), newQuantity);
+            TransactionManager.inTransaction(() -> {
+                if (!orderDAO.updateOrderStatusIfCurrent(orderId, currentStatus, "Processing")) {
+                    throw new SQLException("Order status was changed by someone else. Please refresh.");
                 }
+
+                List<OrderItem> orderItems = orderItemDAO.getOrderItemsByOrderId(orderId);
+                InventoryResult decrement = inventoryDAO.decrementStock(orderItems);
+                if (!decrement.isSuccess()) {
+                    throw new InsufficientStockException(decrement);
+                }
+                return null;
+            });
+
+            showSuccessMessage("Order status updated successfully.");
+            return true;
+
+        } catch (InsufficientStockException e) {
+            showErrorMessage(e.getMessage());
+            return false;
+        } catch (SQLException e) {
+            showErrorMessage("Failed to update order status: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Signals a failed stock decrement so the enclosing transaction rolls back
+     */
+    private static class InsufficientStockException extends SQLException {
+        private static final long serialVersionUID = 1L;
+
+        InsufficientStockException(InventoryResult result) {
+            super(describe(result));
+        }
+
+        private static String describe(InventoryResult result) {
+            if (result.getErrorMessage() != null) {
+                return "Error updating inventory: " + result.getErrorMessage();
             }
-            
-        } catch (Exception e) {
-            showErrorMessage("Error updating inventory: " + e.getMessage());
+            StringBuilder message = new StringBuilder("Insufficient stock for plant: ");
+            List<OrderItem> failedItems = result.getFailedItems();
+            for (int i = 0; i < failedItems.size(); i++) {
+                OrderItem item = failedItems.get(i);
+                if (i > 0) {
+                    message.append(", ");
+                }
+                message.append(item.getPlant() != null ? item.getPlant().getName() : item.getPlantId());
+            }
+            return message.toString();
         }
     }
 
@@ -379,18 +653,15 @@ public class StaffController {
      */
     public String generateOrderReport() {
         try {
-            List<Order> pendingOrders = orderDAO.getOrdersByStatus("Pending");
-            List<Order> processingOrders = orderDAO.getOrdersByStatus("Processing");
-            List<Order> shippedOrders = orderDAO.getOrdersByStatus("Shipped");
-            List<Order> recentOrders = orderDAO.getRecentOrders(7);
+            OrderStatusCounts counts = orderDAO.countByStatus(7);
 
             StringBuilder report = new StringBuilder();
             report.append("=== ORDER PROCESSING REPORT ===\n");
             report.append("Generated by: ").append(currentUser.getUsername()).append("\n");
-            report.append("Pending Orders: ").append(pendingOrders.size()).append("\n");
-            report.append("Processing Orders: ").append(processingOrders.size()).append("\n");
-            report.append("Shipped Orders: ").append(shippedOrders.size()).append("\n");
-            report.append("Recent Orders (7 days): ").append(recentOrders.size()).append("\n\n");
+            report.append("Pending Orders: ").append(counts.getCount(Order.STATUS_PENDING)).append("\n");
+            report.append("Processing Orders: ").append(counts.getCount(Order.STATUS_PROCESSING)).append("\n");
+            report.append("Shipped Orders: ").append(counts.getCount(Order.STATUS_SHIPPED)).append("\n");
+            report.append("Recent Orders (7 days): ").append(counts.getRecentCount()).append("\n\n");
 
             return report.toString();
 
@@ -416,6 +687,10 @@ public class StaffController {
             dashboardView.setVisible(false);
         }
         
+        // Stop polling for catalog changes; the snapshot is refreshed on the next login
+        catalog.stop();
+        stopOrderPolling();
+        
         // Return to login
         LoginController loginController = new LoginController(null);
         loginController.logout();
@@ -426,7 +701,8 @@ public class StaffController {
      * @param message Error message
      */
     private void showErrorMessage(String message) {
-        JOptionPane.showMessageDialog(dashboardView, message, "Error", JOptionPane.ERROR_MESSAGE);
+        SwingUtil.runOnEventThread(() ->
+                JOptionPane.showMessageDialog(dashboardView, message, "Error", JOptionPane.ERROR_MESSAGE));
     }
 
     /**
@@ -434,7 +710,8 @@ public class StaffController {
      * @param message Success message
      */
     private void showSuccessMessage(String message) {
-        JOptionPane.showMessageDialog(dashboardView, message, "Success", JOptionPane.INFORMATION_MESSAGE);
+        SwingUtil.runOnEventThread(() ->
+                JOptionPane.showMessageDialog(dashboardView, message, "Success", JOptionPane.INFORMATION_MESSAGE));
     }
 
     /**
@@ -442,7 +719,8 @@ public class StaffController {
      * @param message Info message
      */
     private void showInfoMessage(String message) {
-        JOptionPane.showMessageDialog(dashboardView, message, "Information", JOptionPane.INFORMATION_MESSAGE);
+        SwingUtil.runOnEventThread(() ->
+                JOptionPane.showMessageDialog(dashboardView, message, "Information", JOptionPane.INFORMATION_MESSAGE));
     }
 }
 
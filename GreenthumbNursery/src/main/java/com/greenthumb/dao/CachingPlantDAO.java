@@ -0,0 +1,348 @@
+package com.greenthumb.dao;
+
+import com.greenthumb.model.Plant;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Read-through cache in front of another PlantDAO.
+ * Lookups by plant ID are served from a bounded LRU map whose entries expire after
+ * a time-to-live. Writes made through this DAO invalidate the affected entries at
+ * once, and committed plant changes reported to PlantChangeNotifier (including stock
+ * decrements made by InventoryDAO) invalidate them again after commit. List and
+ * search queries are passed straight to the underlying DAO.
+ *
+ * Reads inside a transaction bypass the cache so uncommitted rows are never cached.
+ */
+public class CachingPlantDAO implements PlantDAO, PlantChangeListener {
+    public static final int DEFAULT_MAX_ENTRIES = 1000;
+    public static final long DEFAULT_TTL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private static CachingPlantDAO instance = null;
+
+    private final PlantDAO delegate;
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final LinkedHashMap<String, CacheEntry> entries;
+    private final Statistics statistics = new Statistics();
+
+    // Bumped on every invalidation; a lookup only caches what it read if no invalidation happened meanwhile
+    private long invalidationCount = 0;
+
+    /**
+     * Create a caching DAO and register it for plant change notifications
+     * @param delegate DAO that reads and writes the database
+     * @param maxEntries Maximum number of cached plants
+     * @param ttlMillis Time after which a cached plant is reloaded
+     */
+    public CachingPlantDAO(PlantDAO delegate, int maxEntries, long ttlMillis) {
+        this.delegate = delegate;
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMillis;
+        this.entries = new LinkedHashMap<String, CacheEntry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+                if (size() > CachingPlantDAO.this.maxEntries) {
+                    statistics.evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+        PlantChangeNotifier.addListener(this);
+    }
+
+    /**
+     * Get the cache shared by the whole application
+     * @return Shared caching plant DAO
+     */
+    public static synchronized CachingPlantDAO getInstance() {
+        if (instance == null) {
+            instance = new CachingPlantDAO(new PlantDAOImpl(), DEFAULT_MAX_ENTRIES, DEFAULT_TTL_MILLIS);
+        }
+        return instance;
+    }
+
+    @Override
+    public Plant getPlantById(String plantId) {
+        if (TransactionManager.isActive()) {
+            return delegate.getPlantById(plantId);
+        }
+
+        long version;
+        synchronized (this) {
+            Plant cached = lookup(plantId);
+            if (cached != null) {
+                return copyOf(cached);
+            }
+            version = invalidationCount;
+        }
+
+        Plant plant = delegate.getPlantById(plantId);
+        if (plant != null) {
+            synchronized (this) {
+                store(plant, version);
+            }
+        }
+        return copyOf(plant);
+    }
+
+    @Override
+    public Map<String, Plant> getPlantsByIds(Collection<String> plantIds) {
+        if (TransactionManager.isActive()) {
+            return delegate.getPlantsByIds(plantIds);
+        }
+
+        Map<String, Plant> plants = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        long version;
+        synchronized (this) {
+            for (String plantId : plantIds) {
+                if (plants.containsKey(plantId)) {
+                    continue;
+                }
+                Plant cached = lookup(plantId);
+                if (cached != null) {
+                    plants.put(plantId, copyOf(cached));
+                } else {
+                    missing.add(plantId);
+                }
+            }
+            version = invalidationCount;
+        }
+
+        if (!missing.isEmpty()) {
+            Map<String, Plant> loaded = delegate.getPlantsByIds(missing);
+            synchronized (this) {
+                for (Plant plant : loaded.values()) {
+                    store(plant, version);
+                }
+            }
+            for (Plant plant : loaded.values()) {
+                plants.put(plant.getPlantId(), copyOf(plant));
+            }
+        }
+        return plants;
+    }
+
+    @Override
+    public boolean createPlant(Plant plant) {
+        boolean success = delegate.createPlant(plant);
+        invalidate(plant.getPlantId());
+        return success;
+    }
+
+    @Override
+    public int upsertPlants(Iterable<Plant> plants) {
+        int written = delegate.upsertPlants(plants);
+        invalidateAll();
+        return written;
+    }
+
+    @Override
+    public boolean updatePlant(Plant plant) {
+        boolean success = delegate.updatePlant(plant);
+        invalidate(plant.getPlantId());
+        return success;
+    }
+
+    @Override
+    public boolean deletePlant(String plantId) {
+        boolean success = delegate.deletePlant(plantId);
+        invalidate(plantId);
+        return success;
+    }
+
+    @Override
+    public boolean updatePlantQuantity(String plantId, int newQuantity) {
+        boolean success = delegate.updatePlantQuantity(plantId, newQuantity);
+        invalidate(plantId);
+        return success;
+    }
+
+    @Override
+    public List<Plant> getAllPlants() {
+        return delegate.getAllPlants();
+    }
+
+    @Override
+    public List<Plant> searchPlantsByName(String name) {
+        return delegate.searchPlantsByName(name);
+    }
+
+    @Override
+    public List<Plant> searchPlantsByType(String type) {
+        return delegate.searchPlantsByType(type);
+    }
+
+    @Override
+    public List<Plant> searchPlantsByPriceRange(double minPrice, double maxPrice) {
+        return delegate.searchPlantsByPriceRange(minPrice, maxPrice);
+    }
+
+    @Override
+    public List<Plant> getLowStockPlants(int threshold) {
+        return delegate.getLowStockPlants(threshold);
+    }
+
+    @Override
+    public List<Plant> getAvailablePlants() {
+        return delegate.getAvailablePlants();
+    }
+
+    @Override
+    public List<Plant> searchPlants(String name, String type, Double minPrice, Double maxPrice) {
+        return delegate.searchPlants(name, type, minPrice, maxPrice);
+    }
+
+    @Override
+    public PlantChangeMarker getChangeMarker() {
+        return delegate.getChangeMarker();
+    }
+
+    @Override
+    public List<Plant> getPlantsUpdatedSince(Timestamp since) {
+        return delegate.getPlantsUpdatedSince(since);
+    }
+
+    @Override
+    public void plantsChanged(Set<String> plantIds) {
+        if (plantIds == null) {
+            invalidateAll();
+        } else {
+            for (String plantId : plantIds) {
+                invalidate(plantId);
+            }
+        }
+    }
+
+    /**
+     * Remove one plant from the cache
+     * @param plantId Plant ID
+     */
+    public synchronized void invalidate(String plantId) {
+        invalidationCount++;
+        if (entries.remove(plantId) != null) {
+            statistics.invalidations.incrementAndGet();
+        }
+    }
+
+    /**
+     * Remove all plants from the cache
+     */
+    public synchronized void invalidateAll() {
+        invalidationCount++;
+        statistics.invalidations.addAndGet(entries.size());
+        entries.clear();
+    }
+
+    /**
+     * Get number of plants currently cached
+     * @return Cached entry count
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public Statistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Look up a live entry, counting a hit or a miss. Caller must hold the lock.
+     */
+    private Plant lookup(String plantId) {
+        CacheEntry entry = entries.get(plantId);
+        if (entry != null && entry.expiresAt > System.currentTimeMillis()) {
+            statistics.hits.incrementAndGet();
+            return entry.plant;
+        }
+        if (entry != null) {
+            entries.remove(plantId);
+        }
+        statistics.misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Cache a plant read from the database unless an invalidation raced with the read.
+     * Caller must hold the lock.
+     */
+    private void store(Plant plant, long version) {
+        if (version == invalidationCount) {
+            entries.put(plant.getPlantId(), new CacheEntry(copyOf(plant), System.currentTimeMillis() + ttlMillis));
+        }
+    }
+
+    /**
+     * Plants are mutable, so callers get their own copy of cached instances
+     */
+    private static Plant copyOf(Plant plant) {
+        if (plant == null) {
+            return null;
+        }
+        return new Plant(plant.getPlantId(), plant.getName(), plant.getType(), plant.getPrice(),
+                plant.getQuantity(), plant.getDescription());
+    }
+
+    private static class CacheEntry {
+        final Plant plant;
+        final long expiresAt;
+
+        CacheEntry(Plant plant, long expiresAt) {
+            this.plant = plant;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * Hit, miss, eviction and invalidation counters
+     */
+    public static class Statistics {
+        private final AtomicLong hits = new AtomicLong();
+        private final AtomicLong misses = new AtomicLong();
+        private final AtomicLong evictions = new AtomicLong();
+        private final AtomicLong invalidations = new AtomicLong();
+
+        public long getHits() {
+            return hits.get();
+        }
+
+        public long getMisses() {
+            return misses.get();
+        }
+
+        public long getEvictions() {
+            return evictions.get();
+        }
+
+        public long getInvalidations() {
+            return invalidations.get();
+        }
+
+        /**
+         * Get fraction of lookups served from cache
+         * @return Hit ratio between 0 and 1
+         */
+        public double getHitRatio() {
+            long lookups = getHits() + getMisses();
+            return lookups == 0 ? 0.0 : (double) getHits() / lookups;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("PlantCache{hits=%d, misses=%d, evictions=%d, invalidations=%d, hitRatio=%.2f}",
+                    getHits(), getMisses(), getEvictions(), getInvalidations(), getHitRatio());
+        }
+    }
+}
+
@@ -0,0 +1,29 @@
+package com.greenthumb.dao;
+
+import com.greenthumb.model.OrderItem;
+import java.util.List;
+
+/**
+ * Data Access Object interface for stock levels.
+ * Checks and decrements plant quantities for all lines of an order at once.
+ */
+public interface InventoryDAO {
+    
+    /**
+     * Check whether there is enough stock for every line, using a single lookup.
+     * Lines for the same plant are added up before comparing.
+     * @param items Order lines to check
+     * @return Result listing the lines that cannot be fulfilled
+     */
+    InventoryResult checkAvailability(List<OrderItem> items);
+    
+    /**
+     * Decrement stock for every line in one batch, guarded so quantities never go
+     * negative. Either all lines are applied or none are: if any plant lacks stock the
+     * decrements are rolled back. Runs in the current transaction when there is one.
+     * @param items Order lines to take out of stock
+     * @return Result listing the lines that could not be fulfilled
+     */
+    InventoryResult decrementStock(List<OrderItem> items);
+}
+
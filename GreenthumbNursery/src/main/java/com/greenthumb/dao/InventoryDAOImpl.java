@@ -0,0 +1,139 @@
+package com.greenthumb.dao;
+
+import com.greenthumb.model.OrderItem;
+import com.greenthumb.model.Plant;
+import com.greenthumb.util.DBConnection;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Implementation of InventoryDAO interface for database operations.
+ * Stock is decremented with guarded updates (quantity >= requested) so that
+ * concurrent decrements can never oversell or drive a quantity negative.
+ */
+public class InventoryDAOImpl implements InventoryDAO {
+
+    private PlantDAO plantDAO = CachingPlantDAO.getInstance();
+
+    @Override
+    public InventoryResult checkAvailability(List<OrderItem> items) {
+        Map<String, Integer> required = requiredQuantities(items);
+        Map<String, Plant> plants = plantDAO.getPlantsByIds(required.keySet());
+        
+        Set<String> shortPlantIds = new HashSet<>();
+        for (Map.Entry<String, Integer> entry : required.entrySet()) {
+            Plant plant = plants.get(entry.getKey());
+            if (plant == null || !plant.isAvailable(entry.getValue())) {
+                shortPlantIds.add(entry.getKey());
+            }
+        }
+        
+        return InventoryResult.of(linesForPlants(items, shortPlantIds));
+    }
+
+    @Override
+    public InventoryResult decrementStock(List<OrderItem> items) {
+        Map<String, Integer> required = requiredQuantities(items);
+        
+        // A non-positive quantity would turn the guarded decrement into an increment
+        Set<String> invalidPlantIds = new HashSet<>();
+        for (Map.Entry<String, Integer> entry : required.entrySet()) {
+            if (entry.getValue() <= 0) {
+                invalidPlantIds.add(entry.getKey());
+            }
+        }
+        if (!invalidPlantIds.isEmpty() || required.isEmpty()) {
+            return InventoryResult.of(linesForPlants(items, invalidPlantIds));
+        }
+        
+        try {
+            return TransactionManager.inTransaction(() -> applyDecrements(items, required));
+        } catch (SQLException e) {
+            System.err.println("Error decrementing stock: " + e.getMessage());
+            return InventoryResult.error(e.getMessage());
+        }
+    }
+
+    /**
+     * Run the guarded decrements as one batch inside a savepoint, so a shortfall only
+     * undoes this batch even when the caller's transaction continues
+     */
+    private InventoryResult applyDecrements(List<OrderItem> items, Map<String, Integer> required) throws SQLException {
+        String sql = "UPDATE plants SET quantity = quantity - ? WHERE plant_id = ? AND quantity >= ?";
+        
+        try (Connection conn = DBConnection.getConnection()) {
+            Savepoint savepoint = conn.setSavepoint();
+            Set<String> shortPlantIds = new HashSet<>();
+            
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                for (Map.Entry<String, Integer> entry : required.entrySet()) {
+                    pstmt.setInt(1, entry.getValue());
+                    pstmt.setString(2, entry.getKey());
+                    pstmt.setInt(3, entry.getValue());
+                    pstmt.addBatch();
+                }
+                
+                int[] updateCounts = pstmt.executeBatch();
+                int index = 0;
+                for (String plantId : required.keySet()) {
+                    // No row matched: the plant is missing or has too little stock
+                    if (index >= updateCounts.length || updateCounts[index] == 0
+                            || updateCounts[index] == Statement.EXECUTE_FAILED) {
+                        shortPlantIds.add(plantId);
+                    }
+                    index++;
+                }
+            } catch (SQLException e) {
+                conn.rollback(savepoint);
+                throw e;
+            }
+            
+            if (shortPlantIds.isEmpty()) {
+                conn.releaseSavepoint(savepoint);
+                PlantChangeNotifier.firePlantsChanged(required.keySet());
+            } else {
+                conn.rollback(savepoint);
+            }
+            return InventoryResult.of(linesForPlants(items, shortPlantIds));
+        }
+    }
+
+    /**
+     * Add up requested quantities per plant, keeping first-seen plant order
+     * @param items Order lines
+     * @return Map from plant ID to total requested quantity
+     */
+    private Map<String, Integer> requiredQuantities(List<OrderItem> items) {
+        Map<String, Integer> required = new LinkedHashMap<>();
+        for (OrderItem item : items) {
+            required.merge(item.getPlantId(), item.getQuantity(), Integer::sum);
+        }
+        return required;
+    }
+
+    /**
+     * Select the order lines belonging to the given plants
+     * @param items Order lines
+     * @param plantIds Plant IDs to select
+     * @return Matching lines in their original order
+     */
+    private List<OrderItem> linesForPlants(List<OrderItem> items, Set<String> plantIds) {
+        List<OrderItem> lines = new ArrayList<>();
+        if (plantIds.isEmpty()) {
+            return lines;
+        }
+        for (OrderItem item : items) {
+            if (plantIds.contains(item.getPlantId())) {
+                lines.add(item);
+            }
+        }
+        return lines;
+    }
+}
+
@@ -0,0 +1,77 @@
+package com.greenthumb.dao;
+
+import com.greenthumb.model.OrderItem;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Outcome of an inventory check or stock decrement for the lines of an order.
+ */
+public class InventoryResult {
+    private final List<OrderItem> failedItems;
+    private final String errorMessage;
+
+    private InventoryResult(List<OrderItem> failedItems, String errorMessage) {
+        this.failedItems = Collections.unmodifiableList(failedItems);
+        this.errorMessage = errorMessage;
+    }
+
+    /**
+     * Create a result for an operation that ran, listing lines without enough stock
+     * @param failedItems Lines that could not be fulfilled (empty on success)
+     * @return Inventory result
+     */
+    static InventoryResult of(List<OrderItem> failedItems) {
+        return new InventoryResult(new ArrayList<>(failedItems), null);
+    }
+
+    /**
+     * Create a result for an operation that failed with a database error
+     * @param errorMessage Error description
+     * @return Inventory result
+     */
+    static InventoryResult error(String errorMessage) {
+        return new InventoryResult(new ArrayList<OrderItem>(), errorMessage);
+    }
+
+    /**
+     * Check if every line was fulfilled
+     * @return true if there were no failed lines and no database error
+     */
+    public boolean isSuccess() {
+        return errorMessage == null && failedItems.isEmpty();
+    }
+
+    /**
+     * Get lines that could not be fulfilled because of insufficient stock
+     * @return Failed order lines
+     */
+    public List<OrderItem> getFailedItems() {
+        return failedItems;
+    }
+
+    /**
+     * Get IDs of plants without enough stock
+     * @return Plant IDs in line order
+     */
+    public Set<String> getFailedPlantIds() {
+        Set<String> plantIds = new LinkedHashSet<>();
+        for (OrderItem item : failedItems) {
+            plantIds.add(item.getPlantId());
+        }
+        return plantIds;
+    }
+
+    /**
+     * Get database error message
+     * @return Error message, or null if the operation ran
+     */
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+}
+
@@ -0,0 +1,54 @@
+package com.greenthumb.dao;
+
+import java.sql.Timestamp;
+import java.util.Objects;
+
+/**
+ * Fingerprint of the orders table: the latest updated_at and the row count.
+ * A later updated_at means orders were placed or updated; deleted orders only show in
+ * the row count, which is optional because counting reads a whole index.
+ */
+public class OrderChangeMarker {
+    private final Timestamp lastUpdated;
+    private final long rowCount;
+
+    public OrderChangeMarker(Timestamp lastUpdated, long rowCount) {
+        this.lastUpdated = lastUpdated;
+        this.rowCount = rowCount;
+    }
+
+    /**
+     * Get the latest updated_at value
+     * @return Latest update time, or null if the table is empty
+     */
+    public Timestamp getLastUpdated() {
+        return lastUpdated;
+    }
+
+    /**
+     * Get the number of orders
+     * @return Row count, or -1 if the orders were not counted
+     */
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+        OrderChangeMarker other = (OrderChangeMarker) obj;
+        return rowCount == other.rowCount && Objects.equals(lastUpdated, other.lastUpdated);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(lastUpdated, rowCount);
+    }
+
+    @Override
+    public String toString() {
+        return "OrderChangeMarker{lastUpdated=" + lastUpdated + ", rowCount=" + rowCount + '}';
+    }
+}
+
@@ -0,0 +1,104 @@
+package com.greenthumb.dao;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Date;
+
+/**
+ * Filter for order scans. Unset (null) fields do not restrict the scan.
+ */
+public class OrderCriteria {
+    private String customerId;
+    private String status;
+    private Date startDate;
+    private Date endDate;
+
+    // Default constructor matches all orders
+    public OrderCriteria() {}
+
+    public String getCustomerId() {
+        return customerId;
+    }
+
+    public void setCustomerId(String customerId) {
+        this.customerId = customerId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    /**
+     * Get inclusive lower bound on order date
+     * @return Start date, or null for no lower bound
+     */
+    public Date getStartDate() {
+        return startDate;
+    }
+
+    public void setStartDate(Date startDate) {
+        this.startDate = startDate;
+    }
+
+    /**
+     * Get exclusive upper bound on order date
+     * @return End date, or null for no upper bound
+     */
+    public Date getEndDate() {
+        return endDate;
+    }
+
+    public void setEndDate(Date endDate) {
+        this.endDate = endDate;
+    }
+
+    /**
+     * Append WHERE conditions for the set fields
+     * @param sql Query ending in a WHERE clause (e.g. "WHERE 1=1")
+     * @param alias Table alias of the orders table, or empty for none
+     */
+    void appendConditions(StringBuilder sql, String alias) {
+        String prefix = alias.isEmpty() ? "" : alias + ".";
+        if (customerId != null) {
+            sql.append(" AND ").append(prefix).append("customer_id = ?");
+        }
+        if (status != null) {
+            sql.append(" AND ").append(prefix).append("status = ?");
+        }
+        if (startDate != null) {
+            sql.append(" AND ").append(prefix).append("order_date >= ?");
+        }
+        if (endDate != null) {
+            sql.append(" AND ").append(prefix).append("order_date < ?");
+        }
+    }
+
+    /**
+     * Bind parameters for the conditions added by appendConditions
+     * @param pstmt Statement to bind
+     * @param paramIndex Index of the first parameter
+     * @return Index of the next unbound parameter
+     * @throws SQLException if binding fails
+     */
+    int bindConditions(PreparedStatement pstmt, int paramIndex) throws SQLException {
+        if (customerId != null) {
+            pstmt.setString(paramIndex++, customerId);
+        }
+        if (status != null) {
+            pstmt.setString(paramIndex++, status);
+        }
+        if (startDate != null) {
+            pstmt.setTimestamp(paramIndex++, new Timestamp(startDate.getTime()));
+        }
+        if (endDate != null) {
+            pstmt.setTimestamp(paramIndex++, new Timestamp(endDate.getTime()));
+        }
+        return paramIndex;
+    }
+}
+
@@ -1,8 +1,11 @@
 package com.greenthumb.dao;
 
 import com.greenthumb.model.Order;
+import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.util.Date;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Data Access Object interface for Order entity.
@@ -58,6 +61,70 @@ public interface OrderDAO {
      */
     List<Order> getOrdersByStatus(String status);
     
+    /**
+     * Get one page of all orders, newest first
+     * @param cursor Cursor from the previous page, or null for the first page
+     * @param pageSize Maximum number of orders on the page
+     * @return Page of orders with the cursor for the next page, or null if the query failed
+     */
+    OrderPage getOrdersPage(String cursor, int pageSize);
+    
+    /**
+     * Get one page of orders with a given status, newest first
+     * @param status Order status to filter by
+     * @param cursor Cursor from the previous page, or null for the first page
+     * @param pageSize Maximum number of orders on the page
+     * @return Page of orders with the cursor for the next page, or null if the query failed
+     */
+    OrderPage getOrdersPageByStatus(String status, String cursor, int pageSize);
+    
+    /**
+     * Get one page of a customer's orders, newest first
+     * @param customerId Customer ID to search for
+     * @param cursor Cursor from the previous page, or null for the first page
+     * @param pageSize Maximum number of orders on the page
+     * @return Page of orders with the cursor for the next page, or null if the query failed
+     */
+    OrderPage getOrdersPageByCustomerId(String customerId, String cursor, int pageSize);
+    
+    /**
+     * Get the page of orders starting at a position, newest first. Slower than
+     * following cursors for deep positions; use it to jump into the middle of a listing.
+     * @param status Order status to filter by, or null for all orders
+     * @param offset Number of orders to skip
+     * @param pageSize Maximum number of orders on the page
+     * @return Page of orders with the cursor for the next page, or null if the query failed
+     */
+    OrderPage getOrdersPageAt(String status, int offset, int pageSize);
+    
+    /**
+     * Count orders
+     * @param status Order status to filter by, or null for all orders
+     * @return Number of orders, or -1 if the query failed
+     */
+    int countOrders(String status);
+    
+    /**
+     * Get the change marker of the orders table (latest updated_at and, if asked for, row count)
+     * @param countRows true to count the orders too, which is much slower on a large table
+     * @return Change marker (row count -1 if not counted), or null if the query failed
+     */
+    OrderChangeMarker getChangeMarker(boolean countRows);
+    
+    /**
+     * Count orders placed at or after a point in time
+     * @param since Lower bound on order date (inclusive)
+     * @return Number of orders, or -1 if the query failed
+     */
+    int countOrdersPlacedSince(Date since);
+    
+    /**
+     * Get orders placed or updated at or after a point in time
+     * @param since Lower bound on updated_at (inclusive)
+     * @return List of changed orders, or null if the query failed
+     */
+    List<Order> getOrdersChangedSince(Timestamp since);
+    
     /**
      * Get orders by date range
      * @param startDate Start date
@@ -74,6 +141,16 @@ public interface OrderDAO {
      */
     boolean updateOrderStatus(String orderId, String newStatus);
     
+    /**
+     * Update order status only if the order still has the expected status
+     * @param orderId Order ID
+     * @param expectedStatus Status the order must currently have
+     * @param newStatus New status
+     * @return true if the status was changed, false if the order does not have the expected status
+     * @throws SQLException if the update fails, so an enclosing transaction rolls back
+     */
+    boolean updateOrderStatusIfCurrent(String orderId, String expectedStatus, String newStatus) throws SQLException;
+    
     /**
      * Get orders with total amount above threshold
      * @param threshold Amount threshold
@@ -88,6 +165,32 @@ public interface OrderDAO {
      */
     List<Order> getRecentOrders(int days);
     
+    /**
+     * Stream orders matching the criteria to a callback without loading them into memory.
+     * The callback runs while the result is still being read, so it must not query the
+     * database on the same connection (e.g. inside the current transaction).
+     * @param criteria Filter for the scan
+     * @param action Callback invoked once per order
+     * @return Number of orders visited, or -1 if the scan failed
+     */
+    long forEachOrder(OrderCriteria criteria, Consumer<Order> action);
+    
+    /**
+     * Get order counts and revenue grouped by day and status, computed in the database
+     * @param from Inclusive lower bound on order date (null for no lower bound)
+     * @param to Exclusive upper bound on order date (null for no upper bound)
+     * @param recentDays Number of days to look back for the recent count
+     * @return Sales summary, or null if the query failed
+     */
+    SalesSummary getSalesSummary(Date from, Date to, int recentDays);
+    
+    /**
+     * Count orders per status and orders placed recently, using one aggregate query
+     * @param recentDays Number of days to look back for the recent count
+     * @return Order counts (all zero if the query failed)
+     */
+    OrderStatusCounts countByStatus(int recentDays);
+    
     /**
      * Get order count by customer
      * @param customerId Customer ID
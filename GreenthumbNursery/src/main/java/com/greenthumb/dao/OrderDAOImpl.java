@@ -7,6 +7,7 @@ import java.sql.*;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Implementation of OrderDAO interface for database operations.
@@ -14,6 +15,12 @@ import java.util.List;
  */
 public class OrderDAOImpl implements OrderDAO {
 
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final String[] ORDER_STATUSES = {
+        Order.STATUS_PENDING, Order.STATUS_PROCESSING, Order.STATUS_SHIPPED,
+        Order.STATUS_DELIVERED, Order.STATUS_CANCELLED, Order.STATUS_RETURNED
+    };
+
     @Override
     public boolean createOrder(Order order) {
         String sql = "INSERT INTO orders (order_id, customer_id, order_date, total_amount, status) VALUES (?, ?, ?, ?, ?)";
@@ -170,6 +177,189 @@ public class OrderDAOImpl implements OrderDAO {
         return orders;
     }
 
+    @Override
+    public OrderPage getOrdersPage(String cursor, int pageSize) {
+        return getOrdersPageWhere(null, null, cursor, 0, pageSize);
+    }
+
+    @Override
+    public OrderPage getOrdersPageByStatus(String status, String cursor, int pageSize) {
+        return getOrdersPageWhere("status", status, cursor, 0, pageSize);
+    }
+
+    @Override
+    public OrderPage getOrdersPageByCustomerId(String customerId, String cursor, int pageSize) {
+        return getOrdersPageWhere("customer_id", customerId, cursor, 0, pageSize);
+    }
+
+    @Override
+    public OrderPage getOrdersPageAt(String status, int offset, int pageSize) {
+        return getOrdersPageWhere(status == null ? null : "status", status, null, Math.max(0, offset), pageSize);
+    }
+
+    @Override
+    public int countOrders(String status) {
+        // Answered from the status index (or the primary key), without reading order rows
+        String sql = status == null ? "SELECT COUNT(*) FROM orders" : "SELECT COUNT(*) FROM orders WHERE status = ?";
+        
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
+            if (status != null) {
+                pstmt.setString(1, status);
+            }
+            ResultSet rs = pstmt.executeQuery();
+            
+            if (rs.next()) {
+                return rs.getInt(1);
+            }
+            
+        } catch (SQLException e) {
+            System.err.println("Error counting orders: " + e.getMessage());
+        }
+        
+        return -1;
+    }
+
+    @Override
+    public OrderChangeMarker getChangeMarker(boolean countRows) {
+        // MAX(updated_at) is one lookup at the end of idx_orders_updated; COUNT(*) reads
+        // a whole index on InnoDB, so callers ask for it only now and then
+        String sql = countRows
+                ? "SELECT MAX(updated_at), COUNT(*) FROM orders"
+                : "SELECT MAX(updated_at) FROM orders";
+        
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
+            ResultSet rs = pstmt.executeQuery();
+            if (rs.next()) {
+                return new OrderChangeMarker(rs.getTimestamp(1), countRows ? rs.getLong(2) : -1);
+            }
+            
+        } catch (SQLException e) {
+            System.err.println("Error retrieving order change marker: " + e.getMessage());
+        }
+        
+        return null;
+    }
+
+    @Override
+    public int countOrdersPlacedSince(Date since) {
+        // A range of idx_orders_date
+        String sql = "SELECT COUNT(*) FROM orders WHERE order_date >= ?";
+        
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
+            pstmt.setTimestamp(1, new Timestamp(since.getTime()));
+            ResultSet rs = pstmt.executeQuery();
+            
+            if (rs.next()) {
+                return rs.getInt(1);
+            }
+            
+        } catch (SQLException e) {
+            System.err.println("Error counting new orders: " + e.getMessage());
+        }
+        
+        return -1;
+    }
+
+    @Override
+    public List<Order> getOrdersChangedSince(Timestamp since) {
+        List<Order> orders = new ArrayList<>();
+        String sql = "SELECT * FROM orders WHERE updated_at >= ?";
+        
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
+            pstmt.setTimestamp(1, since);
+            ResultSet rs = pstmt.executeQuery();
+            
+            while (rs.next()) {
+                orders.add(createOrderFromResultSet(rs));
+            }
+            
+        } catch (SQLException e) {
+            System.err.println("Error retrieving changed orders: " + e.getMessage());
+            return null;
+        }
+        
+        return orders;
+    }
+
+    /**
+     * Keyset pagination over (order_date, order_id) descending. Fetches one row
+     * beyond the page size to find out whether another page follows. Without a
+     * cursor, an offset can be given to start further down the listing.
+     * @param filterColumn Column to filter on (null for no filter)
+     * @param filterValue Value the filter column must equal
+     * @param cursor Cursor from the previous page, or null for the first page
+     * @param offset Number of orders to skip after the cursor position
+     * @param pageSize Maximum number of orders on the page
+     * @return Page of orders
+     */
+    private OrderPage getOrdersPageWhere(String filterColumn, String filterValue, String cursor,
+                                         int offset, int pageSize) {
+        int limit = Math.max(1, Math.min(pageSize, MAX_PAGE_SIZE));
+        OrderPage.Cursor position = null;
+        if (cursor != null) {
+            try {
+                position = OrderPage.Cursor.decode(cursor);
+            } catch (IllegalArgumentException e) {
+                System.err.println("Error retrieving orders page: " + e.getMessage());
+                return OrderPage.empty();
+            }
+        }
+        
+        StringBuilder sql = new StringBuilder("SELECT * FROM orders WHERE 1=1");
+        if (filterColumn != null) {
+            sql.append(" AND ").append(filterColumn).append(" = ?");
+        }
+        if (position != null) {
+            sql.append(" AND (order_date < ? OR (order_date = ? AND order_id < ?))");
+        }
+        sql.append(" ORDER BY order_date DESC, order_id DESC LIMIT ?");
+        if (offset > 0) {
+            sql.append(" OFFSET ?");
+        }
+        
+        List<Order> orders = new ArrayList<>();
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql.toString())) {
+            
+            int paramIndex = 1;
+            if (filterColumn != null) {
+                pstmt.setString(paramIndex++, filterValue);
+            }
+            if (position != null) {
+                pstmt.setTimestamp(paramIndex++, position.orderDate);
+                pstmt.setTimestamp(paramIndex++, position.orderDate);
+                pstmt.setString(paramIndex++, position.orderId);
+            }
+            pstmt.setInt(paramIndex++, limit + 1);
+            if (offset > 0) {
+                pstmt.setInt(paramIndex, offset);
+            }
+            ResultSet rs = pstmt.executeQuery();
+            
+            while (rs.next()) {
+                orders.add(createOrderFromResultSet(rs));
+            }
+            
+        } catch (SQLException e) {
+            System.err.println("Error retrieving orders page: " + e.getMessage());
+            return null;
+        }
+        
+        if (orders.size() <= limit) {
+            return new OrderPage(orders, null);
+        }
+        orders.remove(limit);
+        return new OrderPage(orders, OrderPage.encodeCursor(orders.get(limit - 1)));
+    }
+
     @Override
     public List<Order> getOrdersByDateRange(Date startDate, Date endDate) {
         List<Order> orders = new ArrayList<>();
@@ -215,6 +405,22 @@ public class OrderDAOImpl implements OrderDAO {
         }
     }
 
+    @Override
+    public boolean updateOrderStatusIfCurrent(String orderId, String expectedStatus, String newStatus) throws SQLException {
+        String sql = "UPDATE orders SET status = ? WHERE order_id = ? AND status = ?";
+        
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
+            pstmt.setString(1, newStatus);
+            pstmt.setString(2, orderId);
+            pstmt.setString(3, expectedStatus);
+            
+            int rowsAffected = pstmt.executeUpdate();
+            return rowsAffected > 0;
+        }
+    }
+
     @Override
     public List<Order> getOrdersAboveAmount(double threshold) {
         List<Order> orders = new ArrayList<>();
@@ -265,6 +471,111 @@ public class OrderDAOImpl implements OrderDAO {
         return orders;
     }
 
+    @Override
+    public long forEachOrder(OrderCriteria criteria, Consumer<Order> action) {
+        StringBuilder sql = new StringBuilder("SELECT * FROM orders WHERE 1=1");
+        criteria.appendConditions(sql, "");
+        long visited = 0;
+        
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql.toString(),
+                     ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            
+            // Connector/J streams rows one at a time instead of buffering the whole result
+            pstmt.setFetchSize(Integer.MIN_VALUE);
+            criteria.bindConditions(pstmt, 1);
+            
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    action.accept(createOrderFromResultSet(rs));
+                    visited++;
+                }
+            }
+            return visited;
+            
+        } catch (SQLException e) {
+            System.err.println("Error scanning orders after " + visited + " rows: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    @Override
+    public SalesSummary getSalesSummary(Date from, Date to, int recentDays) {
+        StringBuilder sql = new StringBuilder(
+                "SELECT DATE(order_date) AS order_day, status, COUNT(*) AS order_count, " +
+                "SUM(total_amount) AS amount, " +
+                "SUM(order_date >= DATE_SUB(NOW(), INTERVAL ? DAY)) AS recent_count FROM orders WHERE 1=1");
+        if (from != null) {
+            sql.append(" AND order_date >= ?");
+        }
+        if (to != null) {
+            sql.append(" AND order_date < ?");
+        }
+        sql.append(" GROUP BY DATE(order_date), status");
+        
+        SalesSummary summary = new SalesSummary(recentDays);
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql.toString())) {
+            
+            pstmt.setInt(1, recentDays);
+            int paramIndex = 2;
+            if (from != null) {
+                pstmt.setTimestamp(paramIndex++, new Timestamp(from.getTime()));
+            }
+            if (to != null) {
+                pstmt.setTimestamp(paramIndex, new Timestamp(to.getTime()));
+            }
+            ResultSet rs = pstmt.executeQuery();
+            
+            while (rs.next()) {
+                java.sql.Date day = rs.getDate("order_day");
+                if (day != null) {
+                    summary.addGroup(day.toLocalDate(), rs.getString("status"),
+                            rs.getLong("order_count"), rs.getDouble("amount"), rs.getLong("recent_count"));
+                }
+            }
+            return summary;
+            
+        } catch (SQLException e) {
+            System.err.println("Error retrieving sales summary: " + e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public OrderStatusCounts countByStatus(int recentDays) {
+        // Conditional counts: one pass over the (status, order_date) index, no rows transferred
+        StringBuilder sql = new StringBuilder("SELECT COUNT(*) AS total_count");
+        for (int i = 0; i < ORDER_STATUSES.length; i++) {
+            sql.append(", SUM(status = ?) AS status_").append(i);
+        }
+        sql.append(", SUM(order_date >= DATE_SUB(NOW(), INTERVAL ? DAY)) AS recent_count FROM orders");
+        
+        OrderStatusCounts counts = new OrderStatusCounts(recentDays);
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql.toString())) {
+            
+            for (int i = 0; i < ORDER_STATUSES.length; i++) {
+                pstmt.setString(i + 1, ORDER_STATUSES[i]);
+            }
+            pstmt.setInt(ORDER_STATUSES.length + 1, recentDays);
+            ResultSet rs = pstmt.executeQuery();
+            
+            if (rs.next()) {
+                counts.setTotalCount(rs.getLong("total_count"));
+                for (int i = 0; i < ORDER_STATUSES.length; i++) {
+                    counts.setCount(ORDER_STATUSES[i], rs.getLong("status_" + i));
+                }
+                counts.setRecentCount(rs.getLong("recent_count"));
+            }
+            
+        } catch (SQLException e) {
+            System.err.println("Error counting orders by status: " + e.getMessage());
+        }
+        
+        return counts;
+    }
+
     @Override
     public int getOrderCountByCustomer(String customerId) {
         String sql = "SELECT COUNT(*) FROM orders WHERE customer_id = ?";
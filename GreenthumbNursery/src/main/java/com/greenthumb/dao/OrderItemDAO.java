@@ -2,6 +2,8 @@ package com.greenthumb.dao;
 
 import com.greenthumb.model.OrderItem;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * Data Access Object interface for OrderItem entity.
@@ -16,6 +18,13 @@ public interface OrderItemDAO {
      */
     boolean createOrderItem(OrderItem orderItem);
     
+    /**
+     * Create several order items in one batched round trip
+     * @param orderItems OrderItem objects to create
+     * @return Per-item results in list order; true if that item was created
+     */
+    boolean[] createOrderItems(List<OrderItem> orderItems);
+    
     /**
      * Retrieve order item by order item ID
      * @param orderItemId Order item ID to search for
@@ -71,6 +80,12 @@ public interface OrderItemDAO {
      */
     int getTotalQuantitySoldByPlant(String plantId);
     
+    /**
+     * Get total quantity sold per plant in one query, excluding cancelled orders
+     * @return Map of plant ID to quantity sold (plants never sold are absent), or null if the query failed
+     */
+    Map<String, Integer> getQuantitySoldByPlant();
+    
     /**
      * Get total revenue for a specific plant
      * @param plantId Plant ID
@@ -106,5 +121,15 @@ public interface OrderItemDAO {
      * @return Total value of all order items
      */
     double calculateOrderTotal(String orderId);
+    
+    /**
+     * Stream order items of orders matching the criteria to a callback without loading
+     * them into memory. Plant details are not loaded. The callback must not query the
+     * database on the same connection (e.g. inside the current transaction).
+     * @param criteria Filter on the items' orders
+     * @param action Callback invoked once per order item
+     * @return Number of order items visited, or -1 if the scan failed
+     */
+    long forEachOrderItem(OrderCriteria criteria, Consumer<OrderItem> action);
 }
 
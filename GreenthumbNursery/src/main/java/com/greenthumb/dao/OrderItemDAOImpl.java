@@ -1,12 +1,16 @@
 package com.greenthumb.dao;
 
+import com.greenthumb.model.Order;
 import com.greenthumb.model.OrderItem;
 import com.greenthumb.model.Plant;
 import com.greenthumb.util.DBConnection;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * Implementation of OrderItemDAO interface for database operations.
@@ -14,7 +18,7 @@ import java.util.List;
  */
 public class OrderItemDAOImpl implements OrderItemDAO {
 
-    private PlantDAO plantDAO = new PlantDAOImpl();
+    private PlantDAO plantDAO = CachingPlantDAO.getInstance();
 
     @Override
     public boolean createOrderItem(OrderItem orderItem) {
@@ -38,6 +42,52 @@ public class OrderItemDAOImpl implements OrderItemDAO {
         }
     }
 
+    @Override
+    public boolean[] createOrderItems(List<OrderItem> orderItems) {
+        String sql = "INSERT INTO order_items (order_item_id, order_id, plant_id, quantity, subtotal) VALUES (?, ?, ?, ?, ?)";
+        boolean[] results = new boolean[orderItems.size()];
+        if (orderItems.isEmpty()) {
+            return results;
+        }
+        
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
+            for (OrderItem orderItem : orderItems) {
+                pstmt.setString(1, orderItem.getOrderItemId());
+                pstmt.setString(2, orderItem.getOrderId());
+                pstmt.setString(3, orderItem.getPlantId());
+                pstmt.setInt(4, orderItem.getQuantity());
+                pstmt.setDouble(5, orderItem.getSubtotal());
+                pstmt.addBatch();
+            }
+            
+            fillBatchResults(results, pstmt.executeBatch());
+            
+        } catch (BatchUpdateException e) {
+            System.err.println("Error creating order items in batch: " + e.getMessage());
+            // Rows after the last reported count were not executed
+            fillBatchResults(results, e.getUpdateCounts());
+        } catch (SQLException e) {
+            System.err.println("Error creating order items in batch: " + e.getMessage());
+        }
+        
+        return results;
+    }
+
+    /**
+     * Translate JDBC batch update counts into per-row success flags.
+     * Rewritten multi-row inserts report SUCCESS_NO_INFO for every row.
+     */
+    private void fillBatchResults(boolean[] results, int[] updateCounts) {
+        if (updateCounts == null) {
+            return;
+        }
+        for (int i = 0; i < results.length && i < updateCounts.length; i++) {
+            results[i] = updateCounts[i] > 0 || updateCounts[i] == Statement.SUCCESS_NO_INFO;
+        }
+    }
+
     @Override
     public OrderItem getOrderItemById(String orderItemId) {
         String sql = "SELECT * FROM order_items WHERE order_item_id = ?";
@@ -211,6 +261,31 @@ public class OrderItemDAOImpl implements OrderItemDAO {
         return 0;
     }
 
+    @Override
+    public Map<String, Integer> getQuantitySoldByPlant() {
+        Map<String, Integer> quantities = new HashMap<>();
+        String sql = "SELECT oi.plant_id, SUM(oi.quantity) FROM order_items oi " +
+                    "JOIN orders o ON oi.order_id = o.order_id " +
+                    "WHERE o.status <> ? GROUP BY oi.plant_id";
+        
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
+            pstmt.setString(1, Order.STATUS_CANCELLED);
+            ResultSet rs = pstmt.executeQuery();
+            
+            while (rs.next()) {
+                quantities.put(rs.getString(1), rs.getInt(2));
+            }
+            
+        } catch (SQLException e) {
+            System.err.println("Error getting quantity sold per plant: " + e.getMessage());
+            return null;
+        }
+        
+        return quantities;
+    }
+
     @Override
     public double getTotalRevenueByPlant(String plantId) {
         String sql = "SELECT SUM(subtotal) FROM order_items WHERE plant_id = ?";
@@ -350,6 +425,46 @@ public class OrderItemDAOImpl implements OrderItemDAO {
         return 0.0;
     }
 
+    @Override
+    public long forEachOrderItem(OrderCriteria criteria, Consumer<OrderItem> action) {
+        StringBuilder sql = new StringBuilder(
+                "SELECT oi.* FROM order_items oi JOIN orders o ON oi.order_id = o.order_id WHERE 1=1");
+        criteria.appendConditions(sql, "o");
+        long visited = 0;
+        
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql.toString(),
+                     ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            
+            // Connector/J streams rows one at a time instead of buffering the whole result
+            pstmt.setFetchSize(Integer.MIN_VALUE);
+            criteria.bindConditions(pstmt, 1);
+            
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    action.accept(createBareOrderItemFromResultSet(rs));
+                    visited++;
+                }
+            }
+            return visited;
+            
+        } catch (SQLException e) {
+            System.err.println("Error scanning order items after " + visited + " rows: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    /**
+     * Helper method to create OrderItem object from ResultSet without plant details
+     * @param rs ResultSet containing order item data
+     * @return OrderItem object
+     * @throws SQLException if error reading from ResultSet
+     */
+    private OrderItem createBareOrderItemFromResultSet(ResultSet rs) throws SQLException {
+        return new OrderItem(rs.getString("order_item_id"), rs.getString("order_id"), rs.getString("plant_id"),
+                rs.getInt("quantity"), rs.getDouble("subtotal"));
+    }
+
     /**
      * Helper method to create OrderItem object from ResultSet
      * @param rs ResultSet containing order item data
@@ -357,16 +472,10 @@ public class OrderItemDAOImpl implements OrderItemDAO {
      * @throws SQLException if error reading from ResultSet
      */
     private OrderItem createOrderItemFromResultSet(ResultSet rs) throws SQLException {
-        String orderItemId = rs.getString("order_item_id");
-        String orderId = rs.getString("order_id");
-        String plantId = rs.getString("plant_id");
-        int quantity = rs.getInt("quantity");
-        double subtotal = rs.getDouble("subtotal");
-        
-        OrderItem orderItem = new OrderItem(orderItemId, orderId, plantId, quantity, subtotal);
+        OrderItem orderItem = createBareOrderItemFromResultSet(rs);
         
         // Try to load plant details if available
-        Plant plant = plantDAO.getPlantById(plantId);
+        Plant plant = plantDAO.getPlantById(orderItem.getPlantId());
         if (plant != null) {
             orderItem.setPlant(plant);
         }
@@ -0,0 +1,92 @@
+package com.greenthumb.dao;
+
+import com.greenthumb.model.Order;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One page of orders from a keyset-paginated listing, newest first.
+ * The next cursor is an opaque token encoding the (order_date, order_id) of the
+ * last order on the page; pass it back to fetch the following page.
+ */
+public class OrderPage {
+    private final List<Order> orders;
+    private final String nextCursor;
+
+    public OrderPage(List<Order> orders, String nextCursor) {
+        this.orders = Collections.unmodifiableList(orders);
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Create an empty last page
+     * @return Empty page without a next cursor
+     */
+    public static OrderPage empty() {
+        return new OrderPage(Collections.<Order>emptyList(), null);
+    }
+
+    public List<Order> getOrders() {
+        return orders;
+    }
+
+    /**
+     * Get cursor for the next page
+     * @return Cursor token, or null if this is the last page
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasMore() {
+        return nextCursor != null;
+    }
+
+    /**
+     * Encode the position of an order as a cursor token
+     * @param order Last order on a page
+     * @return Cursor token
+     */
+    static String encodeCursor(Order order) {
+        String key = order.getOrderDate().getTime() + ":" + order.getOrderId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decoded (order_date, order_id) position of a cursor token
+     */
+    static class Cursor {
+        final Timestamp orderDate;
+        final String orderId;
+
+        private Cursor(Timestamp orderDate, String orderId) {
+            this.orderDate = orderDate;
+            this.orderId = orderId;
+        }
+
+        /**
+         * Decode a cursor token
+         * @param token Cursor token from getNextCursor()
+         * @return Decoded cursor
+         * @throws IllegalArgumentException if the token is malformed
+         */
+        static Cursor decode(String token) {
+            try {
+                String key = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+                int separator = key.indexOf(':');
+                if (separator < 1 || separator == key.length() - 1) {
+                    throw new IllegalArgumentException("Malformed order cursor");
+                }
+                long millis = Long.parseLong(key.substring(0, separator));
+                return new Cursor(new Timestamp(millis), key.substring(separator + 1));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Malformed order cursor: " + token, e);
+            }
+        }
+    }
+}
+
@@ -0,0 +1,66 @@
+package com.greenthumb.dao;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Order counts per status plus the number of recent orders, read in one query.
+ */
+public class OrderStatusCounts {
+    private final Map<String, Long> countsByStatus = new LinkedHashMap<>();
+    private final int recentDays;
+    private long totalCount;
+    private long recentCount;
+
+    OrderStatusCounts(int recentDays) {
+        this.recentDays = recentDays;
+    }
+
+    void setCount(String status, long count) {
+        countsByStatus.put(status, count);
+    }
+
+    void setTotalCount(long totalCount) {
+        this.totalCount = totalCount;
+    }
+
+    void setRecentCount(long recentCount) {
+        this.recentCount = recentCount;
+    }
+
+    /**
+     * Get number of orders with a status
+     * @param status Order status
+     * @return Order count (0 for unknown statuses)
+     */
+    public long getCount(String status) {
+        Long count = countsByStatus.get(status);
+        return count != null ? count : 0;
+    }
+
+    /**
+     * Get order counts for every status
+     * @return Map from status to order count
+     */
+    public Map<String, Long> getCountsByStatus() {
+        return Collections.unmodifiableMap(countsByStatus);
+    }
+
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * Get number of orders placed within the last getRecentDays() days
+     * @return Recent order count
+     */
+    public long getRecentCount() {
+        return recentCount;
+    }
+
+    public int getRecentDays() {
+        return recentDays;
+    }
+}
+
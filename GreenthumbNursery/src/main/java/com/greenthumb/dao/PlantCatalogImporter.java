@@ -0,0 +1,250 @@
+package com.greenthumb.dao;
+
+import com.greenthumb.model.Plant;
+import com.greenthumb.util.ValidationUtil;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Streaming importer for supplier plant catalogs in CSV format.
+ * Expected columns: plant_id, name, type, price, quantity, description (optional).
+ * A header row starting with "plant_id" is skipped. Fields may be quoted, and
+ * quoted fields may contain commas, doubled quotes and line breaks.
+ *
+ * Rows are read one at a time, validated with ValidationUtil and upserted in
+ * chunks, each chunk in its own transaction, so memory use depends on the chunk
+ * size rather than the size of the file.
+ */
+public class PlantCatalogImporter {
+    public static final int DEFAULT_CHUNK_SIZE = 1000;
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    private final PlantDAO plantDAO;
+    private final int chunkSize;
+
+    public PlantCatalogImporter(PlantDAO plantDAO) {
+        this(plantDAO, DEFAULT_CHUNK_SIZE);
+    }
+
+    public PlantCatalogImporter(PlantDAO plantDAO, int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+        }
+        this.plantDAO = plantDAO;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Import a UTF-8 encoded CSV file
+     * @param file CSV file
+     * @return Import result with counts and error messages
+     * @throws IOException if the file cannot be read
+     */
+    public ImportResult importCsv(File file) throws IOException {
+        try (Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            return importCsv(reader);
+        }
+    }
+
+    /**
+     * Import CSV data from a reader. The reader is not closed.
+     * @param reader CSV source
+     * @return Import result with counts and error messages
+     * @throws IOException if reading fails
+     */
+    public ImportResult importCsv(Reader reader) throws IOException {
+        BufferedReader in = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+        ImportResult result = new ImportResult();
+        List<Plant> chunk = new ArrayList<>(chunkSize);
+        int[] lineNumber = {0};
+        int chunkStartLine = 1;
+        boolean firstRecord = true;
+
+        List<String> fields;
+        while ((fields = readRecord(in, lineNumber)) != null) {
+            if (firstRecord) {
+                firstRecord = false;
+                if (!fields.isEmpty() && "plant_id".equalsIgnoreCase(fields.get(0).trim())) {
+                    chunkStartLine = lineNumber[0] + 1;
+                    continue;
+                }
+            }
+            if (fields.size() == 1 && fields.get(0).trim().isEmpty()) {
+                continue;
+            }
+
+            String error = validate(fields);
+            if (error != null) {
+                result.reject(1, "Line " + lineNumber[0] + ": " + error);
+                continue;
+            }
+
+            chunk.add(toPlant(fields));
+            if (chunk.size() == chunkSize) {
+                commitChunk(chunk, chunkStartLine, lineNumber[0], result);
+                chunkStartLine = lineNumber[0] + 1;
+            }
+        }
+        if (!chunk.isEmpty()) {
+            commitChunk(chunk, chunkStartLine, lineNumber[0], result);
+        }
+        return result;
+    }
+
+    private void commitChunk(List<Plant> chunk, int firstLine, int lastLine, ImportResult result) {
+        try {
+            int written = TransactionManager.inTransaction(() -> {
+                int count = plantDAO.upsertPlants(chunk);
+                if (count < 0) {
+                    throw new SQLException("batch upsert failed");
+                }
+                return count;
+            });
+            result.imported += written;
+        } catch (SQLException e) {
+            result.reject(chunk.size(), "Lines " + firstLine + "-" + lastLine + " not saved: " + e.getMessage());
+        }
+        chunk.clear();
+    }
+
+    private String validate(List<String> fields) {
+        if (fields.size() < 5) {
+            return "expected at least 5 columns but found " + fields.size();
+        }
+        if (!ValidationUtil.isValidPlantId(fields.get(0))) {
+            return "invalid plant ID '" + fields.get(0) + "'";
+        }
+        if (!ValidationUtil.isValidPlantName(fields.get(1))) {
+            return "invalid plant name";
+        }
+        if (!ValidationUtil.isValidPlantType(fields.get(2))) {
+            return "invalid plant type";
+        }
+        if (!ValidationUtil.isValidPrice(fields.get(3))) {
+            return "invalid price '" + fields.get(3) + "'";
+        }
+        if (!ValidationUtil.isValidQuantity(fields.get(4))) {
+            return "invalid quantity '" + fields.get(4) + "'";
+        }
+        if (fields.size() > 5 && !ValidationUtil.isValidPlantDescription(fields.get(5))) {
+            return "description is too long";
+        }
+        return null;
+    }
+
+    private Plant toPlant(List<String> fields) {
+        String description = fields.size() > 5 ? fields.get(5).trim() : "";
+        return new Plant(fields.get(0).trim(), fields.get(1).trim(), fields.get(2).trim(),
+                Double.parseDouble(fields.get(3).trim()), Integer.parseInt(fields.get(4).trim()), description);
+    }
+
+    /**
+     * Read one CSV record, following quoted fields across line breaks
+     * @return Field values, or null at end of input
+     */
+    private List<String> readRecord(BufferedReader in, int[] lineNumber) throws IOException {
+        String line = in.readLine();
+        if (line == null) {
+            return null;
+        }
+        lineNumber[0]++;
+
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        int i = 0;
+        while (true) {
+            if (i == line.length()) {
+                if (!quoted) {
+                    break;
+                }
+                // Quoted field continues on the next line
+                line = in.readLine();
+                if (line == null) {
+                    break;
+                }
+                lineNumber[0]++;
+                field.append('\n');
+                i = 0;
+                continue;
+            }
+
+            char c = line.charAt(i++);
+            if (quoted) {
+                if (c == '"') {
+                    if (i < line.length() && line.charAt(i) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * Outcome of a catalog import
+     */
+    public static class ImportResult {
+        private int imported;
+        private int rejected;
+        private final List<String> errors = new ArrayList<>();
+        private int suppressedErrors;
+
+        private void reject(int rows, String message) {
+            rejected += rows;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(message);
+            } else {
+                suppressedErrors++;
+            }
+        }
+
+        public int getImported() {
+            return imported;
+        }
+
+        public int getRejected() {
+            return rejected;
+        }
+
+        /**
+         * Get error messages; at most MAX_REPORTED_ERRORS are kept
+         * @return List of error messages
+         */
+        public List<String> getErrors() {
+            return Collections.unmodifiableList(errors);
+        }
+
+        public int getSuppressedErrorCount() {
+            return suppressedErrors;
+        }
+
+        @Override
+        public String toString() {
+            return "ImportResult{imported=" + imported + ", rejected=" + rejected + '}';
+        }
+    }
+}
+
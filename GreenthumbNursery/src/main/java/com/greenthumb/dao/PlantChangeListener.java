@@ -0,0 +1,17 @@
+package com.greenthumb.dao;
+
+import java.util.Set;
+
+/**
+ * Listener notified after plant rows have been changed and committed.
+ */
+@FunctionalInterface
+public interface PlantChangeListener {
+    
+    /**
+     * Called after a committed change to plants
+     * @param plantIds IDs of the changed plants, or null if any plant may have changed
+     */
+    void plantsChanged(Set<String> plantIds);
+}
+
@@ -0,0 +1,49 @@
+package com.greenthumb.dao;
+
+import java.sql.Timestamp;
+import java.util.Objects;
+
+/**
+ * Cheap fingerprint of the plants table: the latest updated_at and the row count.
+ * A changed marker means plants were inserted, updated or deleted.
+ */
+public class PlantChangeMarker {
+    private final Timestamp lastUpdated;
+    private final long rowCount;
+
+    public PlantChangeMarker(Timestamp lastUpdated, long rowCount) {
+        this.lastUpdated = lastUpdated;
+        this.rowCount = rowCount;
+    }
+
+    /**
+     * Get the latest updated_at value
+     * @return Latest update time, or null if the table is empty
+     */
+    public Timestamp getLastUpdated() {
+        return lastUpdated;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+        PlantChangeMarker other = (PlantChangeMarker) obj;
+        return rowCount == other.rowCount && Objects.equals(lastUpdated, other.lastUpdated);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(lastUpdated, rowCount);
+    }
+
+    @Override
+    public String toString() {
+        return "PlantChangeMarker{lastUpdated=" + lastUpdated + ", rowCount=" + rowCount + '}';
+    }
+}
+
@@ -0,0 +1,58 @@
+package com.greenthumb.dao;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Registry of PlantChangeListeners. DAOs that write plant rows report the change
+ * here; listeners are notified once the surrounding transaction commits, or right
+ * away when there is no transaction.
+ */
+public final class PlantChangeNotifier {
+    private static final List<PlantChangeListener> listeners = new CopyOnWriteArrayList<>();
+
+    // Utility class
+    private PlantChangeNotifier() {}
+
+    public static void addListener(PlantChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    public static void removeListener(PlantChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Report changed plants
+     * @param plantIds IDs of the changed plants
+     */
+    public static void firePlantsChanged(Collection<String> plantIds) {
+        if (plantIds.isEmpty()) {
+            return;
+        }
+        Set<String> changed = Collections.unmodifiableSet(new LinkedHashSet<>(plantIds));
+        TransactionManager.afterCommit(() -> notifyListeners(changed));
+    }
+
+    /**
+     * Report that any plant may have changed (e.g. after a bulk import)
+     */
+    public static void fireAllPlantsChanged() {
+        TransactionManager.afterCommit(() -> notifyListeners(null));
+    }
+
+    private static void notifyListeners(Set<String> plantIds) {
+        for (PlantChangeListener listener : listeners) {
+            try {
+                listener.plantsChanged(plantIds);
+            } catch (RuntimeException e) {
+                System.err.println("Error notifying plant change listener: " + e.getMessage());
+            }
+        }
+    }
+}
+
@@ -1,7 +1,10 @@
 package com.greenthumb.dao;
 
 import com.greenthumb.model.Plant;
+import java.sql.Timestamp;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Data Access Object interface for Plant entity.
@@ -16,6 +19,13 @@ public interface PlantDAO {
      */
     boolean createPlant(Plant plant);
     
+    /**
+     * Insert or update plants in batches, keyed by plant ID
+     * @param plants Plants to insert or update
+     * @return Number of plants written, or -1 if a batch failed
+     */
+    int upsertPlants(Iterable<Plant> plants);
+    
     /**
      * Retrieve plant by plant ID
      * @param plantId Plant ID to search for
@@ -23,6 +33,13 @@ public interface PlantDAO {
      */
     Plant getPlantById(String plantId);
     
+    /**
+     * Retrieve several plants by plant ID in as few queries as possible
+     * @param plantIds Plant IDs to look up (duplicates are ignored)
+     * @return Map from plant ID to plant; IDs that were not found are absent
+     */
+    Map<String, Plant> getPlantsByIds(Collection<String> plantIds);
+    
     /**
      * Update existing plant information
      * @param plant Plant object with updated information
@@ -61,7 +78,7 @@ public interface PlantDAO {
      * Search plants by price range
      * @param minPrice Minimum price
      * @param maxPrice Maximum price
-     * @return List of plants within price range
+     * @return List of plants within price range, cheapest first
      */
     List<Plant> searchPlantsByPriceRange(double minPrice, double maxPrice);
     
@@ -95,5 +112,18 @@ public interface PlantDAO {
      * @return List of plants matching criteria
      */
     List<Plant> searchPlants(String name, String type, Double minPrice, Double maxPrice);
+    
+    /**
+     * Get the change marker of the plants table (latest updated_at and row count)
+     * @return Change marker, or null if the query failed
+     */
+    PlantChangeMarker getChangeMarker();
+    
+    /**
+     * Get plants updated at or after a point in time
+     * @param since Lower bound on updated_at (inclusive)
+     * @return List of changed plants, or null if the query failed
+     */
+    List<Plant> getPlantsUpdatedSince(Timestamp since);
 }
 
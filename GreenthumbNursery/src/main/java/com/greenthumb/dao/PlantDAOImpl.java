@@ -5,7 +5,12 @@ import com.greenthumb.util.DBConnection;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Implementation of PlantDAO interface for database operations.
@@ -13,6 +18,14 @@ import java.util.List;
  */
 public class PlantDAOImpl implements PlantDAO {
 
+    // Rows sent per executeBatch() call in upsertPlants
+    private static final int UPSERT_BATCH_SIZE = 500;
+
+    // IN-list sizes used by getPlantsByIds. Lists are padded up to the next size so
+    // only a handful of distinct statements reach the prepared statement cache.
+    private static final int[] IN_LIST_SIZES = {1, 4, 16, 64, 128, 256, 500};
+    private static final int MAX_IN_LIST_SIZE = IN_LIST_SIZES[IN_LIST_SIZES.length - 1];
+
     @Override
     public boolean createPlant(Plant plant) {
         String sql = "INSERT INTO plants (plant_id, name, type, price, quantity, description) VALUES (?, ?, ?, ?, ?, ?)";
@@ -28,6 +41,9 @@ public class PlantDAOImpl implements PlantDAO {
             pstmt.setString(6, plant.getDescription());
             
             int rowsAffected = pstmt.executeUpdate();
+            if (rowsAffected > 0) {
+                PlantChangeNotifier.firePlantsChanged(Collections.singleton(plant.getPlantId()));
+            }
             return rowsAffected > 0;
             
         } catch (SQLException e) {
@@ -36,6 +52,47 @@ public class PlantDAOImpl implements PlantDAO {
         }
     }
 
+    @Override
+    public int upsertPlants(Iterable<Plant> plants) {
+        String sql = "INSERT INTO plants (plant_id, name, type, price, quantity, description) VALUES (?, ?, ?, ?, ?, ?) " +
+                    "ON DUPLICATE KEY UPDATE name = VALUES(name), type = VALUES(type), price = VALUES(price), " +
+                    "quantity = VALUES(quantity), description = VALUES(description)";
+        int written = 0;
+        
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
+            int pending = 0;
+            for (Plant plant : plants) {
+                pstmt.setString(1, plant.getPlantId());
+                pstmt.setString(2, plant.getName());
+                pstmt.setString(3, plant.getType());
+                pstmt.setDouble(4, plant.getPrice());
+                pstmt.setInt(5, plant.getQuantity());
+                pstmt.setString(6, plant.getDescription());
+                pstmt.addBatch();
+                
+                if (++pending == UPSERT_BATCH_SIZE) {
+                    pstmt.executeBatch();
+                    written += pending;
+                    pending = 0;
+                }
+            }
+            if (pending > 0) {
+                pstmt.executeBatch();
+                written += pending;
+            }
+            if (written > 0) {
+                PlantChangeNotifier.fireAllPlantsChanged();
+            }
+            return written;
+            
+        } catch (SQLException e) {
+            System.err.println("Error upserting plants after " + written + " rows: " + e.getMessage());
+            return -1;
+        }
+    }
+
     @Override
     public Plant getPlantById(String plantId) {
         String sql = "SELECT * FROM plants WHERE plant_id = ?";
@@ -57,6 +114,60 @@ public class PlantDAOImpl implements PlantDAO {
         return null;
     }
 
+    @Override
+    public Map<String, Plant> getPlantsByIds(Collection<String> plantIds) {
+        Map<String, Plant> plants = new HashMap<>();
+        List<String> ids = new ArrayList<>(new LinkedHashSet<>(plantIds));
+        if (ids.isEmpty()) {
+            return plants;
+        }
+        
+        try (Connection conn = DBConnection.getConnection()) {
+            for (int from = 0; from < ids.size(); from += MAX_IN_LIST_SIZE) {
+                List<String> chunk = ids.subList(from, Math.min(from + MAX_IN_LIST_SIZE, ids.size()));
+                int listSize = inListSize(chunk.size());
+                
+                StringBuilder sql = new StringBuilder("SELECT * FROM plants WHERE plant_id IN (?");
+                for (int i = 1; i < listSize; i++) {
+                    sql.append(", ?");
+                }
+                sql.append(')');
+                
+                try (PreparedStatement pstmt = conn.prepareStatement(sql.toString())) {
+                    for (int i = 0; i < listSize; i++) {
+                        // Padding slots repeat the last ID, which does not change the result
+                        pstmt.setString(i + 1, chunk.get(Math.min(i, chunk.size() - 1)));
+                    }
+                    ResultSet rs = pstmt.executeQuery();
+                    
+                    while (rs.next()) {
+                        Plant plant = createPlantFromResultSet(rs);
+                        plants.put(plant.getPlantId(), plant);
+                    }
+                }
+            }
+            
+        } catch (SQLException e) {
+            System.err.println("Error retrieving plants by IDs: " + e.getMessage());
+        }
+        
+        return plants;
+    }
+
+    /**
+     * Round an IN-list length up to the next padded size
+     * @param count Number of IDs in the chunk
+     * @return Number of placeholders to use
+     */
+    private static int inListSize(int count) {
+        for (int size : IN_LIST_SIZES) {
+            if (count <= size) {
+                return size;
+            }
+        }
+        return MAX_IN_LIST_SIZE;
+    }
+
     @Override
     public boolean updatePlant(Plant plant) {
         String sql = "UPDATE plants SET name = ?, type = ?, price = ?, quantity = ?, description = ? WHERE plant_id = ?";
@@ -72,6 +183,9 @@ public class PlantDAOImpl implements PlantDAO {
             pstmt.setString(6, plant.getPlantId());
             
             int rowsAffected = pstmt.executeUpdate();
+            if (rowsAffected > 0) {
+                PlantChangeNotifier.firePlantsChanged(Collections.singleton(plant.getPlantId()));
+            }
             return rowsAffected > 0;
             
         } catch (SQLException e) {
@@ -90,6 +204,9 @@ public class PlantDAOImpl implements PlantDAO {
             pstmt.setString(1, plantId);
             
             int rowsAffected = pstmt.executeUpdate();
+            if (rowsAffected > 0) {
+                PlantChangeNotifier.firePlantsChanged(Collections.singleton(plantId));
+            }
             return rowsAffected > 0;
             
         } catch (SQLException e) {
@@ -174,7 +291,7 @@ public class PlantDAOImpl implements PlantDAO {
     @Override
     public List<Plant> searchPlantsByPriceRange(double minPrice, double maxPrice) {
         List<Plant> plants = new ArrayList<>();
-        String sql = "SELECT * FROM plants WHERE price BETWEEN ? AND ?";
+        String sql = "SELECT * FROM plants WHERE price BETWEEN ? AND ? ORDER BY price, plant_id";
         
         try (Connection conn = DBConnection.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
@@ -233,6 +350,9 @@ public class PlantDAOImpl implements PlantDAO {
             pstmt.setString(2, plantId);
             
             int rowsAffected = pstmt.executeUpdate();
+            if (rowsAffected > 0) {
+                PlantChangeNotifier.firePlantsChanged(Collections.singleton(plantId));
+            }
             return rowsAffected > 0;
             
         } catch (SQLException e) {
@@ -313,6 +433,48 @@ public class PlantDAOImpl implements PlantDAO {
         return plants;
     }
 
+    @Override
+    public PlantChangeMarker getChangeMarker() {
+        String sql = "SELECT MAX(updated_at), COUNT(*) FROM plants";
+        
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
+            ResultSet rs = pstmt.executeQuery();
+            if (rs.next()) {
+                return new PlantChangeMarker(rs.getTimestamp(1), rs.getLong(2));
+            }
+            
+        } catch (SQLException e) {
+            System.err.println("Error retrieving plant change marker: " + e.getMessage());
+        }
+        
+        return null;
+    }
+
+    @Override
+    public List<Plant> getPlantsUpdatedSince(Timestamp since) {
+        List<Plant> plants = new ArrayList<>();
+        String sql = "SELECT * FROM plants WHERE updated_at >= ?";
+        
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
+            pstmt.setTimestamp(1, since);
+            ResultSet rs = pstmt.executeQuery();
+            
+            while (rs.next()) {
+                plants.add(createPlantFromResultSet(rs));
+            }
+            
+        } catch (SQLException e) {
+            System.err.println("Error retrieving updated plants: " + e.getMessage());
+            return null;
+        }
+        
+        return plants;
+    }
+
     /**
      * Helper method to create Plant object from ResultSet
      * @param rs ResultSet containing plant data
@@ -0,0 +1,119 @@
+package com.greenthumb.dao;
+
+import com.greenthumb.model.Order;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Aggregated order counts and revenue for a date range, built from one
+ * GROUP BY (day, status) query. Revenue excludes cancelled orders.
+ */
+public class SalesSummary {
+    private final int recentDays;
+    private long totalOrders;
+    private long recentCount;
+    private double totalRevenue;
+    private final Map<String, Long> orderCountsByStatus = new LinkedHashMap<>();
+    private final Map<String, Double> amountsByStatus = new LinkedHashMap<>();
+    private final SortedMap<LocalDate, DailySales> dailySales = new TreeMap<>();
+
+    SalesSummary(int recentDays) {
+        this.recentDays = recentDays;
+    }
+
+    /**
+     * Add one (day, status) group from the aggregate query
+     * @param day Order day
+     * @param status Order status
+     * @param orderCount Number of orders in the group
+     * @param amount Sum of order totals in the group
+     * @param groupRecentCount Number of orders in the group placed within the last recentDays days
+     */
+    void addGroup(LocalDate day, String status, long orderCount, double amount, long groupRecentCount) {
+        boolean countsAsRevenue = !Order.STATUS_CANCELLED.equals(status);
+        totalOrders += orderCount;
+        recentCount += groupRecentCount;
+        if (countsAsRevenue) {
+            totalRevenue += amount;
+        }
+        orderCountsByStatus.merge(status, orderCount, Long::sum);
+        amountsByStatus.merge(status, amount, Double::sum);
+
+        DailySales daily = dailySales.computeIfAbsent(day, d -> new DailySales());
+        daily.orderCount += orderCount;
+        if (countsAsRevenue) {
+            daily.revenue += amount;
+        }
+    }
+
+    public long getTotalOrders() {
+        return totalOrders;
+    }
+
+    /**
+     * Get revenue of all orders that were not cancelled
+     * @return Total revenue
+     */
+    public double getTotalRevenue() {
+        return totalRevenue;
+    }
+
+    /**
+     * Get number of orders per status
+     * @return Map from status to order count
+     */
+    public Map<String, Long> getOrderCountsByStatus() {
+        return Collections.unmodifiableMap(orderCountsByStatus);
+    }
+
+    /**
+     * Get sum of order totals per status (including cancelled orders)
+     * @return Map from status to amount
+     */
+    public Map<String, Double> getAmountsByStatus() {
+        return Collections.unmodifiableMap(amountsByStatus);
+    }
+
+    /**
+     * Get order count and revenue per day, oldest first
+     * @return Map from day to daily sales
+     */
+    public SortedMap<LocalDate, DailySales> getDailySales() {
+        return Collections.unmodifiableSortedMap(dailySales);
+    }
+
+    /**
+     * Get number of orders placed within the last getRecentDays() days, counted by the
+     * database against its own clock
+     * @return Recent order count
+     */
+    public long getRecentCount() {
+        return recentCount;
+    }
+
+    public int getRecentDays() {
+        return recentDays;
+    }
+
+    /**
+     * Order count and revenue for one day
+     */
+    public static class DailySales {
+        private long orderCount;
+        private double revenue;
+
+        public long getOrderCount() {
+            return orderCount;
+        }
+
+        public double getRevenue() {
+            return revenue;
+        }
+    }
+}
+
@@ -0,0 +1,102 @@
+package com.greenthumb.dao;
+
+import com.greenthumb.util.DBConnection;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs a group of DAO calls as one database transaction.
+ * All DAO calls made inside the unit of work share the same connection and
+ * are committed together; if the unit of work throws, everything is rolled back.
+ * Nested calls join the outer transaction.
+ */
+public final class TransactionManager {
+
+    // Callbacks to run once the current thread's transaction commits
+    private static final ThreadLocal<List<Runnable>> afterCommitActions = new ThreadLocal<>();
+
+    // Utility class
+    private TransactionManager() {}
+
+    /**
+     * Work executed inside a transaction
+     * @param <T> Result type
+     */
+    @FunctionalInterface
+    public interface UnitOfWork<T> {
+        T execute() throws SQLException;
+    }
+
+    /**
+     * Execute work in a transaction, committing on success and rolling back on failure
+     * @param work Unit of work; throw SQLException to force a rollback
+     * @param <T> Result type
+     * @return Result of the unit of work
+     * @throws SQLException if the work fails or the transaction cannot be committed
+     */
+    public static <T> T inTransaction(UnitOfWork<T> work) throws SQLException {
+        if (DBConnection.isInTransaction()) {
+            return work.execute();
+        }
+
+        DBConnection.beginTransaction();
+        afterCommitActions.set(new ArrayList<>());
+        T result;
+        List<Runnable> actions;
+        try {
+            try {
+                result = work.execute();
+            } catch (SQLException | RuntimeException | Error e) {
+                rollbackQuietly(e);
+                throw e;
+            }
+            DBConnection.endTransaction(true);
+            actions = afterCommitActions.get();
+        } finally {
+            afterCommitActions.remove();
+        }
+
+        for (Runnable action : actions) {
+            try {
+                action.run();
+            } catch (RuntimeException e) {
+                System.err.println("Error running after-commit action: " + e.getMessage());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Run an action after the current transaction commits, or right away if no
+     * transaction is active. Actions registered in a transaction that rolls back are dropped.
+     * @param action Action to run
+     */
+    public static void afterCommit(Runnable action) {
+        List<Runnable> actions = afterCommitActions.get();
+        if (actions != null) {
+            actions.add(action);
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Check if the current thread is running inside a transaction
+     * @return true if a transaction is active, false otherwise
+     */
+    public static boolean isActive() {
+        return DBConnection.isInTransaction();
+    }
+
+    private static void rollbackQuietly(Throwable cause) {
+        try {
+            DBConnection.endTransaction(false);
+        } catch (SQLException e) {
+            cause.addSuppressed(e);
+            System.err.println("Error rolling back transaction: " + e.getMessage());
+        }
+    }
+}
+
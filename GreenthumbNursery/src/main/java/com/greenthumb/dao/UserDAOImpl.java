@@ -16,6 +16,12 @@ import java.util.List;
  */
 public class UserDAOImpl implements UserDAO {
 
+    // Users with their customer details in one round trip; customer columns are null for non-customers
+    private static final String SELECT_USERS =
+            "SELECT u.user_id, u.username, u.password, u.role, " +
+            "c.customer_id AS c_customer_id, c.address AS c_address, c.phone AS c_phone " +
+            "FROM users u LEFT JOIN customers c ON c.user_id = u.user_id";
+
     @Override
     public boolean createUser(User user) {
         String sql = "INSERT INTO users (user_id, username, password, role) VALUES (?, ?, ?, ?)";
@@ -39,7 +45,7 @@ public class UserDAOImpl implements UserDAO {
 
     @Override
     public User getUserById(String userId) {
-        String sql = "SELECT * FROM users WHERE user_id = ?";
+        String sql = SELECT_USERS + " WHERE u.user_id = ?";
         
         try (Connection conn = DBConnection.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
@@ -60,7 +66,7 @@ public class UserDAOImpl implements UserDAO {
 
     @Override
     public User getUserByUsername(String username) {
-        String sql = "SELECT * FROM users WHERE username = ?";
+        String sql = SELECT_USERS + " WHERE u.username = ?";
         
         try (Connection conn = DBConnection.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
@@ -121,7 +127,7 @@ public class UserDAOImpl implements UserDAO {
     @Override
     public List<User> getAllUsers() {
         List<User> users = new ArrayList<>();
-        String sql = "SELECT * FROM users";
+        String sql = SELECT_USERS;
         
         try (Connection conn = DBConnection.getConnection();
              Statement stmt = conn.createStatement();
@@ -144,7 +150,7 @@ public class UserDAOImpl implements UserDAO {
     @Override
     public List<User> getUsersByRole(String role) {
         List<User> users = new ArrayList<>();
-        String sql = "SELECT * FROM users WHERE role = ?";
+        String sql = SELECT_USERS + " WHERE u.role = ?";
         
         try (Connection conn = DBConnection.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
@@ -168,7 +174,7 @@ public class UserDAOImpl implements UserDAO {
 
     @Override
     public User authenticateUser(String username, String password) {
-        String sql = "SELECT * FROM users WHERE username = ? AND password = ?";
+        String sql = SELECT_USERS + " WHERE u.username = ? AND u.password = ?";
         
         try (Connection conn = DBConnection.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
@@ -229,8 +235,8 @@ public class UserDAOImpl implements UserDAO {
     }
 
     /**
-     * Helper method to create User object from ResultSet
-     * @param rs ResultSet containing user data
+     * Helper method to create User object from a SELECT_USERS row
+     * @param rs ResultSet containing user data joined with customer details
      * @return User object (Admin, Staff, or Customer based on role)
      * @throws SQLException if error reading from ResultSet
      */
@@ -247,45 +253,13 @@ public class UserDAOImpl implements UserDAO {
             case "Staff":
                 return new Staff(userId, username, password);
             case "Customer":
-                // For customers, we need to get additional info from customers table
-                return getCustomerDetails(userId, username, password);
+                // Customer details come from the joined customers row (all null if there is none)
+                return new Customer(userId, username, password,
+                        rs.getString("c_customer_id"), rs.getString("c_address"), rs.getString("c_phone"));
             default:
                 System.err.println("Unknown user role: " + role);
                 return null;
         }
     }
-
-    /**
-     * Helper method to get customer details from customers table
-     * @param userId User ID
-     * @param username Username
-     * @param password Password
-     * @return Customer object with complete details
-     */
-    private Customer getCustomerDetails(String userId, String username, String password) {
-        String sql = "SELECT * FROM customers WHERE user_id = ?";
-        
-        try (Connection conn = DBConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setString(1, userId);
-            ResultSet rs = pstmt.executeQuery();
-            
-            if (rs.next()) {
-                String customerId = rs.getString("customer_id");
-                String address = rs.getString("address");
-                String phone = rs.getString("phone");
-                
-                return new Customer(userId, username, password, customerId, address, phone);
-            } else {
-                // If no customer details found, create basic customer
-                return new Customer(userId, username, password, null, null, null);
-            }
-            
-        } catch (SQLException e) {
-            System.err.println("Error retrieving customer details: " + e.getMessage());
-            return new Customer(userId, username, password, null, null, null);
-        }
-    }
 }
 
@@ -0,0 +1,462 @@
+package com.greenthumb.util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded JDBC connection pool backing DBConnection.getConnection().
+ * Connections are handed out as leased proxies: calling close() on a lease
+ * returns the physical connection to the pool instead of closing it, so the
+ * try-with-resources blocks in the DAO layer no longer pay a MySQL handshake
+ * on every call.
+ *
+ * The pool keeps between minSize and maxSize physical connections, validates
+ * connections when they are borrowed, evicts connections that sat idle for
+ * longer than the idle timeout and retires connections older than the
+ * maximum lifetime.
+ *
+ * Each physical connection carries a StatementCache, so repeated
+ * prepareStatement(sql) calls with the same SQL text reuse the statement
+ * prepared on an earlier lease.
+ */
+public class ConnectionPool {
+    // Connections used within this window are handed out without a ping
+    private static final long VALIDATION_BYPASS_MILLIS = 500;
+    private static final long HOUSEKEEPING_INTERVAL_MILLIS = 30_000;
+
+    private final String url;
+    private final String username;
+    private final String password;
+    private final int minSize;
+    private final int maxSize;
+    private final long idleTimeoutMillis;
+    private final long maxLifetimeMillis;
+    private final long borrowTimeoutMillis;
+    private final int validationTimeoutSeconds;
+    private final int statementCacheSize;
+    private final StatementCache.Statistics statementCacheStatistics = new StatementCache.Statistics();
+
+    // Most recently returned connections are kept at the head (LIFO reuse)
+    private final LinkedBlockingDeque<PooledConnection> idleConnections = new LinkedBlockingDeque<>();
+    private final Semaphore leasePermits;
+    private final AtomicInteger totalConnections = new AtomicInteger();
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed = false;
+
+    /**
+     * Create a new connection pool and open the minimum number of connections
+     * @param url JDBC URL
+     * @param username Database username
+     * @param password Database password
+     * @param minSize Number of connections kept open even when idle
+     * @param maxSize Maximum number of physical connections
+     * @param idleTimeoutMillis Idle time after which surplus connections are closed
+     * @param maxLifetimeMillis Age after which a connection is retired
+     * @param borrowTimeoutMillis Maximum time to wait for a free connection
+     * @param validationTimeoutSeconds Timeout for the validation ping on borrow
+     * @param statementCacheSize Prepared statements cached per connection (0 disables caching)
+     */
+    public ConnectionPool(String url, String username, String password, int minSize, int maxSize,
+                          long idleTimeoutMillis, long maxLifetimeMillis, long borrowTimeoutMillis,
+                          int validationTimeoutSeconds, int statementCacheSize) {
+        if (minSize < 0 || maxSize < 1 || minSize > maxSize) {
+            throw new IllegalArgumentException("Invalid pool size: min=" + minSize + ", max=" + maxSize);
+        }
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.maxLifetimeMillis = maxLifetimeMillis;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+        this.statementCacheSize = statementCacheSize;
+        this.leasePermits = new Semaphore(maxSize, true);
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "greenthumb-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.housekeeper.scheduleWithFixedDelay(this::housekeep, HOUSEKEEPING_INTERVAL_MILLIS,
+                HOUSEKEEPING_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        fillToMinimum();
+    }
+
+    /**
+     * Borrow a connection from the pool. The returned connection must be closed
+     * to hand it back; closing it does not close the underlying connection.
+     * @return Leased connection
+     * @throws SQLException if no connection becomes available or connecting fails
+     */
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool has been shut down");
+        }
+
+        long deadline = System.currentTimeMillis() + borrowTimeoutMillis;
+        try {
+            if (!leasePermits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new SQLException("Timed out after " + borrowTimeoutMillis + " ms waiting for a database connection");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+
+        try {
+            PooledConnection pooled = acquirePhysical(deadline);
+            pooled.markLeased();
+            return (Connection) Proxy.newProxyInstance(
+                    ConnectionPool.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    new Lease(this, pooled));
+        } catch (SQLException | RuntimeException e) {
+            leasePermits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Close all idle connections and refuse further borrowing.
+     * Connections still leased are closed as they are returned.
+     */
+    public void shutdown() {
+        closed = true;
+        housekeeper.shutdownNow();
+        PooledConnection pooled;
+        while ((pooled = idleConnections.pollFirst()) != null) {
+            discard(pooled);
+        }
+    }
+
+    /**
+     * Check whether the pool has been shut down
+     * @return true if shut down, false otherwise
+     */
+    public boolean isShutdown() {
+        return closed;
+    }
+
+    /**
+     * Get number of physical connections currently open
+     * @return Open connection count
+     */
+    public int getTotalConnections() {
+        return totalConnections.get();
+    }
+
+    /**
+     * Get number of open connections waiting in the pool
+     * @return Idle connection count
+     */
+    public int getIdleConnections() {
+        return idleConnections.size();
+    }
+
+    /**
+     * Get number of connections currently leased to callers
+     * @return Active connection count
+     */
+    public int getActiveConnections() {
+        return maxSize - leasePermits.availablePermits();
+    }
+
+    /**
+     * Get prepared statement cache counters aggregated over all connections
+     * @return Statement cache statistics
+     */
+    public StatementCache.Statistics getStatementCacheStatistics() {
+        return statementCacheStatistics;
+    }
+
+    @Override
+    public String toString() {
+        return "ConnectionPool{" +
+                "active=" + getActiveConnections() +
+                ", idle=" + getIdleConnections() +
+                ", total=" + getTotalConnections() +
+                ", max=" + maxSize +
+                ", " + statementCacheStatistics +
+                '}';
+    }
+
+    /**
+     * Take an idle connection or open a new one. The caller holds a lease permit,
+     * so when the pool is at capacity a connection is on its way back to the pool.
+     */
+    private PooledConnection acquirePhysical(long deadline) throws SQLException {
+        while (true) {
+            PooledConnection pooled = idleConnections.pollFirst();
+            if (pooled != null) {
+                if (isUsable(pooled)) {
+                    return pooled;
+                }
+                discard(pooled);
+                continue;
+            }
+
+            int total = totalConnections.get();
+            if (total < maxSize) {
+                if (totalConnections.compareAndSet(total, total + 1)) {
+                    return openConnection();
+                }
+                continue;
+            }
+
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                throw new SQLException("Timed out waiting for a database connection");
+            }
+            try {
+                pooled = idleConnections.pollFirst(remaining, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted while waiting for a database connection", e);
+            }
+            if (pooled != null) {
+                if (isUsable(pooled)) {
+                    return pooled;
+                }
+                discard(pooled);
+            }
+        }
+    }
+
+    /**
+     * Open a physical connection. The caller must already have counted it in totalConnections.
+     */
+    private PooledConnection openConnection() throws SQLException {
+        try {
+            Connection physical = DriverManager.getConnection(url, username, password);
+            return new PooledConnection(physical,
+                    new StatementCache(physical, statementCacheSize, statementCacheStatistics));
+        } catch (SQLException | RuntimeException e) {
+            totalConnections.decrementAndGet();
+            throw e;
+        }
+    }
+
+    /**
+     * Validate a connection taken from the idle list
+     */
+    private boolean isUsable(PooledConnection pooled) {
+        long now = System.currentTimeMillis();
+        if (now - pooled.createdAt > maxLifetimeMillis) {
+            return false;
+        }
+        if (now - pooled.lastUsedAt < VALIDATION_BYPASS_MILLIS) {
+            return true;
+        }
+        try {
+            return pooled.physical.isValid(validationTimeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Return a leased connection to the pool
+     */
+    void release(PooledConnection pooled) {
+        try {
+            long now = System.currentTimeMillis();
+            if (closed || pooled.broken || now - pooled.createdAt > maxLifetimeMillis || !resetState(pooled)) {
+                discard(pooled);
+            } else {
+                pooled.lastUsedAt = now;
+                idleConnections.offerFirst(pooled);
+            }
+        } finally {
+            leasePermits.release();
+        }
+    }
+
+    /**
+     * Undo per-lease state so the next borrower gets a clean connection
+     * @return true if the connection can be reused, false otherwise
+     */
+    private boolean resetState(PooledConnection pooled) {
+        try {
+            Connection physical = pooled.physical;
+            if (physical.isClosed()) {
+                return false;
+            }
+            if (!physical.getAutoCommit()) {
+                physical.rollback();
+                physical.setAutoCommit(true);
+            }
+            physical.clearWarnings();
+            return true;
+        } catch (SQLException e) {
+            System.err.println("Discarding pooled connection after reset failure: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Close a physical connection and drop it from the pool count
+     */
+    private void discard(PooledConnection pooled) {
+        totalConnections.decrementAndGet();
+        try {
+            pooled.physical.close();
+        } catch (SQLException e) {
+            System.err.println("Error closing pooled connection: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Periodic maintenance: retire old connections, evict idle surplus and refill to minimum
+     */
+    private void housekeep() {
+        try {
+            long now = System.currentTimeMillis();
+            Iterator<PooledConnection> iterator = idleConnections.descendingIterator();
+            while (iterator.hasNext()) {
+                PooledConnection pooled = iterator.next();
+                boolean expired = now - pooled.createdAt > maxLifetimeMillis;
+                boolean idleTooLong = now - pooled.lastUsedAt > idleTimeoutMillis
+                        && totalConnections.get() > minSize;
+                if ((expired || idleTooLong) && idleConnections.removeFirstOccurrence(pooled)) {
+                    discard(pooled);
+                }
+            }
+            fillToMinimum();
+        } catch (RuntimeException e) {
+            System.err.println("Connection pool housekeeping failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Open idle connections until the pool holds minSize connections
+     */
+    private void fillToMinimum() {
+        while (!closed) {
+            int total = totalConnections.get();
+            if (total >= minSize) {
+                return;
+            }
+            if (!totalConnections.compareAndSet(total, total + 1)) {
+                continue;
+            }
+            try {
+                PooledConnection pooled = openConnection();
+                idleConnections.offerLast(pooled);
+            } catch (SQLException e) {
+                System.err.println("Could not open pooled connection: " + e.getMessage());
+                return;
+            }
+        }
+    }
+
+    /**
+     * Physical connection with pool bookkeeping
+     */
+    static class PooledConnection {
+        final Connection physical;
+        final StatementCache statementCache;
+        final long createdAt;
+        volatile long lastUsedAt;
+        volatile boolean broken = false;
+
+        PooledConnection(Connection physical, StatementCache statementCache) {
+            this.physical = physical;
+            this.statementCache = statementCache;
+            this.createdAt = System.currentTimeMillis();
+            this.lastUsedAt = this.createdAt;
+        }
+
+        void markLeased() {
+            broken = false;
+        }
+    }
+
+    /**
+     * One borrowing of a pooled connection; invocation handler behind the leased proxy.
+     * close() hands the connection back; any use after that fails.
+     */
+    static class Lease implements InvocationHandler {
+        private final ConnectionPool pool;
+        private final PooledConnection pooled;
+        private volatile boolean returned = false;
+
+        Lease(ConnectionPool pool, PooledConnection pooled) {
+            this.pool = pool;
+            this.pooled = pooled;
+        }
+
+        /**
+         * Check whether the connection is still held by this lease
+         * @return true until the leased connection is closed
+         */
+        boolean isActive() {
+            return !returned;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "close":
+                    if (!returned) {
+                        returned = true;
+                        pool.release(pooled);
+                    }
+                    return null;
+                case "isClosed":
+                    return returned || pooled.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "LeasedConnection[" + pooled.physical + (returned ? ", returned" : "") + "]";
+                case "abort":
+                    pooled.broken = true;
+                    break;
+                default:
+                    break;
+            }
+
+            if (returned) {
+                throw new SQLException("Connection has already been returned to the pool");
+            }
+
+            if (name.equals("prepareStatement") && args.length == 1) {
+                return pooled.statementCache.prepare((String) args[0], (Connection) proxy, this);
+            }
+
+            try {
+                return method.invoke(pooled.physical, args);
+            } catch (InvocationTargetException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof SQLException && isConnectionFailure((SQLException) cause)) {
+                    pooled.broken = true;
+                }
+                throw cause;
+            }
+        }
+
+        /**
+         * SQL state class 08 marks a broken connection that must not be reused
+         */
+        private static boolean isConnectionFailure(SQLException e) {
+            String state = e.getSQLState();
+            return state != null && state.startsWith("08");
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.greenthumb.util;
 
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
@@ -7,56 +9,156 @@ import java.sql.SQLException;
 /**
  * Database connection utility class for Greenthumb Nursery application.
  * Implements Singleton pattern for database connection management.
+ * Connections are served from a bounded ConnectionPool; closing a connection
+ * obtained from getConnection() returns it to the pool.
+ *
+ * While a transaction is bound to the current thread (see beginTransaction()),
+ * getConnection() hands out that transaction's connection instead, so DAO calls
+ * made inside the transaction share one connection and one commit.
  */
 public class DBConnection {
-    private static final String URL = "jdbc:mysql://localhost:3306/greenthumb_nursery";
+    // Server-side prepared statements make the per-connection statement cache pay off;
+    // rewriteBatchedStatements turns executeBatch() inserts into multi-row INSERTs
+    private static final String URL = "jdbc:mysql://localhost:3306/greenthumb_nursery"
+            + "?useServerPrepStmts=true&rewriteBatchedStatements=true";
     private static final String USERNAME = "root";
     private static final String PASSWORD = "highscore38"; 
     private static final String DRIVER = "com.mysql.cj.jdbc.Driver";
     
-    private static Connection connection = null;
+    // Connection pool settings
+    private static final int POOL_MIN_SIZE = 2;
+    private static final int POOL_MAX_SIZE = 10;
+    private static final long POOL_IDLE_TIMEOUT_MILLIS = 10 * 60 * 1000L;
+    private static final long POOL_MAX_LIFETIME_MILLIS = 30 * 60 * 1000L;
+    private static final long POOL_BORROW_TIMEOUT_MILLIS = 30 * 1000L;
+    private static final int POOL_VALIDATION_TIMEOUT_SECONDS = 5;
+    private static final int STATEMENT_CACHE_SIZE = 64;
+    
+    private static ConnectionPool pool = null;
+    private static final ThreadLocal<Connection> transactionConnection = new ThreadLocal<>();
 
     // Private constructor to prevent instantiation (Singleton pattern)
     private DBConnection() {}
 
     /**
-     * Get database connection instance
+     * Get database connection from the connection pool.
+     * Callers must close the connection to return it to the pool.
      * @return Connection object
      * @throws SQLException if connection fails
      */
     public static Connection getConnection() throws SQLException {
+        Connection bound = transactionConnection.get();
+        if (bound != null) {
+            return nonClosingView(bound);
+        }
         try {
-            // Load MySQL JDBC driver
-            Class.forName(DRIVER);
-            
-            // Create connection if it doesn't exist or is closed
-            if (connection == null || connection.isClosed()) {
-                connection = DriverManager.getConnection(URL, USERNAME, PASSWORD);
-                System.out.println("Database connection established successfully.");
+            return getPool().getConnection();
+        } catch (SQLException e) {
+            System.err.println("Failed to establish database connection: " + e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Get the connection pool, creating it on first use
+     * @return Connection pool
+     * @throws SQLException if the JDBC driver cannot be loaded
+     */
+    public static synchronized ConnectionPool getPool() throws SQLException {
+        if (pool == null || pool.isShutdown()) {
+            try {
+                // Load MySQL JDBC driver
+                Class.forName(DRIVER);
+            } catch (ClassNotFoundException e) {
+                System.err.println("MySQL JDBC Driver not found: " + e.getMessage());
+                throw new SQLException("Database driver not found", e);
             }
             
-            return connection;
-        } catch (ClassNotFoundException e) {
-            System.err.println("MySQL JDBC Driver not found: " + e.getMessage());
-            throw new SQLException("Database driver not found", e);
+            pool = new ConnectionPool(URL, USERNAME, PASSWORD, POOL_MIN_SIZE, POOL_MAX_SIZE,
+                    POOL_IDLE_TIMEOUT_MILLIS, POOL_MAX_LIFETIME_MILLIS, POOL_BORROW_TIMEOUT_MILLIS,
+                    POOL_VALIDATION_TIMEOUT_SECONDS, STATEMENT_CACHE_SIZE);
+            System.out.println("Database connection pool initialized.");
+        }
+        return pool;
+    }
+
+    /**
+     * Start a transaction bound to the current thread. Until endTransaction() is
+     * called, getConnection() on this thread returns the transaction's connection.
+     * @throws SQLException if a transaction is already active or no connection is available
+     */
+    public static void beginTransaction() throws SQLException {
+        if (transactionConnection.get() != null) {
+            throw new SQLException("A transaction is already active on this thread");
+        }
+        Connection conn = getConnection();
+        try {
+            conn.setAutoCommit(false);
         } catch (SQLException e) {
-            System.err.println("Failed to establish database connection: " + e.getMessage());
+            conn.close();
             throw e;
         }
+        transactionConnection.set(conn);
+    }
+
+    /**
+     * Check if a transaction is bound to the current thread
+     * @return true if a transaction is active, false otherwise
+     */
+    public static boolean isInTransaction() {
+        return transactionConnection.get() != null;
     }
 
     /**
-     * Close database connection
+     * Commit or roll back the current thread's transaction and return its connection to the pool
+     * @param commit true to commit, false to roll back
+     * @throws SQLException if commit or rollback fails (the connection is released either way)
      */
-    public static void closeConnection() {
+    public static void endTransaction(boolean commit) throws SQLException {
+        Connection conn = transactionConnection.get();
+        if (conn == null) {
+            throw new SQLException("No transaction is active on this thread");
+        }
+        transactionConnection.remove();
         try {
-            if (connection != null && !connection.isClosed()) {
-                connection.close();
-                connection = null;
-                System.out.println("Database connection closed successfully.");
+            if (commit) {
+                conn.commit();
+            } else {
+                conn.rollback();
             }
-        } catch (SQLException e) {
-            System.err.println("Error closing database connection: " + e.getMessage());
+        } finally {
+            // Pool release rolls back anything left uncommitted and restores auto-commit
+            conn.close();
+        }
+    }
+
+    /**
+     * Wrap the transaction connection so DAO try-with-resources blocks do not release it early
+     */
+    private static Connection nonClosingView(Connection conn) {
+        return (Connection) Proxy.newProxyInstance(
+                DBConnection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("close")) {
+                        return null;
+                    }
+                    try {
+                        return method.invoke(conn, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    /**
+     * Close database connection pool
+     */
+    public static synchronized void closeConnection() {
+        if (pool != null && !pool.isShutdown()) {
+            pool.shutdown();
+            pool = null;
+            System.out.println("Database connection pool closed successfully.");
         }
     }
 
@@ -65,9 +167,8 @@ public class DBConnection {
      * @return true if connection is successful, false otherwise
      */
     public static boolean testConnection() {
-        try {
-            Connection testConn = getConnection();
-            if (testConn != null && !testConn.isClosed()) {
+        try (Connection testConn = getConnection()) {
+            if (testConn != null && testConn.isValid(POOL_VALIDATION_TIMEOUT_SECONDS)) {
                 System.out.println("Database connection test successful.");
                 return true;
             }
@@ -99,12 +200,8 @@ public class DBConnection {
      * Check if connection is active
      * @return true if connection is active, false otherwise
      */
-    public static boolean isConnectionActive() {
-        try {
-            return connection != null && !connection.isClosed() && connection.isValid(5);
-        } catch (SQLException e) {
-            return false;
-        }
+    public static synchronized boolean isConnectionActive() {
+        return pool != null && !pool.isShutdown() && pool.getTotalConnections() > 0;
     }
 
     /**
@@ -0,0 +1,211 @@
+package com.greenthumb.util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded LRU cache of prepared statements for one pooled connection, keyed by SQL text.
+ * Statements are checked out while a caller uses them and checked back in when the
+ * caller closes them, with parameters and open results cleared. When the cache is
+ * full the least recently used statement is closed.
+ *
+ * A statement is only ever used by the thread holding the connection lease, so the
+ * cache itself is confined to that thread and needs no locking.
+ */
+public class StatementCache {
+    private final Connection physical;
+    private final int capacity;
+    private final Statistics statistics;
+    private final LinkedHashMap<String, PreparedStatement> idleStatements;
+
+    StatementCache(Connection physical, int capacity, Statistics statistics) {
+        this.physical = physical;
+        this.capacity = capacity;
+        this.statistics = statistics;
+        this.idleStatements = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Get a cached statement for the SQL text or prepare a new one
+     * @param sql SQL text
+     * @param connectionProxy Leased connection handed back from Statement.getConnection()
+     * @param lease Lease the statement is being used under
+     * @return Prepared statement proxy whose close() returns it to this cache
+     * @throws SQLException if preparing a new statement fails
+     */
+    PreparedStatement prepare(String sql, Connection connectionProxy, ConnectionPool.Lease lease) throws SQLException {
+        PreparedStatement statement = idleStatements.remove(sql);
+        if (statement != null) {
+            statistics.hits.incrementAndGet();
+        } else {
+            statistics.misses.incrementAndGet();
+            statement = physical.prepareStatement(sql);
+        }
+        return (PreparedStatement) Proxy.newProxyInstance(
+                StatementCache.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class},
+                new CachedStatementHandler(this, sql, statement, connectionProxy, lease));
+    }
+
+    /**
+     * Return a statement to the cache, evicting the least recently used entry if full
+     */
+    private void checkIn(String sql, PreparedStatement statement) {
+        if (capacity <= 0 || idleStatements.containsKey(sql)) {
+            // Same SQL was prepared twice within one lease; keep the cached copy
+            closeQuietly(statement);
+            return;
+        }
+        idleStatements.put(sql, statement);
+        if (idleStatements.size() > capacity) {
+            Iterator<Map.Entry<String, PreparedStatement>> eldest = idleStatements.entrySet().iterator();
+            closeQuietly(eldest.next().getValue());
+            eldest.remove();
+            statistics.evictions.incrementAndGet();
+        }
+    }
+
+    private static void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            System.err.println("Error closing cached statement: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Hit, miss and eviction counters shared by all statement caches of a pool
+     */
+    public static class Statistics {
+        private final AtomicLong hits = new AtomicLong();
+        private final AtomicLong misses = new AtomicLong();
+        private final AtomicLong evictions = new AtomicLong();
+
+        public long getHits() {
+            return hits.get();
+        }
+
+        public long getMisses() {
+            return misses.get();
+        }
+
+        public long getEvictions() {
+            return evictions.get();
+        }
+
+        /**
+         * Get fraction of prepareStatement calls served from cache
+         * @return Hit ratio between 0 and 1
+         */
+        public double getHitRatio() {
+            long lookups = getHits() + getMisses();
+            return lookups == 0 ? 0.0 : (double) getHits() / lookups;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("StatementCache{hits=%d, misses=%d, evictions=%d, hitRatio=%.2f}",
+                    getHits(), getMisses(), getEvictions(), getHitRatio());
+        }
+    }
+
+    /**
+     * Invocation handler behind cached statement proxies.
+     * close() resets the statement and checks it back into the cache.
+     */
+    private static class CachedStatementHandler implements InvocationHandler {
+        private final StatementCache cache;
+        private final String sql;
+        private final PreparedStatement statement;
+        private final Connection connectionProxy;
+        private final ConnectionPool.Lease lease;
+        private ResultSet openResultSet;
+        private boolean closed = false;
+        private boolean reusable = true;
+
+        CachedStatementHandler(StatementCache cache, String sql, PreparedStatement statement,
+                               Connection connectionProxy, ConnectionPool.Lease lease) {
+            this.cache = cache;
+            this.sql = sql;
+            this.statement = statement;
+            this.connectionProxy = connectionProxy;
+            this.lease = lease;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        release();
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || statement.isClosed();
+                case "getConnection":
+                    return connectionProxy;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "CachedStatement[" + sql + "]";
+                default:
+                    break;
+            }
+
+            if (closed) {
+                throw new SQLException("Statement has already been closed");
+            }
+            if (name.startsWith("set") && !name.equals("setPoolable") && (args == null || args.length < 2)) {
+                // Statement-level settings (fetch size, max rows, timeouts) would leak to the next user
+                reusable = false;
+            }
+
+            try {
+                Object result = method.invoke(statement, args);
+                if (result instanceof ResultSet && name.equals("executeQuery")) {
+                    openResultSet = (ResultSet) result;
+                }
+                return result;
+            } catch (InvocationTargetException e) {
+                reusable = false;
+                throw e.getCause();
+            }
+        }
+
+        /**
+         * Clear per-use state and hand the statement back to the cache
+         */
+        private void release() throws SQLException {
+            if (!reusable || !lease.isActive()) {
+                statement.close();
+                return;
+            }
+            try {
+                if (openResultSet != null) {
+                    openResultSet.close();
+                }
+                statement.clearParameters();
+                statement.clearBatch();
+                statement.clearWarnings();
+            } catch (SQLException e) {
+                statement.close();
+                return;
+            }
+            cache.checkIn(sql, statement);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.greenthumb.util;
+
+import javax.swing.SwingUtilities;
+
+/**
+ * Utility methods for working with Swing from background threads.
+ * Controllers are called by dashboards on loader threads, while Swing components may only
+ * be touched on the Event Dispatch Thread.
+ */
+public final class SwingUtil {
+
+    private SwingUtil() {
+    }
+
+    /**
+     * Run code on the Event Dispatch Thread: right away when already on it, otherwise later
+     * @param task Code touching Swing components, e.g. showing a dialog
+     */
+    public static void runOnEventThread(Runnable task) {
+        if (SwingUtilities.isEventDispatchThread()) {
+            task.run();
+        } else {
+            SwingUtilities.invokeLater(task);
+        }
+    }
+}
+
@@ -4,35 +4,46 @@ import com.greenthumb.controller.AdminController;
 import com.greenthumb.model.*;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
+import javax.swing.filechooser.FileNameExtensionFilter;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Admin dashboard view for the Greenthumb Nursery application.
  * Provides comprehensive management interface for administrators.
  */
 public class AdminDashboardView extends JFrame {
+    private static final int ORDER_PAGE_SIZE = 100;
+    private static final int CACHED_ORDER_PAGES = 8;
+    
     private AdminController adminController;
     private JTabbedPane tabbedPane;
+    private final BackgroundLoader loader = new BackgroundLoader();
     
     // User Management Components
     private JTable userTable;
-    private DefaultTableModel userTableModel;
+    private KeyedTableModel userTableModel;
     private JTextField userIdField, usernameField, passwordField;
     private JComboBox<String> roleComboBox;
     
     // Plant Management Components
     private JTable plantTable;
-    private DefaultTableModel plantTableModel;
+    private ColumnarTableModel<Plant> plantTableModel;
     private JTextField plantIdField, plantNameField, plantTypeField, plantPriceField, plantQuantityField;
     private JTextArea plantDescriptionArea;
+    // Descriptions of the listed plants, which the table does not show
+    private final Map<String, String> plantDescriptions = new HashMap<>();
     
     // Order Management Components
     private JTable orderTable;
-    private DefaultTableModel orderTableModel;
+    private PagedOrderTableModel orderTableModel;
     private JComboBox<String> orderStatusComboBox;
     
     // Report Components
@@ -54,29 +65,22 @@ public class AdminDashboardView extends JFrame {
         tabbedPane = new JTabbedPane();
         
         // Initialize table models
-        userTableModel = new DefaultTableModel(new String[]{"User ID", "Username", "Role"}, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        userTableModel = new KeyedTableModel(new String[]{"User ID", "Username", "Role"}, 0);
         userTable = new JTable(userTableModel);
         
-        plantTableModel = new DefaultTableModel(new String[]{"Plant ID", "Name", "Type", "Price", "Quantity"}, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        plantTableModel = new ColumnarTableModel<Plant>(Plant::getPlantId)
+                .addStringColumn("Plant ID", Plant::getPlantId)
+                .addStringColumn("Name", Plant::getName)
+                .addStringColumn("Type", Plant::getType)
+                .addDoubleColumn("Price", Plant::getPrice, ColumnarTableModel.CURRENCY)
+                .addIntColumn("Quantity", Plant::getQuantity, null);
         plantTable = new JTable(plantTableModel);
+        plantTableModel.install(plantTable);
         
-        orderTableModel = new DefaultTableModel(new String[]{"Order ID", "Customer ID", "Date", "Total", "Status"}, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        orderTableModel = new PagedOrderTableModel(adminController::countOrders, adminController::getOrdersPage,
+                adminController::getOrdersPageAt, ORDER_PAGE_SIZE, CACHED_ORDER_PAGES);
         orderTable = new JTable(orderTableModel);
+        orderTableModel.install(orderTable);
         
         // Initialize form components
         userIdField = new JTextField(15);
@@ -134,6 +138,7 @@ public class AdminDashboardView extends JFrame {
         statusBar.setBorder(BorderFactory.createLoweredBevelBorder());
         JLabel statusLabel = new JLabel("Welcome, " + adminController.getCurrentUser().getUsername() + " (Admin)");
         statusBar.add(statusLabel);
+        statusBar.add(loader.getIndicator());
         add(statusBar, BorderLayout.SOUTH);
     }
 
@@ -261,11 +266,13 @@ public class AdminDashboardView extends JFrame {
         JButton updatePlantBtn = new JButton("Update Plant");
         JButton deletePlantBtn = new JButton("Delete Plant");
         JButton refreshPlantBtn = new JButton("Refresh");
+        JButton importCatalogBtn = new JButton("Import Catalog");
         
         buttonPanel.add(addPlantBtn);
         buttonPanel.add(updatePlantBtn);
         buttonPanel.add(deletePlantBtn);
         buttonPanel.add(refreshPlantBtn);
+        buttonPanel.add(importCatalogBtn);
         
         gbc.gridx = 0; gbc.gridy = 6; gbc.gridwidth = 2;
         formPanel.add(buttonPanel, gbc);
@@ -275,6 +282,7 @@ public class AdminDashboardView extends JFrame {
         updatePlantBtn.addActionListener(e -> updatePlant());
         deletePlantBtn.addActionListener(e -> deletePlant());
         refreshPlantBtn.addActionListener(e -> loadPlantData());
+        importCatalogBtn.addActionListener(e -> importPlantCatalog());
         
         // Setup table selection listener
         plantTable.getSelectionModel().addListSelectionListener(e -> {
@@ -403,17 +411,21 @@ public class AdminDashboardView extends JFrame {
 
     // User Management Methods
     private void loadUserData() {
-        userTableModel.setRowCount(0);
-        List<User> users = adminController.getAllUsers();
+        loader.load("users", "users", adminController::getAllUsers, this::showUsers);
+    }
+
+    private void showUsers(List<User> users) {
+        List<Object[]> rows = new ArrayList<>();
         if (users != null) {
             for (User user : users) {
-                userTableModel.addRow(new Object[]{
+                rows.add(new Object[]{
                     user.getUserId(),
                     user.getUsername(),
                     user.getRole()
                 });
             }
         }
+        userTableModel.setRows(rows);
     }
 
     private void populateUserForm() {
@@ -501,42 +513,31 @@ public class AdminDashboardView extends JFrame {
 
     // Plant Management Methods
     private void loadPlantData() {
-        plantTableModel.setRowCount(0);
-        List<Plant> plants = adminController.getAllPlants();
+        loader.load("plants", "plants", adminController::getAllPlants, this::showPlants);
+    }
+
+    private void showPlants(List<Plant> plants) {
+        plantDescriptions.clear();
         if (plants != null) {
             for (Plant plant : plants) {
-                plantTableModel.addRow(new Object[]{
-                    plant.getPlantId(),
-                    plant.getName(),
-                    plant.getType(),
-                    String.format("$%.2f", plant.getPrice()),
-                    plant.getQuantity()
-                });
+                plantDescriptions.put(plant.getPlantId(), plant.getDescription());
             }
         }
+        plantTableModel.setRows(plants != null ? plants : Collections.<Plant>emptyList());
     }
 
     private void populatePlantForm() {
         int selectedRow = plantTable.getSelectedRow();
         if (selectedRow >= 0) {
-            plantIdField.setText((String) plantTableModel.getValueAt(selectedRow, 0));
-            plantNameField.setText((String) plantTableModel.getValueAt(selectedRow, 1));
-            plantTypeField.setText((String) plantTableModel.getValueAt(selectedRow, 2));
-            String priceStr = (String) plantTableModel.getValueAt(selectedRow, 3);
-            plantPriceField.setText(priceStr.replace("$", ""));
-            plantQuantityField.setText(plantTableModel.getValueAt(selectedRow, 4).toString());
+            int row = plantTable.convertRowIndexToModel(selectedRow);
+            plantIdField.setText(plantTableModel.getString(row, 0));
+            plantNameField.setText(plantTableModel.getString(row, 1));
+            plantTypeField.setText(plantTableModel.getString(row, 2));
+            plantPriceField.setText(String.format("%.2f", plantTableModel.getDouble(row, 3)));
+            plantQuantityField.setText(String.valueOf(plantTableModel.getInt(row, 4)));
             
-            // Load description from database
-            String plantId = (String) plantTableModel.getValueAt(selectedRow, 0);
-            List<Plant> plants = adminController.getAllPlants();
-            if (plants != null) {
-                for (Plant plant : plants) {
-                    if (plant.getPlantId().equals(plantId)) {
-                        plantDescriptionArea.setText(plant.getDescription());
-                        break;
-                    }
-                }
-            }
+            String plantId = plantTableModel.getString(row, 0);
+            plantDescriptionArea.setText(plantDescriptions.get(plantId));
         }
     }
 
@@ -596,13 +597,25 @@ public class AdminDashboardView extends JFrame {
             return;
         }
         
-        String plantId = (String) plantTableModel.getValueAt(selectedRow, 0);
+        String plantId = plantTableModel.getString(plantTable.convertRowIndexToModel(selectedRow), 0);
         if (adminController.deletePlant(plantId)) {
             clearPlantForm();
             loadPlantData();
         }
     }
 
+    private void importPlantCatalog() {
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle("Import Plant Catalog");
+        fileChooser.setFileFilter(new FileNameExtensionFilter("CSV files (*.csv)", "csv"));
+        
+        if (fileChooser.showOpenDialog(this) == JFileChooser.APPROVE_OPTION) {
+            File file = fileChooser.getSelectedFile();
+            loader.load("import", "plant catalog import", () -> adminController.importPlantCatalog(file),
+                    imported -> loadPlantData());
+        }
+    }
+
     private void clearPlantForm() {
         plantIdField.setText("");
         plantNameField.setText("");
@@ -614,29 +627,17 @@ public class AdminDashboardView extends JFrame {
 
     // Order Management Methods
     private void loadOrderData() {
-        orderTableModel.setRowCount(0);
-        List<Order> orders = adminController.getAllOrders();
-        if (orders != null) {
-            for (Order order : orders) {
-                orderTableModel.addRow(new Object[]{
-                    order.getOrderId(),
-                    order.getCustomerId(),
-                    order.getOrderDate(),
-                    String.format("$%.2f", order.getTotalAmount()),
-                    order.getStatus()
-                });
-            }
-        }
+        // Loads the order count and the visible pages in the background
+        orderTableModel.refresh();
     }
 
     private void updateOrderStatus() {
-        int selectedRow = orderTable.getSelectedRow();
-        if (selectedRow < 0) {
-            JOptionPane.showMessageDialog(this, "Please select an order to update.", "Error", JOptionPane.ERROR_MESSAGE);
+        Order order = orderTableModel.getSelectedOrder(orderTable, "update");
+        if (order == null) {
             return;
         }
         
-        String orderId = (String) orderTableModel.getValueAt(selectedRow, 0);
+        String orderId = order.getOrderId();
         String newStatus = (String) orderStatusComboBox.getSelectedItem();
         
         if (adminController.updateOrderStatus(orderId, newStatus)) {
@@ -645,31 +646,27 @@ public class AdminDashboardView extends JFrame {
     }
 
     private void viewOrderDetails() {
-        int selectedRow = orderTable.getSelectedRow();
-        if (selectedRow < 0) {
-            JOptionPane.showMessageDialog(this, "Please select an order to view details.", "Error", JOptionPane.ERROR_MESSAGE);
+        Order order = orderTableModel.getSelectedOrder(orderTable, "view details");
+        if (order == null) {
             return;
         }
         
-        String orderId = (String) orderTableModel.getValueAt(selectedRow, 0);
+        String orderId = order.getOrderId();
         // This would open a detailed order view dialog
         JOptionPane.showMessageDialog(this, "Order details for: " + orderId + "\n(Detailed view would be implemented here)", "Order Details", JOptionPane.INFORMATION_MESSAGE);
     }
 
     // Report Methods
     private void generateUserReport() {
-        String report = adminController.generateUserReport();
-        reportArea.setText(report);
+        loader.load("report", "user report", adminController::generateUserReport, reportArea::setText);
     }
 
     private void generateInventoryReport() {
-        String report = adminController.generateInventoryReport();
-        reportArea.setText(report);
+        loader.load("report", "inventory report", adminController::generateInventoryReport, reportArea::setText);
     }
 
     private void generateSalesReport() {
-        String report = adminController.generateSalesReport();
-        reportArea.setText(report);
+        loader.load("report", "sales report", adminController::generateSalesReport, reportArea::setText);
     }
 }
 
@@ -0,0 +1,146 @@
+package com.greenthumb.view;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+
+/**
+ * Runs dashboard data loads on background threads and delivers their results on the
+ * Event Dispatch Thread, so windows stay responsive while the database answers.
+ * Loads are keyed by what they fill (e.g. "plants"): starting a load replaces any
+ * running load with the same key, and results of replaced or cancelled loads are
+ * dropped. Cancelling does not interrupt the worker, since an interrupted thread
+ * cannot borrow a pooled connection; the query finishes and its result is discarded.
+ * While loads are running, an indeterminate progress bar and a text saying what is
+ * being loaded are shown in the indicator component.
+ * All methods must be called on the Event Dispatch Thread.
+ */
+public class BackgroundLoader {
+    private final Map<String, Load<?>> running = new HashMap<>();
+    private final JPanel indicator;
+    private final JLabel indicatorLabel;
+    private final JProgressBar progressBar;
+
+    public BackgroundLoader() {
+        indicatorLabel = new JLabel();
+        progressBar = new JProgressBar();
+        progressBar.setIndeterminate(true);
+        progressBar.setPreferredSize(new Dimension(120, progressBar.getPreferredSize().height));
+        indicator = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 0));
+        indicator.add(progressBar);
+        indicator.add(indicatorLabel);
+        indicator.setVisible(false);
+    }
+
+    /**
+     * Get the loading indicator, to be placed in the window's status bar
+     * @return Indicator component, visible only while loads are running
+     */
+    public JComponent getIndicator() {
+        return indicator;
+    }
+
+    /**
+     * Start a background load
+     * @param key What the load fills; replaces a running load with the same key
+     * @param description Shown while loading, e.g. "plants"
+     * @param task Load to run on a background thread
+     * @param onLoaded Receives the result on the Event Dispatch Thread
+     * @param <T> Result type
+     */
+    public <T> void load(String key, String description, Callable<T> task, Consumer<T> onLoaded) {
+        cancel(key);
+        Load<T> load = new Load<>(key, description, task, onLoaded);
+        running.put(key, load);
+        updateIndicator();
+        load.execute();
+    }
+
+    /**
+     * Cancel a running load; its result will not be delivered
+     * @param key Load key
+     */
+    public void cancel(String key) {
+        Load<?> load = running.remove(key);
+        if (load != null) {
+            load.cancel(false);
+            updateIndicator();
+        }
+    }
+
+    /**
+     * Cancel all running loads, e.g. when the window is closed
+     */
+    public void cancelAll() {
+        for (Load<?> load : running.values()) {
+            load.cancel(false);
+        }
+        running.clear();
+        updateIndicator();
+    }
+
+    /**
+     * Check if a load is running
+     * @param key Load key
+     * @return true if a load with the key has not finished yet
+     */
+    public boolean isLoading(String key) {
+        return running.containsKey(key);
+    }
+
+    private void updateIndicator() {
+        if (running.isEmpty()) {
+            indicator.setVisible(false);
+            return;
+        }
+        StringBuilder text = new StringBuilder("Loading ");
+        String separator = "";
+        for (Load<?> load : running.values()) {
+            text.append(separator).append(load.description);
+            separator = ", ";
+        }
+        indicatorLabel.setText(text.append("...").toString());
+        indicator.setVisible(true);
+    }
+
+    private final class Load<T> extends SwingWorker<T, Void> {
+        private final String key;
+        private final String description;
+        private final Callable<T> task;
+        private final Consumer<T> onLoaded;
+
+        Load(String key, String description, Callable<T> task, Consumer<T> onLoaded) {
+            this.key = key;
+            this.description = description;
+            this.task = task;
+            this.onLoaded = onLoaded;
+        }
+
+        @Override
+        protected T doInBackground() throws Exception {
+            return task.call();
+        }
+
+        @Override
+        protected void done() {
+            // A replaced or cancelled load is no longer registered under its key
+            if (running.get(key) != this) {
+                return;
+            }
+            running.remove(key);
+            updateIndicator();
+            try {
+                onLoaded.accept(get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                System.err.println("Error loading " + description + ": " + e.getCause().getMessage());
+            }
+        }
+    }
+}
+
@@ -0,0 +1,135 @@
+package com.greenthumb.view;
+
+import javax.swing.RowFilter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Row filter compiled against the columns of a ColumnarTableModel.
+ * Each filter is built once per filter change, with its arguments already parsed and
+ * lower-cased, and then tests a row by reading the model's arrays directly, without
+ * formatting cells or matching regular expressions. ColumnarRowSorter calls
+ * includeRow() for every row; as a plain RowFilter it works through the entry's row.
+ * @param <T> Type of the model's row items
+ */
+public abstract class ColumnFilter<T> extends RowFilter<ColumnarTableModel<T>, Integer> {
+    private final ColumnarTableModel<T> model;
+
+    protected ColumnFilter(ColumnarTableModel<T> model) {
+        this.model = model;
+    }
+
+    public ColumnarTableModel<T> getModel() {
+        return model;
+    }
+
+    /**
+     * Check if a model row passes the filter
+     * @param row Model row index
+     * @return true if the row should be shown
+     */
+    public abstract boolean includeRow(int row);
+
+    @Override
+    public boolean include(Entry<? extends ColumnarTableModel<T>, ? extends Integer> entry) {
+        return includeRow(entry.getIdentifier());
+    }
+
+    /**
+     * Rows whose text column contains a text, ignoring case
+     * @param model Model to filter
+     * @param column Text column
+     * @param text Text to look for
+     * @param <T> Row item type
+     * @return Filter
+     */
+    public static <T> ColumnFilter<T> contains(ColumnarTableModel<T> model, int column, String text) {
+        String needle = text.toLowerCase();
+        return new ColumnFilter<T>(model) {
+            @Override
+            public boolean includeRow(int row) {
+                return containsIgnoreCase(model.getString(row, column), needle);
+            }
+        };
+    }
+
+    /**
+     * Rows whose double column lies within a range
+     * @param model Model to filter
+     * @param column Double column
+     * @param min Inclusive minimum
+     * @param max Inclusive maximum
+     * @param <T> Row item type
+     * @return Filter
+     */
+    public static <T> ColumnFilter<T> between(ColumnarTableModel<T> model, int column, double min, double max) {
+        return new ColumnFilter<T>(model) {
+            @Override
+            public boolean includeRow(int row) {
+                double value = model.getDouble(row, column);
+                return value >= min && value <= max;
+            }
+        };
+    }
+
+    /**
+     * Rows whose int column is below a limit
+     * @param model Model to filter
+     * @param column Int column
+     * @param limit Exclusive upper limit
+     * @param <T> Row item type
+     * @return Filter
+     */
+    public static <T> ColumnFilter<T> below(ColumnarTableModel<T> model, int column, int limit) {
+        return new ColumnFilter<T>(model) {
+            @Override
+            public boolean includeRow(int row) {
+                return model.getInt(row, column) < limit;
+            }
+        };
+    }
+
+    /**
+     * Rows that pass all of the given filters
+     * @param model Model to filter
+     * @param filters Filters to combine; none means every row passes
+     * @param <T> Row item type
+     * @return Filter
+     */
+    public static <T> ColumnFilter<T> allOf(ColumnarTableModel<T> model, List<ColumnFilter<T>> filters) {
+        if (filters.size() == 1) {
+            return filters.get(0);
+        }
+        List<ColumnFilter<T>> parts = new ArrayList<>(filters);
+        return new ColumnFilter<T>(model) {
+            @Override
+            public boolean includeRow(int row) {
+                for (ColumnFilter<T> part : parts) {
+                    if (!part.includeRow(row)) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Case-insensitive substring test without allocating
+     * @param value Text to search, may be null
+     * @param lowerNeedle Lower-case text to find
+     */
+    static boolean containsIgnoreCase(String value, String lowerNeedle) {
+        if (value == null) {
+            return false;
+        }
+        int last = value.length() - lowerNeedle.length();
+        for (int start = 0; start <= last; start++) {
+            if (value.regionMatches(true, start, lowerNeedle, 0, lowerNeedle.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
+
@@ -0,0 +1,402 @@
+package com.greenthumb.view;
+
+import javax.swing.RowFilter;
+import javax.swing.RowSorter;
+import javax.swing.SortOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Row sorter and filter for a ColumnarTableModel, working on primitive arrays.
+ * Rows are compared through the model's columns, so numbers are compared as numbers and
+ * nothing is boxed. The sorted order of all rows is kept, and a filter change is applied
+ * by one pass over it without sorting again, which TableRowSorter does on every filter
+ * change; filtering therefore costs O(n), and all rows are sorted only when the sort keys
+ * change or the whole model does. Rows inserted, deleted or updated by a model event are
+ * merged into the kept order by binary search, so the runs of a keyed diff cost O(n)
+ * each rather than a full sort each.
+ * Any RowFilter can be set; a ColumnFilter is checked straight against the model rows,
+ * other filters are given one reused entry per row.
+ * @param <T> Type of the model's row items
+ */
+public class ColumnarRowSorter<T> extends RowSorter<ColumnarTableModel<T>> {
+    private static final int MAX_SORT_KEYS = 3;
+
+    private final ColumnarTableModel<T> model;
+    private List<SortKey> sortKeys = Collections.emptyList();
+    // Sort keys unpacked for comparing rows
+    private int[] sortColumns = new int[0];
+    private boolean[] sortDescending = new boolean[0];
+    private RowFilter<? super ColumnarTableModel<T>, ? super Integer> filter;
+    // Model rows in sort order, or null if not sorted
+    private int[] sorted;
+    private int[] viewToModel = new int[0];
+    private int[] modelToView = new int[0];
+    private final RowEntry entry = new RowEntry();
+
+    public ColumnarRowSorter(ColumnarTableModel<T> model) {
+        this.model = model;
+        sortAndFilter();
+    }
+
+    @Override
+    public ColumnarTableModel<T> getModel() {
+        return model;
+    }
+
+    /**
+     * Sort by a column, or reverse the order if the rows are already sorted by it
+     * @param column Model column index
+     */
+    @Override
+    public void toggleSortOrder(int column) {
+        List<SortKey> keys = new ArrayList<>(sortKeys);
+        if (!keys.isEmpty() && keys.get(0).getColumn() == column) {
+            SortOrder order = keys.get(0).getSortOrder() == SortOrder.ASCENDING
+                    ? SortOrder.DESCENDING : SortOrder.ASCENDING;
+            keys.set(0, new SortKey(column, order));
+        } else {
+            keys.removeIf(key -> key.getColumn() == column);
+            keys.add(0, new SortKey(column, SortOrder.ASCENDING));
+            if (keys.size() > MAX_SORT_KEYS) {
+                keys.remove(MAX_SORT_KEYS);
+            }
+        }
+        setSortKeys(keys);
+    }
+
+    @Override
+    public void setSortKeys(List<? extends SortKey> keys) {
+        List<SortKey> newKeys = new ArrayList<>();
+        if (keys != null) {
+            for (SortKey key : keys) {
+                if (key.getSortOrder() != SortOrder.UNSORTED) {
+                    newKeys.add(key);
+                }
+            }
+        }
+        if (newKeys.equals(sortKeys)) {
+            return;
+        }
+        setKeys(Collections.unmodifiableList(newKeys));
+        fireSortOrderChanged();
+        int[] lastViewToModel = viewToModel;
+        sortAndFilter();
+        fireRowSorterChanged(lastViewToModel);
+    }
+
+    @Override
+    public List<? extends SortKey> getSortKeys() {
+        return sortKeys;
+    }
+
+    /**
+     * Show only the rows a filter includes
+     * @param filter Row filter, or null to show all rows
+     */
+    public void setRowFilter(RowFilter<? super ColumnarTableModel<T>, ? super Integer> filter) {
+        this.filter = filter;
+        int[] lastViewToModel = viewToModel;
+        applyFilter();
+        fireRowSorterChanged(lastViewToModel);
+    }
+
+    public RowFilter<? super ColumnarTableModel<T>, ? super Integer> getRowFilter() {
+        return filter;
+    }
+
+    @Override
+    public int convertRowIndexToModel(int index) {
+        return viewToModel[index];
+    }
+
+    @Override
+    public int convertRowIndexToView(int index) {
+        return index >= 0 && index < modelToView.length ? modelToView[index] : -1;
+    }
+
+    @Override
+    public int getViewRowCount() {
+        return viewToModel.length;
+    }
+
+    @Override
+    public int getModelRowCount() {
+        return model.getRowCount();
+    }
+
+    @Override
+    public void modelStructureChanged() {
+        setKeys(Collections.<SortKey>emptyList());
+        modelChanged(true, true);
+    }
+
+    @Override
+    public void allRowsChanged() {
+        modelChanged(true, true);
+    }
+
+    @Override
+    public void rowsInserted(int firstRow, int endRow) {
+        int count = endRow - firstRow + 1;
+        if (sorted != null) {
+            // Rows at or after the insert position moved down
+            for (int i = 0; i < sorted.length; i++) {
+                if (sorted[i] >= firstRow) {
+                    sorted[i] += count;
+                }
+            }
+            sorted = insertInOrder(sorted, sorted.length, rowRange(firstRow, endRow));
+        }
+        modelChanged(true, false);
+    }
+
+    @Override
+    public void rowsDeleted(int firstRow, int endRow) {
+        int count = endRow - firstRow + 1;
+        if (sorted != null) {
+            int kept = 0;
+            for (int row : sorted) {
+                if (row < firstRow) {
+                    sorted[kept++] = row;
+                } else if (row > endRow) {
+                    sorted[kept++] = row - count;
+                }
+            }
+            sorted = Arrays.copyOf(sorted, kept);
+        }
+        modelChanged(true, false);
+    }
+
+    @Override
+    public void rowsUpdated(int firstRow, int endRow) {
+        rowsChanged(firstRow, endRow, true);
+    }
+
+    @Override
+    public void rowsUpdated(int firstRow, int endRow, int column) {
+        rowsChanged(firstRow, endRow, isSortColumn(column));
+    }
+
+    /**
+     * Move updated rows to their new place in the sort order
+     * @param orderChanged false if no sort column changed, so the rows stay where they are
+     */
+    private void rowsChanged(int firstRow, int endRow, boolean orderChanged) {
+        if (sorted != null && orderChanged) {
+            int kept = 0;
+            for (int row : sorted) {
+                if (row < firstRow || row > endRow) {
+                    sorted[kept++] = row;
+                }
+            }
+            sorted = insertInOrder(sorted, kept, rowRange(firstRow, endRow));
+        }
+        modelChanged(false, false);
+    }
+
+    private boolean isSortColumn(int column) {
+        for (int sortColumn : sortColumns) {
+            if (sortColumn == column) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void setKeys(List<SortKey> keys) {
+        sortKeys = keys;
+        sortColumns = new int[keys.size()];
+        sortDescending = new boolean[keys.size()];
+        for (int k = 0; k < keys.size(); k++) {
+            sortColumns[k] = keys.get(k).getColumn();
+            sortDescending[k] = keys.get(k).getSortOrder() == SortOrder.DESCENDING;
+        }
+    }
+
+    /**
+     * Filter the rows again after a model change
+     * @param rowsMoved Rows were inserted or deleted, so the view changed even if the
+     *                  order of the remaining rows did not
+     * @param sortAll The kept order no longer matches the model and all rows are sorted again
+     */
+    private void modelChanged(boolean rowsMoved, boolean sortAll) {
+        int[] lastViewToModel = viewToModel;
+        if (sortAll) {
+            sortAndFilter();
+        } else {
+            applyFilter();
+        }
+        // An update that leaves the order as it was only needs the rows repainted
+        if (rowsMoved || !Arrays.equals(lastViewToModel, viewToModel)) {
+            fireRowSorterChanged(lastViewToModel);
+        }
+    }
+
+    private void sortAndFilter() {
+        sorted = sortKeys.isEmpty() ? null : sortRows();
+        applyFilter();
+    }
+
+    private void applyFilter() {
+        int rowCount = model.getRowCount();
+        int[] visible = new int[rowCount];
+        int[] viewOf = new int[rowCount];
+        int count = 0;
+        ColumnFilter<T> columnFilter = asColumnFilter(filter);
+        for (int i = 0; i < rowCount; i++) {
+            int row = sorted != null ? sorted[i] : i;
+            boolean include;
+            if (filter == null) {
+                include = true;
+            } else if (columnFilter != null) {
+                include = columnFilter.includeRow(row);
+            } else {
+                entry.row = row;
+                include = filter.include(entry);
+            }
+            if (include) {
+                viewOf[row] = count;
+                visible[count++] = row;
+            } else {
+                viewOf[row] = -1;
+            }
+        }
+        viewToModel = count == rowCount ? visible : Arrays.copyOf(visible, count);
+        modelToView = viewOf;
+    }
+
+    @SuppressWarnings("unchecked")
+    private ColumnFilter<T> asColumnFilter(RowFilter<?, ?> rowFilter) {
+        if (rowFilter instanceof ColumnFilter && ((ColumnFilter<?>) rowFilter).getModel() == model) {
+            return (ColumnFilter<T>) rowFilter;
+        }
+        return null;
+    }
+
+    /**
+     * Sort all model rows by the sort keys, then by model order
+     */
+    private int[] sortRows() {
+        return sortRows(rowRange(0, model.getRowCount() - 1));
+    }
+
+    /**
+     * Sort model rows by the sort keys, then by model order, with a bottom-up merge sort
+     * on primitive arrays
+     * @param rows Rows to sort; the array may be reused for the result
+     * @return Sorted rows
+     */
+    private int[] sortRows(int[] rows) {
+        int rowCount = rows.length;
+        int[] source = rows;
+        int[] target = new int[rowCount];
+        for (int width = 1; width < rowCount; width *= 2) {
+            for (int start = 0; start < rowCount; start += 2 * width) {
+                int mid = Math.min(start + width, rowCount);
+                int end = Math.min(start + 2 * width, rowCount);
+                int i = start;
+                int j = mid;
+                for (int n = start; n < end; n++) {
+                    if (j == end || (i < mid && compareRows(source[i], source[j]) <= 0)) {
+                        target[n] = source[i++];
+                    } else {
+                        target[n] = source[j++];
+                    }
+                }
+            }
+            int[] swap = source;
+            source = target;
+            target = swap;
+        }
+        return source;
+    }
+
+    /**
+     * Merge rows into sorted rows, placing each by binary search
+     * @param sortedRows Rows in sort order
+     * @param length Number of sorted rows in use
+     * @param rows Rows to add, in any order
+     * @return Combined rows in sort order
+     */
+    private int[] insertInOrder(int[] sortedRows, int length, int[] rows) {
+        int[] added = sortRows(rows);
+        int[] merged = new int[length + added.length];
+        int from = 0;
+        int to = 0;
+        for (int row : added) {
+            int position = findInsertPosition(sortedRows, from, length, row);
+            System.arraycopy(sortedRows, from, merged, to, position - from);
+            to += position - from;
+            from = position;
+            merged[to++] = row;
+        }
+        System.arraycopy(sortedRows, from, merged, to, length - from);
+        return merged;
+    }
+
+    private int findInsertPosition(int[] sortedRows, int low, int high, int row) {
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compareRows(sortedRows[mid], row) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static int[] rowRange(int first, int last) {
+        int[] rows = new int[Math.max(0, last - first + 1)];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = first + i;
+        }
+        return rows;
+    }
+
+    private int compareRows(int rowA, int rowB) {
+        for (int k = 0; k < sortColumns.length; k++) {
+            int cmp = model.compare(sortColumns[k], rowA, rowB);
+            if (cmp != 0) {
+                return sortDescending[k] ? -cmp : cmp;
+            }
+        }
+        return Integer.compare(rowA, rowB);
+    }
+
+    /**
+     * Entry handed to filters other than ColumnFilter, moved from row to row
+     */
+    private final class RowEntry extends RowFilter.Entry<ColumnarTableModel<T>, Integer> {
+        int row;
+
+        @Override
+        public ColumnarTableModel<T> getModel() {
+            return model;
+        }
+
+        @Override
+        public int getValueCount() {
+            return model.getColumnCount();
+        }
+
+        @Override
+        public Object getValue(int index) {
+            return model.getValueAt(row, index);
+        }
+
+        @Override
+        public String getStringValue(int index) {
+            return model.getText(row, index);
+        }
+
+        @Override
+        public Integer getIdentifier() {
+            return row;
+        }
+    }
+}
+
@@ -0,0 +1,562 @@
+package com.greenthumb.view;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import javax.swing.table.DefaultTableCellRenderer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.DoubleFunction;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+
+/**
+ * Read-only table model that stores its rows column by column, in primitive arrays for
+ * numeric columns, instead of one array of boxed values per row.
+ * Each column reads its values from the row items (e.g. Plant::getPrice) and may have a
+ * formatter, which the column's renderer applies only to the cells being painted, so
+ * numbers are kept as numbers and sort numerically. Refreshing with setRows() applies
+ * only the difference to the current rows (see RowDiff).
+ * @param <T> Type of the row items
+ */
+public class ColumnarTableModel<T> extends AbstractTableModel {
+    private static final long serialVersionUID = 1L;
+
+    /** Formats amounts as dollars, e.g. "$12.50" */
+    public static final DoubleFunction<String> CURRENCY = amount -> String.format("$%.2f", amount);
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final Function<? super T, ?> keyOf;
+    private final List<Column<T>> columns = new ArrayList<>();
+    private Object[] keys = new Object[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * Create an empty model; add its columns before setting rows
+     * @param keyOf Key that identifies the row of an item, e.g. Plant::getPlantId
+     */
+    public ColumnarTableModel(Function<? super T, ?> keyOf) {
+        this.keyOf = keyOf;
+    }
+
+    public ColumnarTableModel<T> addStringColumn(String name, Function<? super T, String> getter) {
+        return addColumn(new StringColumn<>(name, getter, keys.length));
+    }
+
+    /**
+     * Add a column of double values
+     * @param name Column name
+     * @param getter Reads the value from a row item
+     * @param format Formats the value for display, e.g. CURRENCY
+     * @return This model
+     */
+    public ColumnarTableModel<T> addDoubleColumn(String name, ToDoubleFunction<? super T> getter,
+                                                 DoubleFunction<String> format) {
+        return addColumn(new DoubleColumn<>(name, getter, format, keys.length));
+    }
+
+    /**
+     * Add a column of int values
+     * @param name Column name
+     * @param getter Reads the value from a row item
+     * @param format Formats the value for display, or null to show the number
+     * @return This model
+     */
+    public ColumnarTableModel<T> addIntColumn(String name, ToIntFunction<? super T> getter,
+                                              IntFunction<String> format) {
+        return addColumn(new IntColumn<>(name, getter, format != null ? format : Integer::toString, keys.length));
+    }
+
+    /**
+     * Add a column of other comparable values, e.g. dates
+     * @param name Column name
+     * @param getter Reads the value from a row item
+     * @param <V> Value type
+     * @return This model
+     */
+    public <V extends Comparable<? super V>> ColumnarTableModel<T> addComparableColumn(String name,
+                                                                                       Function<? super T, V> getter) {
+        return addColumn(new ComparableColumn<>(name, getter, keys.length));
+    }
+
+    private ColumnarTableModel<T> addColumn(Column<T> column) {
+        columns.add(column);
+        return this;
+    }
+
+    /**
+     * Set up a table for this model: formatting renderers and a sorter that compares
+     * the stored values directly
+     * @param table Table showing this model
+     * @return Row sorter installed on the table
+     */
+    public ColumnarRowSorter<T> install(JTable table) {
+        table.setModel(this);
+        for (int i = 0; i < columns.size(); i++) {
+            table.getColumnModel().getColumn(i).setCellRenderer(new FormattingRenderer(columns.get(i)));
+        }
+        ColumnarRowSorter<T> sorter = new ColumnarRowSorter<>(this);
+        table.setRowSorter(sorter);
+        return sorter;
+    }
+
+    /**
+     * Replace the rows, applying only the changes to the current rows
+     * @param items New row items, in display order
+     */
+    public void setRows(List<? extends T> items) {
+        Object[] newKeys = new Object[items.size()];
+        for (int i = 0; i < newKeys.length; i++) {
+            newKeys[i] = keyOf.apply(items.get(i));
+        }
+
+        RowDiff.apply(this, new RowDiff.Rows() {
+            @Override
+            public int getRowCount() {
+                return size;
+            }
+
+            @Override
+            public Object getKey(int row) {
+                return keys[row];
+            }
+
+            @Override
+            public void deleteRows(int first, int last) {
+                int count = last - first + 1;
+                moveRows(last + 1, first, size - last - 1);
+                size -= count;
+                clearRows(size, size + count);
+            }
+
+            @Override
+            public void insertRows(int first, int last) {
+                int count = last - first + 1;
+                ensureCapacity(size + count);
+                moveRows(first, first + count, size - first);
+                size += count;
+                for (int row = first; row <= last; row++) {
+                    setRow(row, items.get(row), newKeys[row]);
+                }
+            }
+
+            @Override
+            public boolean rowChanged(int row) {
+                T item = items.get(row);
+                for (Column<T> column : columns) {
+                    if (column.differs(row, item)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+
+            @Override
+            public void updateRow(int row) {
+                setRow(row, items.get(row), newKeys[row]);
+            }
+
+            @Override
+            public void replaceRows() {
+                int oldSize = size;
+                ensureCapacity(items.size());
+                for (int row = 0; row < items.size(); row++) {
+                    setRow(row, items.get(row), newKeys[row]);
+                }
+                size = items.size();
+                clearRows(size, oldSize);
+            }
+        }, newKeys);
+    }
+
+    /**
+     * Get the key of a row
+     * @param row Model row index
+     * @return Key, as returned by the key function
+     */
+    public Object getKey(int row) {
+        return keys[row];
+    }
+
+    public String getString(int row, int column) {
+        return ((StringColumn<T>) columns.get(column)).values[row];
+    }
+
+    public double getDouble(int row, int column) {
+        return ((DoubleColumn<T>) columns.get(column)).values[row];
+    }
+
+    public int getInt(int row, int column) {
+        return ((IntColumn<T>) columns.get(column)).values[row];
+    }
+
+    /**
+     * Compare two rows by a column, without boxing
+     * @return Negative, zero or positive as row a sorts before, with or after row b
+     */
+    int compare(int column, int rowA, int rowB) {
+        return columns.get(column).compare(rowA, rowB);
+    }
+
+    /**
+     * Get a cell as displayed
+     * @return Formatted value
+     */
+    String getText(int row, int column) {
+        Column<T> col = columns.get(column);
+        Object value = col.value(row);
+        return value == null ? "" : col.format(value);
+    }
+
+    @Override
+    public int getRowCount() {
+        return size;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columns.size();
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columns.get(column).name;
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return columns.get(column).type();
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return false;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        return columns.get(column).value(row);
+    }
+
+    private void setRow(int row, T item, Object key) {
+        keys[row] = key;
+        for (Column<T> column : columns) {
+            column.set(row, item);
+        }
+    }
+
+    private void moveRows(int from, int to, int count) {
+        System.arraycopy(keys, from, keys, to, count);
+        for (Column<T> column : columns) {
+            column.move(from, to, count);
+        }
+    }
+
+    private void clearRows(int from, int to) {
+        if (from < to) {
+            Arrays.fill(keys, from, to, null);
+            for (Column<T> column : columns) {
+                column.clear(from, to);
+            }
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > keys.length) {
+            int newCapacity = Math.max(capacity, keys.length + (keys.length >> 1));
+            keys = Arrays.copyOf(keys, newCapacity);
+            for (Column<T> column : columns) {
+                column.resize(newCapacity);
+            }
+        }
+    }
+
+    /**
+     * One column: its name, its stored values and how they are compared and formatted
+     */
+    private abstract static class Column<T> {
+        final String name;
+
+        Column(String name) {
+            this.name = name;
+        }
+
+        abstract Class<?> type();
+
+        abstract Object value(int row);
+
+        abstract void set(int row, T item);
+
+        abstract boolean differs(int row, T item);
+
+        abstract int compare(int rowA, int rowB);
+
+        abstract void move(int from, int to, int count);
+
+        abstract void resize(int capacity);
+
+        void clear(int from, int to) {
+        }
+
+        boolean isNumeric() {
+            return false;
+        }
+
+        String format(Object value) {
+            return value.toString();
+        }
+    }
+
+    private static final class StringColumn<T> extends Column<T> {
+        final Function<? super T, String> getter;
+        String[] values;
+
+        StringColumn(String name, Function<? super T, String> getter, int capacity) {
+            super(name);
+            this.getter = getter;
+            this.values = new String[capacity];
+        }
+
+        @Override
+        Class<?> type() {
+            return String.class;
+        }
+
+        @Override
+        Object value(int row) {
+            return values[row];
+        }
+
+        @Override
+        void set(int row, T item) {
+            values[row] = getter.apply(item);
+        }
+
+        @Override
+        boolean differs(int row, T item) {
+            return !Objects.equals(values[row], getter.apply(item));
+        }
+
+        @Override
+        int compare(int rowA, int rowB) {
+            String a = values[rowA];
+            String b = values[rowB];
+            if (a == null || b == null) {
+                return a == null ? (b == null ? 0 : -1) : 1;
+            }
+            return String.CASE_INSENSITIVE_ORDER.compare(a, b);
+        }
+
+        @Override
+        void move(int from, int to, int count) {
+            System.arraycopy(values, from, values, to, count);
+        }
+
+        @Override
+        void resize(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        @Override
+        void clear(int from, int to) {
+            Arrays.fill(values, from, to, null);
+        }
+    }
+
+    private static final class DoubleColumn<T> extends Column<T> {
+        final ToDoubleFunction<? super T> getter;
+        final DoubleFunction<String> format;
+        double[] values;
+
+        DoubleColumn(String name, ToDoubleFunction<? super T> getter, DoubleFunction<String> format, int capacity) {
+            super(name);
+            this.getter = getter;
+            this.format = format;
+            this.values = new double[capacity];
+        }
+
+        @Override
+        Class<?> type() {
+            return Double.class;
+        }
+
+        @Override
+        Object value(int row) {
+            return values[row];
+        }
+
+        @Override
+        void set(int row, T item) {
+            values[row] = getter.applyAsDouble(item);
+        }
+
+        @Override
+        boolean differs(int row, T item) {
+            return Double.compare(values[row], getter.applyAsDouble(item)) != 0;
+        }
+
+        @Override
+        int compare(int rowA, int rowB) {
+            return Double.compare(values[rowA], values[rowB]);
+        }
+
+        @Override
+        void move(int from, int to, int count) {
+            System.arraycopy(values, from, values, to, count);
+        }
+
+        @Override
+        void resize(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        @Override
+        boolean isNumeric() {
+            return true;
+        }
+
+        @Override
+        String format(Object value) {
+            return format.apply((Double) value);
+        }
+    }
+
+    private static final class IntColumn<T> extends Column<T> {
+        final ToIntFunction<? super T> getter;
+        final IntFunction<String> format;
+        int[] values;
+
+        IntColumn(String name, ToIntFunction<? super T> getter, IntFunction<String> format, int capacity) {
+            super(name);
+            this.getter = getter;
+            this.format = format;
+            this.values = new int[capacity];
+        }
+
+        @Override
+        Class<?> type() {
+            return Integer.class;
+        }
+
+        @Override
+        Object value(int row) {
+            return values[row];
+        }
+
+        @Override
+        void set(int row, T item) {
+            values[row] = getter.applyAsInt(item);
+        }
+
+        @Override
+        boolean differs(int row, T item) {
+            return values[row] != getter.applyAsInt(item);
+        }
+
+        @Override
+        int compare(int rowA, int rowB) {
+            return Integer.compare(values[rowA], values[rowB]);
+        }
+
+        @Override
+        void move(int from, int to, int count) {
+            System.arraycopy(values, from, values, to, count);
+        }
+
+        @Override
+        void resize(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        @Override
+        boolean isNumeric() {
+            return true;
+        }
+
+        @Override
+        String format(Object value) {
+            return format.apply((Integer) value);
+        }
+    }
+
+    private static final class ComparableColumn<T, V extends Comparable<? super V>> extends Column<T> {
+        final Function<? super T, V> getter;
+        Object[] values;
+
+        ComparableColumn(String name, Function<? super T, V> getter, int capacity) {
+            super(name);
+            this.getter = getter;
+            this.values = new Object[capacity];
+        }
+
+        @Override
+        Class<?> type() {
+            return Object.class;
+        }
+
+        @Override
+        Object value(int row) {
+            return values[row];
+        }
+
+        @Override
+        void set(int row, T item) {
+            values[row] = getter.apply(item);
+        }
+
+        @Override
+        boolean differs(int row, T item) {
+            return !Objects.equals(values[row], getter.apply(item));
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        int compare(int rowA, int rowB) {
+            V a = (V) values[rowA];
+            V b = (V) values[rowB];
+            if (a == null || b == null) {
+                return a == null ? (b == null ? 0 : -1) : 1;
+            }
+            return a.compareTo(b);
+        }
+
+        @Override
+        void move(int from, int to, int count) {
+            System.arraycopy(values, from, values, to, count);
+        }
+
+        @Override
+        void resize(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        @Override
+        void clear(int from, int to) {
+            Arrays.fill(values, from, to, null);
+        }
+    }
+
+    /**
+     * Formats a column's values as they are painted
+     */
+    private static final class FormattingRenderer extends DefaultTableCellRenderer {
+        private static final long serialVersionUID = 1L;
+
+        private final Column<?> column;
+
+        FormattingRenderer(Column<?> column) {
+            this.column = column;
+            setHorizontalAlignment(column.isNumeric() ? SwingConstants.RIGHT : SwingConstants.LEFT);
+        }
+
+        @Override
+        protected void setValue(Object value) {
+            setText(value == null ? "" : column.format(value));
+        }
+    }
+}
+
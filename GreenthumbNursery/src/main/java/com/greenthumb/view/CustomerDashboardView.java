@@ -1,37 +1,60 @@
 package com.greenthumb.view;
 
+import com.greenthumb.catalog.PlantFacets;
 import com.greenthumb.controller.CustomerController;
 import com.greenthumb.model.*;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Customer dashboard view for the Greenthumb Nursery application.
  * Provides interface for customers to browse plants, manage cart, and place orders.
  */
 public class CustomerDashboardView extends JFrame {
+    // Typing pause before the name search and completions run
+    private static final int NAME_SEARCH_DELAY_MS = 150;
+    private static final int MAX_COMPLETIONS = 8;
+
     private CustomerController customerController;
     private JTabbedPane tabbedPane;
+    private final BackgroundLoader loader = new BackgroundLoader();
     
     // Plant Browsing Components
     private JTable plantTable;
-    private DefaultTableModel plantTableModel;
+    private ColumnarTableModel<Plant> plantTableModel;
     private JTextField searchNameField, searchTypeField, searchMinPriceField, searchMaxPriceField;
+    private JLabel facetLabel;
     private JSpinner quantitySpinner;
     
+    // Name autocomplete: lookups run on a background thread, and only the latest request is shown
+    private Timer nameSearchTimer;
+    private JPopupMenu completionPopup;
+    private final ExecutorService completionExecutor = createCompletionExecutor();
+    private Future<?> pendingCompletion;
+    private int completionRequest = 0;
+    private boolean applyingCompletion = false;
+    
     // Shopping Cart Components
     private JTable cartTable;
-    private DefaultTableModel cartTableModel;
+    private ColumnarTableModel<OrderItem> cartTableModel;
     private JLabel cartTotalLabel;
     
     // Order History Components
     private JTable orderTable;
-    private DefaultTableModel orderTableModel;
+    private ColumnarTableModel<Order> orderTableModel;
     
     // Profile Components
     private JTextField profileUsernameField, profileAddressField, profilePhoneField;
@@ -53,35 +76,45 @@ public class CustomerDashboardView extends JFrame {
         tabbedPane = new JTabbedPane();
         
         // Initialize table models
-        plantTableModel = new DefaultTableModel(new String[]{"Plant ID", "Name", "Type", "Price", "Available"}, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        plantTableModel = new ColumnarTableModel<Plant>(Plant::getPlantId)
+                .addStringColumn("Plant ID", Plant::getPlantId)
+                .addStringColumn("Name", Plant::getName)
+                .addStringColumn("Type", Plant::getType)
+                .addDoubleColumn("Price", Plant::getPrice, ColumnarTableModel.CURRENCY)
+                .addIntColumn("Available", Plant::getQuantity, quantity -> quantity > 0 ? "Yes (" + quantity + ")" : "No");
         plantTable = new JTable(plantTableModel);
+        plantTableModel.install(plantTable);
         
-        cartTableModel = new DefaultTableModel(new String[]{"Plant Name", "Price", "Quantity", "Subtotal"}, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        cartTableModel = new ColumnarTableModel<OrderItem>(OrderItem::getPlantId)
+                .addStringColumn("Plant Name", item -> item.getPlant().getName())
+                .addDoubleColumn("Price", item -> item.getPlant().getPrice(), ColumnarTableModel.CURRENCY)
+                .addIntColumn("Quantity", OrderItem::getQuantity, null)
+                .addDoubleColumn("Subtotal", OrderItem::getSubtotal, ColumnarTableModel.CURRENCY);
         cartTable = new JTable(cartTableModel);
+        cartTableModel.install(cartTable);
         
-        orderTableModel = new DefaultTableModel(new String[]{"Order ID", "Date", "Total", "Status"}, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        orderTableModel = new ColumnarTableModel<Order>(Order::getOrderId)
+                .addStringColumn("Order ID", Order::getOrderId)
+                .addComparableColumn("Date", Order::getOrderDate)
+                .addDoubleColumn("Total", Order::getTotalAmount, ColumnarTableModel.CURRENCY)
+                .addStringColumn("Status", Order::getStatus);
         orderTable = new JTable(orderTableModel);
+        orderTableModel.install(orderTable);
         
         // Initialize form components
         searchNameField = new JTextField(10);
         searchTypeField = new JTextField(10);
         searchMinPriceField = new JTextField(8);
         searchMaxPriceField = new JTextField(8);
+        nameSearchTimer = new Timer(NAME_SEARCH_DELAY_MS, e -> {
+            searchPlants(false);
+            requestCompletions();
+        });
+        nameSearchTimer.setRepeats(false);
+        completionPopup = new JPopupMenu();
+        completionPopup.setFocusable(false);
+        facetLabel = new JLabel(" ");
+        facetLabel.setBorder(BorderFactory.createEmptyBorder(2, 8, 2, 8));
         quantitySpinner = new JSpinner(new SpinnerNumberModel(1, 1, 100, 1));
         
         cartTotalLabel = new JLabel("Total: $0.00");
@@ -132,6 +165,7 @@ public class CustomerDashboardView extends JFrame {
         statusBar.setBorder(BorderFactory.createLoweredBevelBorder());
         JLabel statusLabel = new JLabel("Welcome, " + customerController.getCurrentCustomer().getUsername() + " (Customer)");
         statusBar.add(statusLabel);
+        statusBar.add(loader.getIndicator());
         add(statusBar, BorderLayout.SOUTH);
     }
 
@@ -182,11 +216,34 @@ public class CustomerDashboardView extends JFrame {
         // Setup button actions
         searchBtn.addActionListener(e -> searchPlants());
         clearSearchBtn.addActionListener(e -> clearSearch());
+        
+        // Search and suggest names as the customer types, once typing pauses;
+        // typos are tolerated by the catalog search
+        searchNameField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                nameChanged();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                nameChanged();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                nameChanged();
+            }
+        });
         showAllBtn.addActionListener(e -> loadPlantData());
         addToCartBtn.addActionListener(e -> addToCart());
         viewDetailsBtn.addActionListener(e -> viewPlantDetails());
         
-        panel.add(searchPanel, BorderLayout.NORTH);
+        JPanel northPanel = new JPanel(new BorderLayout());
+        northPanel.add(searchPanel, BorderLayout.CENTER);
+        northPanel.add(facetLabel, BorderLayout.SOUTH);
+        
+        panel.add(northPanel, BorderLayout.NORTH);
         panel.add(tableScrollPane, BorderLayout.CENTER);
         panel.add(addToCartPanel, BorderLayout.SOUTH);
         
@@ -392,22 +449,20 @@ public class CustomerDashboardView extends JFrame {
 
     // Plant Browsing Methods
     private void loadPlantData() {
-        plantTableModel.setRowCount(0);
-        List<Plant> plants = customerController.getAvailablePlants();
-        if (plants != null) {
-            for (Plant plant : plants) {
-                plantTableModel.addRow(new Object[]{
-                    plant.getPlantId(),
-                    plant.getName(),
-                    plant.getType(),
-                    String.format("$%.2f", plant.getPrice()),
-                    plant.getQuantity() > 0 ? "Yes (" + plant.getQuantity() + ")" : "No"
-                });
-            }
-        }
+        loader.load("plants", "plants", customerController::getAvailablePlants, this::showPlants);
+        updateFacets(null, null, null, null);
+    }
+
+    private void showPlants(List<Plant> plants) {
+        plantTableModel.setRows(plants != null ? plants : Collections.<Plant>emptyList());
     }
 
     private void searchPlants() {
+        searchPlants(true);
+    }
+
+    // Live searches pass showErrors=false and skip an invalid price range quietly
+    private void searchPlants(boolean showErrors) {
         String name = searchNameField.getText().trim();
         String type = searchTypeField.getText().trim();
         Double minPrice = null;
@@ -421,36 +476,130 @@ public class CustomerDashboardView extends JFrame {
                 maxPrice = Double.parseDouble(searchMaxPriceField.getText().trim());
             }
         } catch (NumberFormatException e) {
-            JOptionPane.showMessageDialog(this, "Please enter valid numbers for price range.", "Error", JOptionPane.ERROR_MESSAGE);
+            if (showErrors) {
+                JOptionPane.showMessageDialog(this, "Please enter valid numbers for price range.", "Error", JOptionPane.ERROR_MESSAGE);
+            }
             return;
         }
         
-        plantTableModel.setRowCount(0);
-        List<Plant> plants = customerController.searchPlants(
-            name.isEmpty() ? null : name,
-            type.isEmpty() ? null : type,
-            minPrice,
-            maxPrice
-        );
-        
-        if (plants != null) {
-            for (Plant plant : plants) {
-                plantTableModel.addRow(new Object[]{
-                    plant.getPlantId(),
-                    plant.getName(),
-                    plant.getType(),
-                    String.format("$%.2f", plant.getPrice()),
-                    plant.getQuantity() > 0 ? "Yes (" + plant.getQuantity() + ")" : "No"
-                });
+        String searchName = name.isEmpty() ? null : name;
+        String searchType = type.isEmpty() ? null : type;
+        Double searchMinPrice = minPrice;
+        Double searchMaxPrice = maxPrice;
+        // A newer search replaces one still running, so results always match the latest criteria
+        loader.load("plants", "search results",
+                () -> customerController.searchPlants(searchName, searchType, searchMinPrice, searchMaxPrice),
+                this::showPlants);
+        updateFacets(searchName, searchType, searchMinPrice, searchMaxPrice);
+    }
+
+    /**
+     * Show how many plants match per type and price band, so customers can see what narrowing a search would return
+     */
+    private void updateFacets(String name, String type, Double minPrice, Double maxPrice) {
+        loader.load("facets", "plant counts", () -> customerController.getPlantFacets(name, type, minPrice, maxPrice),
+                this::showFacets);
+    }
+
+    private void showFacets(PlantFacets facets) {
+        if (facets == null) {
+            facetLabel.setText(" ");
+            return;
+        }
+        StringBuilder text = new StringBuilder();
+        text.append(facets.getTotal()).append(" matching (").append(facets.getInStock()).append(" in stock)");
+        appendFacetCounts(text, "Types", facets.getTypeCounts());
+        appendFacetCounts(text, "Prices", facets.getPriceBandCounts());
+        facetLabel.setText(text.toString());
+    }
+
+    private void appendFacetCounts(StringBuilder text, String title, Map<String, Integer> counts) {
+        String separator = "  |  " + title + ": ";
+        for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+            if (entry.getValue() > 0) {
+                text.append(separator).append(entry.getKey()).append(" (").append(entry.getValue()).append(')');
+                separator = ", ";
             }
         }
     }
 
+    private void nameChanged() {
+        if (!applyingCompletion) {
+            nameSearchTimer.restart();
+        }
+    }
+
+    private void requestCompletions() {
+        // A newer request makes any lookup still running stale
+        if (pendingCompletion != null) {
+            pendingCompletion.cancel(true);
+        }
+        int request = ++completionRequest;
+        String prefix = searchNameField.getText();
+        if (prefix.trim().isEmpty()) {
+            completionPopup.setVisible(false);
+            return;
+        }
+
+        pendingCompletion = completionExecutor.submit(() -> {
+            List<String> completions = customerController.getNameCompletions(prefix, MAX_COMPLETIONS);
+            if (!Thread.currentThread().isInterrupted()) {
+                SwingUtilities.invokeLater(() -> showCompletions(request, completions));
+            }
+        });
+    }
+
+    private void showCompletions(int request, List<String> completions) {
+        if (request != completionRequest) {
+            return;
+        }
+        completionPopup.setVisible(false);
+        completionPopup.removeAll();
+        if (completions.isEmpty() || !searchNameField.isShowing()) {
+            return;
+        }
+        // A single completion equal to the typed text adds nothing
+        if (completions.size() == 1 && completions.get(0).equalsIgnoreCase(searchNameField.getText().trim())) {
+            return;
+        }
+
+        for (String completion : completions) {
+            JMenuItem item = new JMenuItem(completion);
+            item.addActionListener(e -> applyCompletion(completion));
+            completionPopup.add(item);
+        }
+        completionPopup.show(searchNameField, 0, searchNameField.getHeight());
+    }
+
+    private void applyCompletion(String completion) {
+        completionPopup.setVisible(false);
+        nameSearchTimer.stop();
+        applyingCompletion = true;
+        try {
+            searchNameField.setText(completion);
+        } finally {
+            applyingCompletion = false;
+        }
+        searchPlants(false);
+    }
+
+    private static ExecutorService createCompletionExecutor() {
+        // One daemon thread that exits when idle, so a closed dashboard leaves no thread behind
+        return new ThreadPoolExecutor(0, 1, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "plant-name-completion");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
     private void clearSearch() {
         searchNameField.setText("");
         searchTypeField.setText("");
         searchMinPriceField.setText("");
         searchMaxPriceField.setText("");
+        // Drop the pending name search and any completions for the old text
+        nameSearchTimer.stop();
+        requestCompletions();
         loadPlantData();
     }
 
@@ -461,7 +610,7 @@ public class CustomerDashboardView extends JFrame {
             return;
         }
         
-        String plantId = (String) plantTableModel.getValueAt(selectedRow, 0);
+        String plantId = plantTableModel.getString(plantTable.convertRowIndexToModel(selectedRow), 0);
         int quantity = (Integer) quantitySpinner.getValue();
         
         if (customerController.addToCart(plantId, quantity)) {
@@ -478,9 +627,12 @@ public class CustomerDashboardView extends JFrame {
             return;
         }
         
-        String plantId = (String) plantTableModel.getValueAt(selectedRow, 0);
-        Plant plant = customerController.getPlantById(plantId);
-        
+        String plantId = plantTableModel.getString(plantTable.convertRowIndexToModel(selectedRow), 0);
+        loader.load("plantDetails", "plant details", () -> customerController.getPlantById(plantId),
+                this::showPlantDetails);
+    }
+
+    private void showPlantDetails(Plant plant) {
         if (plant != null) {
             StringBuilder details = new StringBuilder();
             details.append("Plant Details\n\n");
@@ -504,19 +656,8 @@ public class CustomerDashboardView extends JFrame {
 
     // Shopping Cart Methods
     private void refreshCart() {
-        cartTableModel.setRowCount(0);
         List<OrderItem> cartItems = customerController.getShoppingCart();
-        
-        if (cartItems != null) {
-            for (OrderItem item : cartItems) {
-                cartTableModel.addRow(new Object[]{
-                    item.getPlant().getName(),
-                    String.format("$%.2f", item.getPlant().getPrice()),
-                    item.getQuantity(),
-                    String.format("$%.2f", item.getSubtotal())
-                });
-            }
-        }
+        cartTableModel.setRows(cartItems != null ? cartItems : Collections.<OrderItem>emptyList());
         
         // Update total
         double total = customerController.calculateCartTotal();
@@ -530,7 +671,7 @@ public class CustomerDashboardView extends JFrame {
             return;
         }
         
-        String plantName = (String) cartTableModel.getValueAt(selectedRow, 0);
+        String plantName = cartTableModel.getString(cartTable.convertRowIndexToModel(selectedRow), 0);
         String quantityStr = JOptionPane.showInputDialog(this, "Enter new quantity:", "Update Quantity", JOptionPane.QUESTION_MESSAGE);
         
         if (quantityStr != null && !quantityStr.trim().isEmpty()) {
@@ -560,7 +701,7 @@ public class CustomerDashboardView extends JFrame {
             return;
         }
         
-        String plantName = (String) cartTableModel.getValueAt(selectedRow, 0);
+        String plantName = cartTableModel.getString(cartTable.convertRowIndexToModel(selectedRow), 0);
         
         int confirm = JOptionPane.showConfirmDialog(
             this,
@@ -625,19 +766,11 @@ public class CustomerDashboardView extends JFrame {
 
     // Order History Methods
     private void loadOrderHistory() {
-        orderTableModel.setRowCount(0);
-        List<Order> orders = customerController.getOrderHistory();
-        
-        if (orders != null) {
-            for (Order order : orders) {
-                orderTableModel.addRow(new Object[]{
-                    order.getOrderId(),
-                    order.getOrderDate(),
-                    String.format("$%.2f", order.getTotalAmount()),
-                    order.getStatus()
-                });
-            }
-        }
+        loader.load("orders", "order history", customerController::getOrderHistory, this::showOrderHistory);
+    }
+
+    private void showOrderHistory(List<Order> orders) {
+        orderTableModel.setRows(orders != null ? orders : Collections.<Order>emptyList());
     }
 
     private void viewOrderDetails() {
@@ -647,9 +780,12 @@ public class CustomerDashboardView extends JFrame {
             return;
         }
         
-        String orderId = (String) orderTableModel.getValueAt(selectedRow, 0);
-        List<OrderItem> orderItems = customerController.getOrderDetails(orderId);
-        
+        String orderId = orderTableModel.getString(orderTable.convertRowIndexToModel(selectedRow), 0);
+        loader.load("orderDetails", "order details", () -> customerController.getOrderDetails(orderId),
+                orderItems -> showOrderDetails(orderId, orderItems));
+    }
+
+    private void showOrderDetails(String orderId, List<OrderItem> orderItems) {
         if (orderItems != null && !orderItems.isEmpty()) {
             StringBuilder details = new StringBuilder();
             details.append("Order Details for: ").append(orderId).append("\n\n");
@@ -677,8 +813,9 @@ public class CustomerDashboardView extends JFrame {
             return;
         }
         
-        String orderId = (String) orderTableModel.getValueAt(selectedRow, 0);
-        String status = (String) orderTableModel.getValueAt(selectedRow, 3);
+        int row = orderTable.convertRowIndexToModel(selectedRow);
+        String orderId = orderTableModel.getString(row, 0);
+        String status = orderTableModel.getString(row, 3);
         
         if (!"Pending".equals(status)) {
             JOptionPane.showMessageDialog(this, "Only pending orders can be cancelled.", "Error", JOptionPane.ERROR_MESSAGE);
@@ -0,0 +1,103 @@
+package com.greenthumb.view;
+
+import javax.swing.table.DefaultTableModel;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Vector;
+
+/**
+ * Read-only table model whose rows are identified by a key column, e.g. the user ID.
+ * Refreshing it with setRows() applies only the difference to the current rows (see
+ * RowDiff), so the table keeps its selection and scroll position and repaints only the
+ * rows that changed.
+ */
+public class KeyedTableModel extends DefaultTableModel {
+    private static final long serialVersionUID = 1L;
+
+    private final int keyColumn;
+
+    /**
+     * Create an empty model
+     * @param columnNames Column names
+     * @param keyColumn Column holding the key that identifies a row
+     */
+    public KeyedTableModel(String[] columnNames, int keyColumn) {
+        super(columnNames, 0);
+        this.keyColumn = keyColumn;
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return false;
+    }
+
+    /**
+     * Replace the rows, applying only the changes to the current rows
+     * @param rows New rows, in display order; each needs a value for every column
+     */
+    @SuppressWarnings("unchecked")
+    public void setRows(List<Object[]> rows) {
+        Vector<Vector<Object>> data = (Vector<Vector<Object>>) (Vector<?>) dataVector;
+        Object[] keys = new Object[rows.size()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = rows.get(i)[keyColumn];
+        }
+
+        RowDiff.apply(this, new RowDiff.Rows() {
+            @Override
+            public int getRowCount() {
+                return data.size();
+            }
+
+            @Override
+            public Object getKey(int row) {
+                return data.get(row).get(keyColumn);
+            }
+
+            @Override
+            public void deleteRows(int first, int last) {
+                data.subList(first, last + 1).clear();
+            }
+
+            @Override
+            public void insertRows(int first, int last) {
+                for (int i = first; i <= last; i++) {
+                    data.add(i, toRow(rows.get(i)));
+                }
+            }
+
+            @Override
+            public boolean rowChanged(int row) {
+                Vector<Object> current = data.get(row);
+                Object[] values = rows.get(row);
+                for (int column = 0; column < values.length; column++) {
+                    if (!Objects.equals(current.get(column), values[column])) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+
+            @Override
+            public void updateRow(int row) {
+                data.set(row, toRow(rows.get(row)));
+            }
+
+            @Override
+            public void replaceRows() {
+                data.clear();
+                for (Object[] row : rows) {
+                    data.add(toRow(row));
+                }
+            }
+        }, keys);
+    }
+
+    private Vector<Object> toRow(Object[] values) {
+        Vector<Object> row = new Vector<>(Arrays.asList(values));
+        row.setSize(getColumnCount());
+        return row;
+    }
+}
+
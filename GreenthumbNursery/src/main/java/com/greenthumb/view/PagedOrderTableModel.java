@@ -0,0 +1,422 @@
+package com.greenthumb.view;
+
+import com.greenthumb.dao.OrderPage;
+import com.greenthumb.model.Order;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import javax.swing.table.DefaultTableCellRenderer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntFunction;
+
+/**
+ * Order table model that loads rows on demand, newest order first.
+ * Only the order count is loaded up front; the table gets its full height from it, and
+ * pages of orders are fetched on a background thread when the table first paints their
+ * rows, which show a placeholder until then. A page reached by scrolling down is fetched
+ * with the cursor of the page above; a page reached by jumping is fetched by offset.
+ * The most recently used pages are kept, older ones are dropped and fetched again when
+ * scrolled back to, and the page below a newly shown one is prefetched. A page that
+ * fails to load shows an error placeholder and is requested again a little later.
+ * Changed orders can be merged in with applyChanges(): loaded rows are patched in place,
+ * and when orders enter or leave the listing the loaded pages are fetched again while
+ * their old rows stay on screen.
+ * All methods must be called on the Event Dispatch Thread.
+ */
+public class PagedOrderTableModel extends AbstractTableModel {
+    private static final long serialVersionUID = 1L;
+    private static final String[] COLUMNS = {"Order ID", "Customer ID", "Date", "Total", "Status"};
+    private static final int TOTAL_COLUMN = 3;
+    private static final String LOADING = "Loading...";
+    private static final String LOAD_FAILED = "Failed to load";
+    // A page that failed to load is requested again after this delay if still on screen
+    private static final int RETRY_DELAY_MILLIS = 5000;
+    // Queued page loads further than this from the wanted page are skipped
+    private static final int MAX_QUEUED_DISTANCE = 2;
+
+    /**
+     * Fetches the page following a cursor
+     */
+    public interface CursorPageLoader {
+        OrderPage load(String status, String cursor, int pageSize);
+    }
+
+    /**
+     * Fetches the page starting at an offset
+     */
+    public interface OffsetPageLoader {
+        OrderPage load(String status, int offset, int pageSize);
+    }
+
+    private final ToIntFunction<String> counter;
+    private final CursorPageLoader cursorLoader;
+    private final OffsetPageLoader offsetLoader;
+    private final int pageSize;
+    private final ExecutorService executor = createLoaderExecutor();
+
+    // Loaded pages by page number, least recently used first
+    private final Map<Integer, List<Order>> pages;
+    // Cursor leading to each page whose predecessor has been loaded
+    private final Map<Integer, String> pageCursors = new HashMap<>();
+    // Pages dropped by a reload, shown until they are fetched again
+    private final Map<Integer, List<Order>> stalePages = new HashMap<>();
+    private final Set<Integer> requestedPages = new HashSet<>();
+    // Pages whose last load failed, not requested again until their retry delay passes
+    private final Set<Integer> failedPages = new HashSet<>();
+    private String status;
+    private int rowCount;
+    // Bumped on refresh, so results loaded for an older listing are dropped
+    private int generation;
+    // Page the table asked for last; queued loads far from it are skipped
+    private volatile int wantedPage;
+
+    /**
+     * Create an empty model; call refresh() to load it
+     * @param counter Counts orders with a status (null for all), or returns -1 on error
+     * @param cursorLoader Fetches the page after a cursor
+     * @param offsetLoader Fetches the page at an offset
+     * @param pageSize Number of orders per page
+     * @param cachedPages Number of pages to keep loaded
+     */
+    public PagedOrderTableModel(ToIntFunction<String> counter, CursorPageLoader cursorLoader,
+                                OffsetPageLoader offsetLoader, int pageSize, int cachedPages) {
+        this.counter = counter;
+        this.cursorLoader = cursorLoader;
+        this.offsetLoader = offsetLoader;
+        this.pageSize = pageSize;
+        this.pages = new LinkedHashMap<Integer, List<Order>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, List<Order>> eldest) {
+                return size() > cachedPages;
+            }
+        };
+    }
+
+    /**
+     * Set up a table showing this model: totals are kept as numbers and formatted as
+     * they are painted
+     * @param table Table showing this model
+     */
+    public void install(JTable table) {
+        table.setModel(this);
+        table.getColumnModel().getColumn(TOTAL_COLUMN).setCellRenderer(new CurrencyRenderer());
+    }
+
+    /**
+     * Show orders with another status
+     * @param status Order status, or null for all orders
+     */
+    public void setStatus(String status) {
+        this.status = status;
+        refresh();
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    /**
+     * Drop all loaded orders and load the count and first page again
+     */
+    public void refresh() {
+        generation++;
+        pages.clear();
+        stalePages.clear();
+        pageCursors.clear();
+        requestedPages.clear();
+        failedPages.clear();
+        fireTableDataChanged();
+
+        requestCount();
+        requestPage(0, false);
+    }
+
+    /**
+     * Merge orders that were placed or updated since the last call.
+     * Loaded orders that stay in the listing are replaced in place. If an order enters
+     * or leaves the listing, or orders were deleted, rows below it move, so the count and
+     * the pages on screen are loaded again; their old rows are shown until then.
+     * @param changed Orders placed or updated since the last call
+     * @param ordersDeleted true if orders may have been deleted
+     * @return true if the pages are being loaded again, so rows may move
+     */
+    public boolean applyChanges(List<Order> changed, boolean ordersDeleted) {
+        boolean rowsMoved = ordersDeleted;
+        for (Order order : changed) {
+            boolean listed = status == null || status.equals(order.getStatus());
+            int row = indexOfOrder(order.getOrderId());
+            if (row >= 0 && listed) {
+                int page = row / pageSize;
+                List<Order> orders = new ArrayList<>(pages.get(page));
+                orders.set(row % pageSize, order);
+                pages.put(page, orders);
+                fireTableRowsUpdated(row, row);
+            } else if (row >= 0 || listed) {
+                // A listed order that is not loaded may be new, so its position is unknown
+                rowsMoved = true;
+            }
+        }
+        if (rowsMoved) {
+            reloadPages();
+        }
+        return rowsMoved;
+    }
+
+    /**
+     * Find the row of a loaded order
+     * @param orderId Order ID
+     * @return Row index, or -1 if the order is not on a loaded page
+     */
+    public int indexOfOrder(String orderId) {
+        for (Map.Entry<Integer, List<Order>> entry : pages.entrySet()) {
+            List<Order> orders = entry.getValue();
+            for (int i = 0; i < orders.size(); i++) {
+                if (orders.get(i).getOrderId().equals(orderId)) {
+                    return entry.getKey() * pageSize + i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Load the count and the pages on screen again, keeping the old rows visible
+     */
+    private void reloadPages() {
+        generation++;
+        stalePages.putAll(pages);
+        pages.clear();
+        pageCursors.clear();
+        requestedPages.clear();
+        failedPages.clear();
+
+        requestCount();
+        // Repainting requests the pages on screen again
+        if (rowCount > 0) {
+            fireTableRowsUpdated(0, rowCount - 1);
+        }
+    }
+
+    /**
+     * Get the order shown in a row
+     * @param row Row index
+     * @return Order, or null if its page has not been loaded yet
+     */
+    public Order getOrderAt(int row) {
+        List<Order> orders = pages.get(row / pageSize);
+        if (orders == null) {
+            orders = stalePages.get(row / pageSize);
+        }
+        int index = row % pageSize;
+        return orders != null && index < orders.size() ? orders.get(index) : null;
+    }
+
+    /**
+     * Get the order selected in a table showing this model, telling the user if there is none
+     * @param table Table showing this model
+     * @param action What the order is selected for, used in the error message
+     * @return Selected order, or null if none is selected or it is still loading
+     */
+    public Order getSelectedOrder(JTable table, String action) {
+        int selectedRow = table.getSelectedRow();
+        if (selectedRow < 0) {
+            JOptionPane.showMessageDialog(table, "Please select an order to " + action + ".", "Error", JOptionPane.ERROR_MESSAGE);
+            return null;
+        }
+        Order order = getOrderAt(table.convertRowIndexToModel(selectedRow));
+        if (order == null) {
+            JOptionPane.showMessageDialog(table, "The selected order is still loading.", "Error", JOptionPane.ERROR_MESSAGE);
+        }
+        return order;
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return column == TOTAL_COLUMN ? Double.class : Object.class;
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return false;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        int page = row / pageSize;
+        List<Order> orders = pages.get(page);
+        if (orders == null) {
+            boolean failed = failedPages.contains(page);
+            if (!failed) {
+                requestPage(page, false);
+            }
+            orders = stalePages.get(page);
+            if (orders == null) {
+                return column == 0 ? (failed ? LOAD_FAILED : LOADING) : null;
+            }
+        }
+        int index = row % pageSize;
+        if (index >= orders.size()) {
+            // Orders were removed since the count was taken
+            return null;
+        }
+        Order order = orders.get(index);
+        switch (column) {
+            case 0: return order.getOrderId();
+            case 1: return order.getCustomerId();
+            case 2: return order.getOrderDate();
+            case TOTAL_COLUMN: return order.getTotalAmount();
+            default: return order.getStatus();
+        }
+    }
+
+    private void requestCount() {
+        int loadGeneration = generation;
+        String loadStatus = status;
+        executor.execute(() -> {
+            int count = counter.applyAsInt(loadStatus);
+            SwingUtilities.invokeLater(() -> countLoaded(loadGeneration, count));
+        });
+    }
+
+    private void requestPage(int page, boolean prefetch) {
+        if (!prefetch) {
+            wantedPage = page;
+        }
+        if (!requestedPages.add(page)) {
+            return;
+        }
+        int loadGeneration = generation;
+        String loadStatus = status;
+        String cursor = page == 0 ? null : pageCursors.get(page);
+        executor.execute(() -> {
+            // Scrolled far past this page while it waited in the queue
+            if (Math.abs(page - wantedPage) > MAX_QUEUED_DISTANCE) {
+                SwingUtilities.invokeLater(() -> pageSkipped(loadGeneration, page));
+                return;
+            }
+            OrderPage result = cursor != null
+                    ? cursorLoader.load(loadStatus, cursor, pageSize)
+                    : offsetLoader.load(loadStatus, page * pageSize, pageSize);
+            SwingUtilities.invokeLater(() -> pageLoaded(loadGeneration, page, result, prefetch));
+        });
+    }
+
+    private void countLoaded(int loadGeneration, int count) {
+        if (loadGeneration != generation || count < 0 || count == rowCount) {
+            return;
+        }
+        // New orders are the newest, so they are added at the top and the table's
+        // selection moves down with the rows it was on; removed orders could be anywhere
+        int oldCount = rowCount;
+        rowCount = count;
+        if (count > oldCount) {
+            fireTableRowsInserted(0, count - oldCount - 1);
+        } else {
+            fireTableRowsDeleted(count, oldCount - 1);
+        }
+    }
+
+    private void pageSkipped(int loadGeneration, int page) {
+        if (loadGeneration == generation) {
+            requestedPages.remove(page);
+            // Requests the page again if its rows are still on screen
+            fireRowsUpdated(page);
+        }
+    }
+
+    private void pageLoaded(int loadGeneration, int page, OrderPage result, boolean prefetch) {
+        if (loadGeneration != generation) {
+            return;
+        }
+        requestedPages.remove(page);
+        if (result == null) {
+            pageFailed(loadGeneration, page);
+            return;
+        }
+        stalePages.remove(page);
+        pages.put(page, result.getOrders());
+        if (result.hasMore()) {
+            pageCursors.put(page + 1, result.getNextCursor());
+        }
+
+        fireRowsUpdated(page);
+        if (!prefetch && result.hasMore() && !pages.containsKey(page + 1)) {
+            requestPage(page + 1, true);
+        }
+    }
+
+    /**
+     * Show the page as failed, and after a delay let painting request it again; retrying
+     * right away would repeat a failing query as fast as the table repaints
+     */
+    private void pageFailed(int loadGeneration, int page) {
+        failedPages.add(page);
+        fireRowsUpdated(page);
+        Timer retry = new Timer(RETRY_DELAY_MILLIS, e -> {
+            if (loadGeneration == generation && failedPages.remove(page)) {
+                fireRowsUpdated(page);
+            }
+        });
+        retry.setRepeats(false);
+        retry.start();
+    }
+
+    private void fireRowsUpdated(int page) {
+        int firstRow = page * pageSize;
+        int lastRow = Math.min(rowCount, firstRow + pageSize) - 1;
+        if (firstRow <= lastRow) {
+            fireTableRowsUpdated(firstRow, lastRow);
+        }
+    }
+
+    private static ExecutorService createLoaderExecutor() {
+        // One daemon thread that exits when idle, so a closed dashboard leaves no thread behind
+        return new ThreadPoolExecutor(0, 1, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "order-page-loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Formats order totals as they are painted
+     */
+    private static final class CurrencyRenderer extends DefaultTableCellRenderer {
+        private static final long serialVersionUID = 1L;
+
+        CurrencyRenderer() {
+            setHorizontalAlignment(SwingConstants.RIGHT);
+        }
+
+        @Override
+        protected void setValue(Object value) {
+            setText(value instanceof Double ? ColumnarTableModel.CURRENCY.apply((Double) value) : "");
+        }
+    }
+}
+
@@ -0,0 +1,197 @@
+package com.greenthumb.view;
+
+import javax.swing.table.AbstractTableModel;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Keyed diff between the rows a table model shows and the rows it should show next.
+ * Rows are matched by key: rows that are gone are deleted, new rows are inserted, rows
+ * whose values changed are updated, and rows that kept their relative order are left
+ * alone. The rows left in place are a longest increasing subsequence of their old
+ * positions, so as few rows as possible are moved; moved rows are deleted and inserted
+ * again. The model's listeners are told about each contiguous run of changes, so tables
+ * keep their selection and scroll position and repaint only the rows that changed.
+ * When keys repeat or the changes are scattered over many runs, the rows are replaced
+ * all at once instead.
+ */
+final class RowDiff {
+    // More runs than this cost more to apply one by one than to replace everything
+    private static final int MAX_RUNS = 32;
+
+    /**
+     * Row storage of a table model, edited by the diff. Storage methods must not fire
+     * events; the diff fires them after each edit.
+     */
+    interface Rows {
+        int getRowCount();
+
+        Object getKey(int row);
+
+        /**
+         * Remove the rows from first to last inclusive
+         */
+        void deleteRows(int first, int last);
+
+        /**
+         * Insert new rows first to last inclusive at the same positions
+         */
+        void insertRows(int first, int last);
+
+        /**
+         * Check if the row at a position differs from the new row at that position
+         */
+        boolean rowChanged(int row);
+
+        /**
+         * Replace the row at a position with the new row at that position
+         */
+        void updateRow(int row);
+
+        /**
+         * Replace all rows with the new rows
+         */
+        void replaceRows();
+    }
+
+    private RowDiff() {
+    }
+
+    /**
+     * Change a model's rows to the new rows
+     * @param model Model whose listeners are notified
+     * @param rows Row storage of the model
+     * @param newKeys Key of each new row, in display order
+     */
+    static void apply(AbstractTableModel model, Rows rows, Object[] newKeys) {
+        int oldCount = rows.getRowCount();
+        Map<Object, Integer> oldPositions = new HashMap<>();
+        for (int i = 0; i < oldCount; i++) {
+            oldPositions.put(rows.getKey(i), i);
+        }
+        // Old position of each new row, or -1 for a new key
+        int[] oldPositionOf = new int[newKeys.length];
+        Map<Object, Integer> newPositions = new HashMap<>();
+        for (int i = 0; i < newKeys.length; i++) {
+            if (newPositions.put(newKeys[i], i) != null) {
+                // Duplicate keys cannot be matched up
+                replace(model, rows);
+                return;
+            }
+            Integer oldPosition = oldPositions.get(newKeys[i]);
+            oldPositionOf[i] = oldPosition != null ? oldPosition : -1;
+        }
+        if (oldPositions.size() != oldCount) {
+            replace(model, rows);
+            return;
+        }
+
+        boolean[] kept = new boolean[oldCount];
+        markLongestIncreasingRun(oldPositionOf, kept);
+        if (countRuns(kept, oldPositionOf) > MAX_RUNS) {
+            replace(model, rows);
+            return;
+        }
+
+        // Delete rows that are gone or moved, bottom up
+        int runEnd = -1;
+        for (int i = oldCount - 1; i >= -1; i--) {
+            boolean delete = i >= 0 && !kept[i];
+            if (delete && runEnd < 0) {
+                runEnd = i;
+            } else if (!delete && runEnd >= 0) {
+                rows.deleteRows(i + 1, runEnd);
+                model.fireTableRowsDeleted(i + 1, runEnd);
+                runEnd = -1;
+            }
+        }
+
+        // The kept rows are now in their new order; insert and update around them
+        int insertStart = -1;
+        int updateStart = -1;
+        for (int i = 0; i <= newKeys.length; i++) {
+            boolean insert = i < newKeys.length && isInserted(i, kept, oldPositionOf);
+            if (insert && insertStart < 0) {
+                insertStart = i;
+            } else if (!insert && insertStart >= 0) {
+                rows.insertRows(insertStart, i - 1);
+                model.fireTableRowsInserted(insertStart, i - 1);
+                insertStart = -1;
+            }
+            // Pending inserts are in place, so position i holds the kept row for new row i
+            boolean update = i < newKeys.length && !insert && rows.rowChanged(i);
+            if (update) {
+                rows.updateRow(i);
+                if (updateStart < 0) {
+                    updateStart = i;
+                }
+            } else if (updateStart >= 0) {
+                model.fireTableRowsUpdated(updateStart, i - 1);
+                updateStart = -1;
+            }
+        }
+    }
+
+    private static void replace(AbstractTableModel model, Rows rows) {
+        rows.replaceRows();
+        model.fireTableDataChanged();
+    }
+
+    private static boolean isInserted(int newPosition, boolean[] kept, int[] oldPositionOf) {
+        return oldPositionOf[newPosition] < 0 || !kept[oldPositionOf[newPosition]];
+    }
+
+    private static int countRuns(boolean[] kept, int[] oldPositionOf) {
+        int runs = 0;
+        for (int i = 0; i < kept.length; i++) {
+            if (!kept[i] && (i == 0 || kept[i - 1])) {
+                runs++;
+            }
+        }
+        for (int i = 0; i < oldPositionOf.length; i++) {
+            if (isInserted(i, kept, oldPositionOf) && (i == 0 || !isInserted(i - 1, kept, oldPositionOf))) {
+                runs++;
+            }
+        }
+        return runs;
+    }
+
+    /**
+     * Find a longest increasing subsequence of the old positions, ignoring new rows (-1),
+     * by patience sorting in O(n log n)
+     * @param oldPositionOf Old position of each new row, or -1
+     * @param kept Set to true for the old positions in the subsequence
+     */
+    private static void markLongestIncreasingRun(int[] oldPositionOf, boolean[] kept) {
+        // tails[k]: index into oldPositionOf ending the best run of length k + 1
+        int[] tails = new int[oldPositionOf.length];
+        int[] previous = new int[oldPositionOf.length];
+        int length = 0;
+        for (int i = 0; i < oldPositionOf.length; i++) {
+            int value = oldPositionOf[i];
+            if (value < 0) {
+                continue;
+            }
+            int low = 0;
+            int high = length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (oldPositionOf[tails[mid]] < value) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            previous[i] = low > 0 ? tails[low - 1] : -1;
+            tails[low] = i;
+            if (low == length) {
+                length++;
+            }
+        }
+
+        for (int i = length > 0 ? tails[length - 1] : -1; i >= 0; i = previous[i]) {
+            kept[oldPositionOf[i]] = true;
+        }
+    }
+}
+
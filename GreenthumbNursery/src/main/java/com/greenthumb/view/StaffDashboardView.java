@@ -4,36 +4,58 @@ import com.greenthumb.controller.StaffController;
 import com.greenthumb.model.*;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.event.TableModelEvent;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Staff dashboard view for the Greenthumb Nursery application.
  * Provides interface for staff to manage inventory and process orders.
  */
 public class StaffDashboardView extends JFrame {
+    private static final int ORDER_PAGE_SIZE = 100;
+    private static final int LOW_STOCK_THRESHOLD = 10;
+    private static final int CACHED_ORDER_PAGES = 8;
+    
     private StaffController staffController;
     private JTabbedPane tabbedPane;
+    private final BackgroundLoader loader = new BackgroundLoader();
     
     // Plant Management Components
     private JTable plantTable;
-    private DefaultTableModel plantTableModel;
+    private ColumnarTableModel<Plant> plantTableModel;
+    private ColumnarRowSorter<Plant> plantSorter;
     private JTextField plantIdField, plantNameField, plantTypeField, plantPriceField, plantQuantityField;
     private JTextArea plantDescriptionArea;
     private JTextField searchNameField, searchTypeField, searchMinPriceField, searchMaxPriceField;
+    private JToggleButton lowStockBtn;
+    private JLabel plantCountLabel;
+    // Descriptions of the listed plants, which the table does not show
+    private final Map<String, String> plantDescriptions = new HashMap<>();
     
     // Order Management Components
     private JTable orderTable;
-    private DefaultTableModel orderTableModel;
+    private PagedOrderTableModel orderTableModel;
     private JComboBox<String> orderStatusFilter;
     private JComboBox<String> orderStatusComboBox;
+    // Order the user selected, selected again when polled changes move the rows
+    private String selectedOrderId;
+    // Set from a polled change that reloads the rows until the selected order is found again
+    private boolean restoringSelection;
+    // Set while the order table follows a model change, so its selection changes are not the user's
+    private boolean orderTableUpdating;
     
     // Customer Management Components
     private JTable customerTable;
-    private DefaultTableModel customerTableModel;
+    private KeyedTableModel customerTableModel;
     private JTextField customerIdField, customerUsernameField, customerAddressField, customerPhoneField;
     
     // Report Components
@@ -55,28 +77,40 @@ public class StaffDashboardView extends JFrame {
         tabbedPane = new JTabbedPane();
         
         // Initialize table models
-        plantTableModel = new DefaultTableModel(new String[]{"Plant ID", "Name", "Type", "Price", "Quantity"}, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        plantTableModel = new ColumnarTableModel<Plant>(Plant::getPlantId)
+                .addStringColumn("Plant ID", Plant::getPlantId)
+                .addStringColumn("Name", Plant::getName)
+                .addStringColumn("Type", Plant::getType)
+                .addDoubleColumn("Price", Plant::getPrice, ColumnarTableModel.CURRENCY)
+                .addIntColumn("Quantity", Plant::getQuantity, null);
         plantTable = new JTable(plantTableModel);
+        plantSorter = plantTableModel.install(plantTable);
+        plantSorter.addRowSorterListener(e -> updatePlantCount());
         
-        orderTableModel = new DefaultTableModel(new String[]{"Order ID", "Customer ID", "Date", "Total", "Status"}, 0) {
+        orderTableModel = new PagedOrderTableModel(staffController::countOrders, staffController::getOrdersPage,
+                staffController::getOrdersPageAt, ORDER_PAGE_SIZE, CACHED_ORDER_PAGES);
+        orderTable = new JTable(orderTableModel) {
             @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
+            public void tableChanged(TableModelEvent e) {
+                orderTableUpdating = true;
+                try {
+                    super.tableChanged(e);
+                } finally {
+                    orderTableUpdating = false;
+                }
+                if (restoringSelection) {
+                    restoreSelectedOrder();
+                }
             }
         };
-        orderTable = new JTable(orderTableModel);
-        
-        customerTableModel = new DefaultTableModel(new String[]{"Customer ID", "Username", "Address", "Phone"}, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
+        orderTableModel.install(orderTable);
+        orderTable.getSelectionModel().addListSelectionListener(e -> {
+            if (!e.getValueIsAdjusting()) {
+                rememberSelectedOrder();
             }
-        };
+        });
+        
+        customerTableModel = new KeyedTableModel(new String[]{"Customer ID", "Username", "Address", "Phone"}, 0);
         customerTable = new JTable(customerTableModel);
         
         // Initialize form components
@@ -94,6 +128,8 @@ public class StaffDashboardView extends JFrame {
         searchTypeField = new JTextField(10);
         searchMinPriceField = new JTextField(8);
         searchMaxPriceField = new JTextField(8);
+        lowStockBtn = new JToggleButton("Low Stock");
+        plantCountLabel = new JLabel();
         
         // Order components
         orderStatusFilter = new JComboBox<>(new String[]{"All", "Pending", "Processing", "Shipped", "Delivered", "Cancelled"});
@@ -144,6 +180,7 @@ public class StaffDashboardView extends JFrame {
         statusBar.setBorder(BorderFactory.createLoweredBevelBorder());
         JLabel statusLabel = new JLabel("Welcome, " + staffController.getCurrentUser().getUsername() + " (Staff)");
         statusBar.add(statusLabel);
+        statusBar.add(loader.getIndicator());
         add(statusBar, BorderLayout.SOUTH);
     }
 
@@ -155,7 +192,7 @@ public class StaffDashboardView extends JFrame {
         
         // Search panel
         JPanel searchPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
-        searchPanel.setBorder(BorderFactory.createTitledBorder("Search Plants"));
+        searchPanel.setBorder(BorderFactory.createTitledBorder("Filter Plants"));
         
         searchPanel.add(new JLabel("Name:"));
         searchPanel.add(searchNameField);
@@ -166,13 +203,11 @@ public class StaffDashboardView extends JFrame {
         searchPanel.add(new JLabel("Max Price:"));
         searchPanel.add(searchMaxPriceField);
         
-        JButton searchBtn = new JButton("Search");
         JButton clearSearchBtn = new JButton("Clear");
-        JButton lowStockBtn = new JButton("Low Stock");
         
-        searchPanel.add(searchBtn);
-        searchPanel.add(clearSearchBtn);
         searchPanel.add(lowStockBtn);
+        searchPanel.add(clearSearchBtn);
+        searchPanel.add(plantCountLabel);
         
         // Table panel
         JScrollPane tableScrollPane = new JScrollPane(plantTable);
@@ -229,9 +264,29 @@ public class StaffDashboardView extends JFrame {
         formPanel.add(buttonPanel, gbc);
         
         // Setup button actions
-        searchBtn.addActionListener(e -> searchPlants());
+        // Filters apply to the loaded plants as they are typed, without a query
+        DocumentListener filterListener = new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                filterPlants();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                filterPlants();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                filterPlants();
+            }
+        };
+        searchNameField.getDocument().addDocumentListener(filterListener);
+        searchTypeField.getDocument().addDocumentListener(filterListener);
+        searchMinPriceField.getDocument().addDocumentListener(filterListener);
+        searchMaxPriceField.getDocument().addDocumentListener(filterListener);
+        lowStockBtn.addActionListener(e -> filterPlants());
         clearSearchBtn.addActionListener(e -> clearSearch());
-        lowStockBtn.addActionListener(e -> showLowStockPlants());
         updatePlantBtn.addActionListener(e -> updatePlant());
         updateQuantityBtn.addActionListener(e -> updatePlantQuantity());
         refreshPlantBtn.addActionListener(e -> loadPlantData());
@@ -442,106 +497,84 @@ public class StaffDashboardView extends JFrame {
 
     // Plant Management Methods
     private void loadPlantData() {
-        plantTableModel.setRowCount(0);
-        List<Plant> plants = staffController.getAllPlants();
+        loader.load("plants", "plants", staffController::getAllPlants, this::showPlants);
+    }
+
+    private void showPlants(List<Plant> plants) {
+        plantDescriptions.clear();
         if (plants != null) {
             for (Plant plant : plants) {
-                plantTableModel.addRow(new Object[]{
-                    plant.getPlantId(),
-                    plant.getName(),
-                    plant.getType(),
-                    String.format("$%.2f", plant.getPrice()),
-                    plant.getQuantity()
-                });
+                plantDescriptions.put(plant.getPlantId(), plant.getDescription());
             }
         }
+        plantTableModel.setRows(plants != null ? plants : Collections.<Plant>emptyList());
     }
 
     private void populatePlantForm() {
         int selectedRow = plantTable.getSelectedRow();
         if (selectedRow >= 0) {
-            plantIdField.setText((String) plantTableModel.getValueAt(selectedRow, 0));
-            plantNameField.setText((String) plantTableModel.getValueAt(selectedRow, 1));
-            plantTypeField.setText((String) plantTableModel.getValueAt(selectedRow, 2));
-            String priceStr = (String) plantTableModel.getValueAt(selectedRow, 3);
-            plantPriceField.setText(priceStr.replace("$", ""));
-            plantQuantityField.setText(plantTableModel.getValueAt(selectedRow, 4).toString());
+            int row = plantTable.convertRowIndexToModel(selectedRow);
+            plantIdField.setText(plantTableModel.getString(row, 0));
+            plantNameField.setText(plantTableModel.getString(row, 1));
+            plantTypeField.setText(plantTableModel.getString(row, 2));
+            plantPriceField.setText(String.format("%.2f", plantTableModel.getDouble(row, 3)));
+            plantQuantityField.setText(String.valueOf(plantTableModel.getInt(row, 4)));
             
-            // Load description from database
-            String plantId = (String) plantTableModel.getValueAt(selectedRow, 0);
-            List<Plant> plants = staffController.getAllPlants();
-            if (plants != null) {
-                for (Plant plant : plants) {
-                    if (plant.getPlantId().equals(plantId)) {
-                        plantDescriptionArea.setText(plant.getDescription());
-                        break;
-                    }
-                }
-            }
+            String plantId = plantTableModel.getString(row, 0);
+            plantDescriptionArea.setText(plantDescriptions.get(plantId));
         }
     }
 
-    private void searchPlants() {
+    private void filterPlants() {
+        List<ColumnFilter<Plant>> filters = new ArrayList<>();
         String name = searchNameField.getText().trim();
+        if (!name.isEmpty()) {
+            filters.add(ColumnFilter.contains(plantTableModel, 1, name));
+        }
         String type = searchTypeField.getText().trim();
-        Double minPrice = null;
-        Double maxPrice = null;
-        
+        if (!type.isEmpty()) {
+            filters.add(ColumnFilter.contains(plantTableModel, 2, type));
+        }
+        Double minPrice = parsePrice(searchMinPriceField);
+        Double maxPrice = parsePrice(searchMaxPriceField);
+        if (minPrice != null || maxPrice != null) {
+            filters.add(ColumnFilter.between(plantTableModel, 3,
+                    minPrice != null ? minPrice : Double.NEGATIVE_INFINITY,
+                    maxPrice != null ? maxPrice : Double.POSITIVE_INFINITY));
+        }
+        if (lowStockBtn.isSelected()) {
+            filters.add(ColumnFilter.below(plantTableModel, 4, LOW_STOCK_THRESHOLD));
+        }
+        plantSorter.setRowFilter(filters.isEmpty() ? null : ColumnFilter.allOf(plantTableModel, filters));
+    }
+
+    /**
+     * Read a price filter field; a number still being typed is ignored until it parses
+     * @return Price, or null if the field is empty or not a number
+     */
+    private Double parsePrice(JTextField field) {
+        String text = field.getText().trim();
+        if (text.isEmpty()) {
+            return null;
+        }
         try {
-            if (!searchMinPriceField.getText().trim().isEmpty()) {
-                minPrice = Double.parseDouble(searchMinPriceField.getText().trim());
-            }
-            if (!searchMaxPriceField.getText().trim().isEmpty()) {
-                maxPrice = Double.parseDouble(searchMaxPriceField.getText().trim());
-            }
+            return Double.parseDouble(text);
         } catch (NumberFormatException e) {
-            JOptionPane.showMessageDialog(this, "Please enter valid numbers for price range.", "Error", JOptionPane.ERROR_MESSAGE);
-            return;
-        }
-        
-        plantTableModel.setRowCount(0);
-        List<Plant> plants = staffController.searchPlants(
-            name.isEmpty() ? null : name,
-            type.isEmpty() ? null : type,
-            minPrice,
-            maxPrice
-        );
-        
-        if (plants != null) {
-            for (Plant plant : plants) {
-                plantTableModel.addRow(new Object[]{
-                    plant.getPlantId(),
-                    plant.getName(),
-                    plant.getType(),
-                    String.format("$%.2f", plant.getPrice()),
-                    plant.getQuantity()
-                });
-            }
+            return null;
         }
     }
 
+    private void updatePlantCount() {
+        plantCountLabel.setText("Showing " + plantSorter.getViewRowCount() + " of " + plantTableModel.getRowCount());
+    }
+
     private void clearSearch() {
         searchNameField.setText("");
         searchTypeField.setText("");
         searchMinPriceField.setText("");
         searchMaxPriceField.setText("");
-        loadPlantData();
-    }
-
-    private void showLowStockPlants() {
-        plantTableModel.setRowCount(0);
-        List<Plant> plants = staffController.getLowStockPlants(10);
-        if (plants != null) {
-            for (Plant plant : plants) {
-                plantTableModel.addRow(new Object[]{
-                    plant.getPlantId(),
-                    plant.getName(),
-                    plant.getType(),
-                    String.format("$%.2f", plant.getPrice()),
-                    plant.getQuantity()
-                });
-            }
-        }
+        lowStockBtn.setSelected(false);
+        filterPlants();
     }
 
     private void updatePlant() {
@@ -600,54 +633,70 @@ public class StaffDashboardView extends JFrame {
 
     // Order Management Methods
     private void loadOrderData() {
-        orderTableModel.setRowCount(0);
-        List<Order> orders = staffController.getAllOrders();
-        if (orders != null) {
-            for (Order order : orders) {
-                orderTableModel.addRow(new Object[]{
-                    order.getOrderId(),
-                    order.getCustomerId(),
-                    order.getOrderDate(),
-                    String.format("$%.2f", order.getTotalAmount()),
-                    order.getStatus()
-                });
-            }
-        }
+        // Loads the order count and the visible pages in the background
+        orderTableModel.setStatus(null);
     }
 
     private void filterOrders() {
         String selectedStatus = (String) orderStatusFilter.getSelectedItem();
-        
-        orderTableModel.setRowCount(0);
-        List<Order> orders;
-        
-        if ("All".equals(selectedStatus)) {
-            orders = staffController.getAllOrders();
-        } else {
-            orders = staffController.getOrdersByStatus(selectedStatus);
+        orderTableModel.setStatus("All".equals(selectedStatus) ? null : selectedStatus);
+    }
+
+    /**
+     * Merge orders changed in the database into the order table
+     * @param changed Orders placed or updated since the last poll
+     * @param ordersDeleted true if orders may have been deleted
+     */
+    public void ordersChanged(List<Order> changed, boolean ordersDeleted) {
+        String status = orderTableModel.getStatus();
+        for (Order order : changed) {
+            if (order.getOrderId().equals(selectedOrderId) && status != null && !status.equals(order.getStatus())) {
+                // The selected order left the listing
+                orderTable.clearSelection();
+            }
         }
-        
-        if (orders != null) {
-            for (Order order : orders) {
-                orderTableModel.addRow(new Object[]{
-                    order.getOrderId(),
-                    order.getCustomerId(),
-                    order.getOrderDate(),
-                    String.format("$%.2f", order.getTotalAmount()),
-                    order.getStatus()
-                });
+        if (orderTableModel.applyChanges(changed, ordersDeleted) && selectedOrderId != null) {
+            restoringSelection = true;
+        }
+    }
+
+    private void rememberSelectedOrder() {
+        int selectedRow = orderTable.getSelectedRow();
+        if (orderTableUpdating) {
+            // The table moved the selection along with the rows, or dropped it
+            if (selectedRow < 0) {
+                selectedOrderId = null;
+                restoringSelection = false;
             }
+            return;
+        }
+        restoringSelection = false;
+        Order order = selectedRow >= 0 ? orderTableModel.getOrderAt(selectedRow) : null;
+        // A row that is still loading has no order yet, and an earlier order must not be selected again for it
+        selectedOrderId = order != null ? order.getOrderId() : null;
+    }
+
+    /**
+     * Select the remembered order again once the page holding it has been reloaded
+     */
+    private void restoreSelectedOrder() {
+        int row = orderTableModel.indexOfOrder(selectedOrderId);
+        if (row < 0) {
+            return;
+        }
+        restoringSelection = false;
+        if (orderTable.getSelectedRow() != row) {
+            orderTable.setRowSelectionInterval(row, row);
         }
     }
 
     private void updateOrderStatus() {
-        int selectedRow = orderTable.getSelectedRow();
-        if (selectedRow < 0) {
-            JOptionPane.showMessageDialog(this, "Please select an order to update.", "Error", JOptionPane.ERROR_MESSAGE);
+        Order order = orderTableModel.getSelectedOrder(orderTable, "update");
+        if (order == null) {
             return;
         }
         
-        String orderId = (String) orderTableModel.getValueAt(selectedRow, 0);
+        String orderId = order.getOrderId();
         String newStatus = (String) orderStatusComboBox.getSelectedItem();
         
         if (staffController.updateOrderStatus(orderId, newStatus)) {
@@ -656,13 +705,12 @@ public class StaffDashboardView extends JFrame {
     }
 
     private void processOrder() {
-        int selectedRow = orderTable.getSelectedRow();
-        if (selectedRow < 0) {
-            JOptionPane.showMessageDialog(this, "Please select an order to process.", "Error", JOptionPane.ERROR_MESSAGE);
+        Order order = orderTableModel.getSelectedOrder(orderTable, "process");
+        if (order == null) {
             return;
         }
         
-        String orderId = (String) orderTableModel.getValueAt(selectedRow, 0);
+        String orderId = order.getOrderId();
         
         if (staffController.processOrder(orderId)) {
             loadOrderData();
@@ -671,15 +719,17 @@ public class StaffDashboardView extends JFrame {
     }
 
     private void viewOrderDetails() {
-        int selectedRow = orderTable.getSelectedRow();
-        if (selectedRow < 0) {
-            JOptionPane.showMessageDialog(this, "Please select an order to view details.", "Error", JOptionPane.ERROR_MESSAGE);
+        Order order = orderTableModel.getSelectedOrder(orderTable, "view details");
+        if (order == null) {
             return;
         }
         
-        String orderId = (String) orderTableModel.getValueAt(selectedRow, 0);
-        List<OrderItem> orderItems = staffController.getOrderDetails(orderId);
-        
+        String orderId = order.getOrderId();
+        loader.load("orderDetails", "order details", () -> staffController.getOrderDetails(orderId),
+                orderItems -> showOrderDetails(orderId, orderItems));
+    }
+
+    private void showOrderDetails(String orderId, List<OrderItem> orderItems) {
         if (orderItems != null && !orderItems.isEmpty()) {
             StringBuilder details = new StringBuilder();
             details.append("Order Details for: ").append(orderId).append("\n\n");
@@ -702,13 +752,16 @@ public class StaffDashboardView extends JFrame {
 
     // Customer Management Methods
     private void loadCustomerData() {
-        customerTableModel.setRowCount(0);
-        List<User> customers = staffController.getAllCustomers();
+        loader.load("customers", "customers", staffController::getAllCustomers, this::showCustomers);
+    }
+
+    private void showCustomers(List<User> customers) {
+        List<Object[]> rows = new ArrayList<>();
         if (customers != null) {
             for (User user : customers) {
                 if (user instanceof Customer) {
                     Customer customer = (Customer) user;
-                    customerTableModel.addRow(new Object[]{
+                    rows.add(new Object[]{
                         customer.getCustomerId(),
                         customer.getUsername(),
                         customer.getAddress(),
@@ -717,6 +770,7 @@ public class StaffDashboardView extends JFrame {
                 }
             }
         }
+        customerTableModel.setRows(rows);
     }
 
     private void populateCustomerForm() {
@@ -737,11 +791,16 @@ public class StaffDashboardView extends JFrame {
         }
         
         String customerId = customerIdField.getText().trim();
-        Customer customer = staffController.getCustomerInfo(customerId);
-        
+        String address = customerAddressField.getText().trim();
+        String phone = customerPhoneField.getText().trim();
+        loader.load("customerUpdate", "customer", () -> staffController.getCustomerInfo(customerId),
+                customer -> saveCustomer(customer, address, phone));
+    }
+
+    private void saveCustomer(Customer customer, String address, String phone) {
         if (customer != null) {
-            customer.setAddress(customerAddressField.getText().trim());
-            customer.setPhone(customerPhoneField.getText().trim());
+            customer.setAddress(address);
+            customer.setPhone(phone);
             
             if (staffController.updateCustomerInfo(customer)) {
                 loadCustomerData();
@@ -751,13 +810,11 @@ public class StaffDashboardView extends JFrame {
 
     // Report Methods
     private void generateInventoryReport() {
-        String report = staffController.generateInventoryReport();
-        reportArea.setText(report);
+        loader.load("report", "inventory report", staffController::generateInventoryReport, reportArea::setText);
     }
 
     private void generateOrderReport() {
-        String report = staffController.generateOrderReport();
-        reportArea.setText(report);
+        loader.load("report", "order report", staffController::generateOrderReport, reportArea::setText);
     }
 }
 
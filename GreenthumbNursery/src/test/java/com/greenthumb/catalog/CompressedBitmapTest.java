@@ -0,0 +1,118 @@
+package com.greenthumb.catalog;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks CompressedBitmap against java.util.BitSet, with sets sparse and dense enough
+ * to use both array and bitmap containers and spanning several 65536-value groups
+ */
+class CompressedBitmapTest {
+    private static final int RANGE = 300_000;
+
+    @Test
+    void setOperationsMatchBitSet() {
+        Random random = new Random(3);
+        for (int round = 0; round < 60; round++) {
+            BitSet a = randomSet(random);
+            BitSet b = randomSet(random);
+            CompressedBitmap bitmapA = bitmapOf(a);
+            CompressedBitmap bitmapB = bitmapOf(b);
+
+            assertBitmap(a, bitmapA);
+            BitSet and = (BitSet) a.clone();
+            and.and(b);
+            assertBitmap(and, bitmapA.and(bitmapB));
+            assertEquals(and.cardinality(), bitmapA.andCardinality(bitmapB));
+            BitSet or = (BitSet) a.clone();
+            or.or(b);
+            assertBitmap(or, bitmapA.or(bitmapB));
+            BitSet andNot = (BitSet) a.clone();
+            andNot.andNot(b);
+            assertBitmap(andNot, bitmapA.andNot(bitmapB));
+            assertBitmap(new BitSet(), bitmapA.andNot(bitmapA));
+            for (int probe = 0; probe < 1000; probe++) {
+                int value = random.nextInt(RANGE);
+                assertEquals(a.get(value), bitmapA.contains(value));
+            }
+        }
+    }
+
+    @Test
+    void filterRangeAndCountByClassMatchScan() {
+        Random random = new Random(9);
+        double[] column = new double[RANGE];
+        int[] classOf = new int[RANGE];
+        for (int i = 0; i < RANGE; i++) {
+            column[i] = random.nextInt(1000) / 10.0;
+            classOf[i] = random.nextInt(7);
+        }
+        for (int round = 0; round < 30; round++) {
+            BitSet set = randomSet(random);
+            CompressedBitmap bitmap = bitmapOf(set);
+            double min = random.nextInt(1000) / 10.0;
+            double max = min + random.nextInt(300) / 10.0;
+
+            BitSet inRange = new BitSet();
+            int[] expectedCounts = new int[7];
+            for (int value = set.nextSetBit(0); value >= 0; value = set.nextSetBit(value + 1)) {
+                if (column[value] >= min && column[value] <= max) {
+                    inRange.set(value);
+                }
+                expectedCounts[classOf[value]]++;
+            }
+            assertBitmap(inRange, bitmap.filterRange(column, min, max));
+            int[] counts = new int[7];
+            bitmap.countByClass(classOf, counts);
+            assertArrayEquals(expectedCounts, counts);
+        }
+    }
+
+    @Test
+    void emptyBitmap() {
+        assertTrue(CompressedBitmap.EMPTY.isEmpty());
+        assertEquals(0, CompressedBitmap.EMPTY.getCardinality());
+        assertBitmap(new BitSet(), CompressedBitmap.of(new int[0], 0).or(CompressedBitmap.EMPTY));
+    }
+
+    private static void assertBitmap(BitSet expected, CompressedBitmap actual) {
+        assertArrayEquals(expected.stream().toArray(), actual.toArray());
+        assertEquals(expected.cardinality(), actual.getCardinality());
+        assertEquals(expected.isEmpty(), actual.isEmpty());
+        List<Integer> visited = new ArrayList<>();
+        actual.forEach(visited::add);
+        assertArrayEquals(expected.stream().toArray(), visited.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    private static CompressedBitmap bitmapOf(BitSet set) {
+        int[] values = set.stream().toArray();
+        return CompressedBitmap.of(values, values.length);
+    }
+
+    /**
+     * Random set mixing sparse values, dense stretches and full runs
+     */
+    private static BitSet randomSet(Random random) {
+        BitSet set = new BitSet(RANGE);
+        for (int stretch = random.nextInt(6); stretch > 0; stretch--) {
+            int start = random.nextInt(RANGE);
+            int length = random.nextInt(RANGE - start) / (1 + random.nextInt(4));
+            int density = random.nextInt(4);
+            for (int value = start; value < start + length; value++) {
+                if (density == 0 ? random.nextInt(100) == 0 : density == 3 || random.nextInt(density + 1) == 0) {
+                    set.set(value);
+                }
+            }
+        }
+        return set;
+    }
+}
+
@@ -0,0 +1,132 @@
+package com.greenthumb.catalog;
+
+import com.greenthumb.model.Plant;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks PlantAutocomplete against ranking every word-start suffix of every name
+ */
+class PlantAutocompleteTest {
+    private static final String[] WORDS = {
+            "monstera", "money", "mon", "deliciosa", "delta", "fern", "ferns", "ficus", "fiddle", "pothos",
+            "peace", "lily", "lilac", "snake", "spider", "aloe", "jade", "palm", "parlor", "orchid"};
+
+    @Test
+    void completeMatchesBruteForce() {
+        Random random = new Random(5);
+        List<Plant> plants = new ArrayList<>();
+        Map<String, Integer> unitsSold = new HashMap<>();
+        for (int i = 0; i < 800; i++) {
+            String plantId = String.format("P%04d", i);
+            plants.add(new Plant(plantId, randomName(random), "Tropical", 10.0, 1, ""));
+            if (random.nextInt(3) > 0) {
+                unitsSold.put(plantId, random.nextInt(6));
+            }
+        }
+        PlantAutocomplete index = PlantAutocomplete.build(plants, unitsSold);
+        for (int q = 0; q < 500; q++) {
+            String prefix = randomPrefix(random, plants);
+            int limit = random.nextInt(12);
+            assertEquals(bruteForce(plants, unitsSold, prefix, limit), index.complete(prefix, limit), prefix);
+        }
+    }
+
+    @Test
+    void unaffectedOnlyWhenNoNameChangedAndNoPlantAdded() {
+        Plant fern = new Plant("P1", "Boston fern", "Fern", 12.0, 5, "");
+        PlantAutocomplete index = PlantAutocomplete.build(Collections.singletonList(fern), new HashMap<>());
+        Map<String, Plant> old = Collections.singletonMap("P1", fern);
+        assertTrue(index.unaffectedBy(old::get,
+                Collections.singletonList(new Plant("P1", "Boston fern", "Fern", 9.0, 0, "Sold out"))));
+        assertFalse(index.unaffectedBy(old::get,
+                Collections.singletonList(new Plant("P1", "Boston sword fern", "Fern", 12.0, 5, ""))));
+        assertFalse(index.unaffectedBy(old::get,
+                Collections.singletonList(new Plant("P2", "Maidenhair fern", "Fern", 8.0, 2, ""))));
+    }
+
+    /**
+     * Take every plant whose name has a word-start suffix starting with the prefix, most
+     * sold first, then by the matching suffix and plant order, and keep distinct names
+     */
+    private static List<String> bruteForce(List<Plant> plants, Map<String, Integer> unitsSold, String prefix,
+                                           int limit) {
+        String key = normalize(prefix);
+        List<Object[]> entries = new ArrayList<>();
+        if (!key.isEmpty()) {
+            for (int ordinal = 0; ordinal < plants.size(); ordinal++) {
+                String name = normalize(plants.get(ordinal).getName());
+                for (int offset = 0; offset < name.length(); offset++) {
+                    boolean wordStart = offset == 0 || !Character.isLetterOrDigit(name.charAt(offset - 1));
+                    if (wordStart && Character.isLetterOrDigit(name.charAt(offset))
+                            && name.startsWith(key, offset)) {
+                        entries.add(new Object[]{unitsSold.getOrDefault(plants.get(ordinal).getPlantId(), 0),
+                                name.substring(offset), ordinal});
+                    }
+                }
+            }
+        }
+        entries.sort((a, b) -> {
+            int cmp = Integer.compare((Integer) b[0], (Integer) a[0]);
+            if (cmp == 0) {
+                cmp = ((String) a[1]).compareTo((String) b[1]);
+            }
+            return cmp != 0 ? cmp : Integer.compare((Integer) a[2], (Integer) b[2]);
+        });
+        Set<String> names = new LinkedHashSet<>();
+        for (Object[] entry : entries) {
+            if (names.size() == limit) {
+                break;
+            }
+            names.add(plants.get((Integer) entry[2]).getName());
+        }
+        return new ArrayList<>(names);
+    }
+
+    private static String normalize(String text) {
+        return text.replaceAll("\\s+", " ").replaceFirst("^ ", "").toLowerCase(Locale.ROOT);
+    }
+
+    private static String randomName(Random random) {
+        StringBuilder name = new StringBuilder(random.nextInt(10) == 0 ? " " : "");
+        for (int w = 1 + random.nextInt(3); w > 0; w--) {
+            String word = WORDS[random.nextInt(WORDS.length)];
+            if (random.nextBoolean()) {
+                word = Character.toUpperCase(word.charAt(0)) + word.substring(1);
+            }
+            name.append(word).append(random.nextInt(8) == 0 ? "  " : w > 1 ? " " : "");
+        }
+        return name.toString();
+    }
+
+    private static String randomPrefix(Random random, List<Plant> plants) {
+        if (random.nextInt(10) == 0) {
+            return Arrays.asList("", " ", "zz", "Fern ", "mon  ", "x").get(random.nextInt(6));
+        }
+        String name = normalize(plants.get(random.nextInt(plants.size())).getName()).trim();
+        List<Integer> wordStarts = new ArrayList<>();
+        for (int offset = 0; offset < name.length(); offset++) {
+            if (offset == 0 || name.charAt(offset - 1) == ' ') {
+                wordStarts.add(offset);
+            }
+        }
+        int start = wordStarts.get(random.nextInt(wordStarts.size()));
+        String prefix = name.substring(start, start + 1 + random.nextInt(name.length() - start));
+        return random.nextInt(4) == 0 ? prefix.toUpperCase(Locale.ROOT) : prefix;
+    }
+}
+
@@ -0,0 +1,214 @@
+package com.greenthumb.catalog;
+
+import com.greenthumb.model.Plant;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks PlantBitmapIndex filters and facet counts against a scan of every plant,
+ * for a freshly built index and for one patched by a series of deltas
+ */
+class PlantBitmapIndexTest {
+    private static final String[] TYPES = {"Tree", "tree ", " TREE", "Fern", "Succulent", "Herb", "Vine", null};
+    private static final double[] BAND_EDGES = {10, 25, 50, 100};
+
+    @Test
+    void filterAndFacetsMatchBruteForce() {
+        Random random = new Random(21);
+        for (int size : new int[]{0, 1, 7, 100, 5000}) {
+            Plant[] plants = new Plant[size];
+            for (int ordinal = 0; ordinal < size; ordinal++) {
+                plants[ordinal] = randomPlant(random, String.format("P%05d", ordinal));
+            }
+            PlantBitmapIndex index = PlantBitmapIndex.build(plants, PriceIndex.build(pricesOf(plants)));
+            assertMatchesBruteForce(random, plants, index, 200, true);
+        }
+    }
+
+    @Test
+    void withChangesMatchesBruteForce() {
+        Random random = new Random(8);
+        Plant[] plants = new Plant[2000];
+        for (int ordinal = 0; ordinal < plants.length; ordinal++) {
+            plants[ordinal] = randomPlant(random, String.format("P%05d", ordinal * 2));
+        }
+        PlantBitmapIndex index = PlantBitmapIndex.build(plants, PriceIndex.build(pricesOf(plants)));
+        for (int round = 0; round < 30; round++) {
+            // Mostly updates; some rounds add plants after the others, a few in between them
+            int mode = random.nextInt(10);
+            int added = mode < 6 ? 0 : 1 + random.nextInt(5);
+            Plant[] next = Arrays.copyOf(plants, plants.length + added);
+            BitSet changed = new BitSet();
+            for (int i = 0; i < added; i++) {
+                int ordinal = plants.length + i;
+                String plantId = mode < 9 ? String.format("Q%05d", ordinal) : String.format("P%05d", random.nextInt(4000));
+                next[ordinal] = randomPlant(random, plantId);
+                changed.set(ordinal);
+            }
+            for (int c = random.nextInt(30); c > 0; c--) {
+                int ordinal = random.nextInt(plants.length);
+                Plant old = plants[ordinal];
+                next[ordinal] = random.nextBoolean()
+                        ? new Plant(old.getPlantId(), old.getName(), old.getType(), old.getPrice(), random.nextInt(3), "")
+                        : randomPlant(random, old.getPlantId());
+                changed.set(ordinal);
+            }
+            if (mode == 9) {
+                // The added IDs sort among the old ones, so ordinals shift
+                Arrays.sort(next, (a, b) -> a.getPlantId().compareTo(b.getPlantId()));
+                changed.clear();
+                for (int ordinal = 0; ordinal < next.length; ordinal++) {
+                    changed.set(ordinal);
+                }
+            }
+
+            int[] changedOrdinals = changed.stream().toArray();
+            Plant[] previous = new Plant[changedOrdinals.length];
+            for (int i = 0; i < changedOrdinals.length; i++) {
+                int ordinal = changedOrdinals[i];
+                previous[i] = mode < 9 && ordinal < plants.length ? plants[ordinal] : null;
+            }
+            index = index.withChanges(next, changedOrdinals, previous, PriceIndex.build(pricesOf(next)));
+            plants = next;
+            assertMatchesBruteForce(random, plants, index, 40, false);
+        }
+    }
+
+    /**
+     * Compare random filters and facet queries with a scan
+     * @param queries Number of queries
+     * @param exactTypeNames true to also check the spelling shown for each type, which
+     *                       is the first spelling of the type seen when the index was built
+     */
+    private static void assertMatchesBruteForce(Random random, Plant[] plants, PlantBitmapIndex index,
+                                                int queries, boolean exactTypeNames) {
+        assertEquals(plants.length, index.size());
+        assertArrayEquals(scan(plants, null, null, null, true), index.getInStock().toArray());
+        for (int q = 0; q < queries; q++) {
+            String type = random.nextInt(3) == 0 ? null : randomType(random);
+            Double minPrice = random.nextBoolean() ? null : random.nextInt(1500) / 10.0;
+            Double maxPrice = random.nextBoolean() ? null : random.nextInt(1500) / 10.0;
+            boolean inStockOnly = random.nextBoolean();
+            String query = type + " " + minPrice + " " + maxPrice + " " + inStockOnly;
+            assertArrayEquals(scan(plants, type, minPrice, maxPrice, inStockOnly),
+                    index.filter(type, minPrice, maxPrice, inStockOnly).toArray(), query);
+
+            CompressedBitmap candidates = null;
+            BitSet candidateSet = null;
+            if (random.nextBoolean()) {
+                candidateSet = new BitSet();
+                for (int ordinal = 0; ordinal < plants.length; ordinal++) {
+                    if (random.nextInt(3) == 0) {
+                        candidateSet.set(ordinal);
+                    }
+                }
+                int[] values = candidateSet.stream().toArray();
+                candidates = CompressedBitmap.of(values, values.length);
+            }
+            PlantFacets facets = index.facets(candidates, type, minPrice, maxPrice);
+            assertFacets(plants, candidateSet, type, minPrice, maxPrice, facets, exactTypeNames, query);
+        }
+    }
+
+    private static void assertFacets(Plant[] plants, BitSet candidates, String type, Double minPrice,
+                                     Double maxPrice, PlantFacets facets, boolean exactTypeNames, String query) {
+        int total = 0;
+        int inStock = 0;
+        Map<String, Integer> typeCounts = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        int[] bandCounts = new int[BAND_EDGES.length + 1];
+        // A type is shown as first spelled by any plant
+        Map<String, String> typeNames = new HashMap<>();
+        for (Plant plant : plants) {
+            typeNames.putIfAbsent(typeKey(plant.getType()), plant.getType() != null ? plant.getType().trim() : "");
+        }
+        for (int ordinal = 0; ordinal < plants.length; ordinal++) {
+            Plant plant = plants[ordinal];
+            if (candidates != null && !candidates.get(ordinal)) {
+                continue;
+            }
+            boolean typeMatches = type == null || typeKey(plant.getType()).equals(typeKey(type));
+            boolean priceMatches = inRange(plant.getPrice(), minPrice, maxPrice);
+            if (priceMatches) {
+                typeCounts.merge(typeNames.get(typeKey(plant.getType())), 1, Integer::sum);
+            }
+            if (typeMatches) {
+                bandCounts[band(plant.getPrice())]++;
+            }
+            if (typeMatches && priceMatches) {
+                total++;
+                inStock += plant.getQuantity() > 0 ? 1 : 0;
+            }
+        }
+        assertEquals(total, facets.getTotal(), query);
+        assertEquals(inStock, facets.getInStock(), query);
+        assertEquals(typeCounts, facets.getTypeCounts(), query);
+        if (exactTypeNames) {
+            assertEquals(new ArrayList<>(typeCounts.keySet()), new ArrayList<>(facets.getTypeCounts().keySet()), query);
+        }
+        List<Integer> actualBands = new ArrayList<>(facets.getPriceBandCounts().values());
+        for (int band = 0; band < bandCounts.length; band++) {
+            assertEquals(bandCounts[band], actualBands.get(band), query);
+        }
+    }
+
+    private static int[] scan(Plant[] plants, String type, Double minPrice, Double maxPrice, boolean inStockOnly) {
+        BitSet result = new BitSet();
+        for (int ordinal = 0; ordinal < plants.length; ordinal++) {
+            Plant plant = plants[ordinal];
+            if ((type == null || typeKey(plant.getType()).equals(typeKey(type)))
+                    && inRange(plant.getPrice(), minPrice, maxPrice)
+                    && (!inStockOnly || plant.getQuantity() > 0)) {
+                result.set(ordinal);
+            }
+        }
+        return result.stream().toArray();
+    }
+
+    private static boolean inRange(double price, Double minPrice, Double maxPrice) {
+        return (minPrice == null || price >= minPrice) && (maxPrice == null || price <= maxPrice);
+    }
+
+    private static int band(double price) {
+        int band = 0;
+        while (band < BAND_EDGES.length && price >= BAND_EDGES[band]) {
+            band++;
+        }
+        return band;
+    }
+
+    private static String typeKey(String type) {
+        return type != null ? type.trim().toLowerCase(Locale.ROOT) : "";
+    }
+
+    private static String randomType(Random random) {
+        String type = TYPES[random.nextInt(TYPES.length)];
+        return type != null ? type : "Cactus";
+    }
+
+    private static Plant randomPlant(Random random, String plantId) {
+        // Few distinct prices, so many plants share a price and price bucket boundaries
+        return new Plant(plantId, "Plant " + plantId, TYPES[random.nextInt(TYPES.length)],
+                random.nextInt(300) / 2.0, random.nextInt(3), "");
+    }
+
+    private static double[] pricesOf(Plant[] plants) {
+        double[] prices = new double[plants.length];
+        for (int ordinal = 0; ordinal < plants.length; ordinal++) {
+            prices[ordinal] = plants[ordinal].getPrice();
+        }
+        return prices;
+    }
+}
+
@@ -0,0 +1,214 @@
+package com.greenthumb.catalog;
+
+import com.greenthumb.model.Plant;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks PlantSearchIndex against a brute-force scan that scores every plant's words
+ */
+class PlantSearchIndexTest {
+    private static final String[] WORDS = {
+            "monstera", "deliciosa", "boston", "fern", "ficus", "lyrata", "snake", "plant", "golden",
+            "pothos", "peace", "lily", "spider", "rubber", "tree", "aloe", "vera", "jade", "orchid",
+            "palm", "fiddle", "leaf", "variegated", "trailing", "bright", "indirect", "light", "water"};
+    private static final String[] TYPES = {"Tropical", "Succulent", "Fern", "Tree", "Herb"};
+
+    @Test
+    void searchMatchesBruteForce() {
+        Random random = new Random(42);
+        List<Plant> plants = randomPlants(random, 500, 0);
+        PlantSearchIndex index = PlantSearchIndex.build(plants);
+        for (int q = 0; q < 300; q++) {
+            assertRankedLikeBruteForce(plants, index, randomQuery(random));
+        }
+    }
+
+    @Test
+    void withChangesMatchesBruteForce() {
+        Random random = new Random(7);
+        Map<String, Plant> plants = new HashMap<>();
+        for (Plant plant : randomPlants(random, 300, 0)) {
+            plants.put(plant.getPlantId(), plant);
+        }
+        PlantSearchIndex index = PlantSearchIndex.build(new ArrayList<>(plants.values()));
+        int nextId = plants.size();
+        for (int round = 0; round < 20; round++) {
+            Map<String, Plant> old = new HashMap<>(plants);
+            List<Plant> changed = new ArrayList<>();
+            List<String> ids = new ArrayList<>(plants.keySet());
+            for (int c = random.nextInt(15); c > 0; c--) {
+                String id = random.nextInt(4) == 0 ? plantId(nextId++) : ids.get(random.nextInt(ids.size()));
+                if (plants.containsKey(id) && changed.contains(plants.get(id))) {
+                    continue;
+                }
+                Plant plant = randomPlant(random, id);
+                if (plants.containsKey(id) && random.nextBoolean()) {
+                    // Stock and price changes leave the text as it was
+                    Plant current = plants.get(id);
+                    plant = new Plant(id, current.getName(), current.getType(), random.nextInt(100),
+                            random.nextInt(10), current.getDescription());
+                }
+                plants.put(id, plant);
+                changed.add(plant);
+            }
+
+            index = index.withChanges(old::get, changed);
+            List<Plant> current = new ArrayList<>(plants.values());
+            assertEquals(PlantSearchIndex.build(current).getTermCount(), index.getTermCount());
+            for (int q = 0; q < 30; q++) {
+                assertRankedLikeBruteForce(current, index, randomQuery(random));
+            }
+        }
+    }
+
+    @Test
+    void misspelledWordFindsClosestTerm() {
+        List<Plant> plants = Arrays.asList(
+                new Plant("P1", "Monstera deliciosa", "Tropical", 25.0, 3, "Swiss cheese plant"),
+                new Plant("P2", "Boston fern", "Fern", 12.0, 5, "Feathery fronds"));
+        PlantSearchIndex index = PlantSearchIndex.build(plants);
+        assertEquals(Arrays.asList("P1"), index.search("monstera delicosa"));
+        assertEquals(Arrays.asList("P2"), index.search("bostn"));
+    }
+
+    @Test
+    void tokenizeFoldsAccentsAndDropsStopWords() {
+        assertEquals(Arrays.asList("cafe", "plant", "2"), PlantSearchIndex.tokenize("The Café of Plant-2"));
+        assertTrue(PlantSearchIndex.tokenize("  and the ").isEmpty());
+    }
+
+    private static void assertRankedLikeBruteForce(List<Plant> plants, PlantSearchIndex index, String query) {
+        Map<String, Double> expected = bruteForceScores(plants, query);
+        if (expected == null) {
+            // A query word no plant word starts with goes through typo matching instead
+            return;
+        }
+        List<String> result = index.search(query);
+        assertEquals(expected.keySet(), new HashSet<>(result), query);
+        assertEquals(expected.size(), result.size(), query);
+        for (int i = 1; i < result.size(); i++) {
+            assertTrue(expected.get(result.get(i - 1)) >= expected.get(result.get(i)) - 1e-4,
+                    query + ": " + result.get(i - 1) + " ranked above " + result.get(i));
+        }
+    }
+
+    /**
+     * Score every plant containing every query word, exactly or as a prefix
+     * @return Scores by plant ID, or null if some query word is not a prefix of any plant word
+     */
+    private static Map<String, Double> bruteForceScores(List<Plant> plants, String query) {
+        Set<String> words = new LinkedHashSet<>(PlantSearchIndex.tokenize(query));
+        if (words.isEmpty()) {
+            return new HashMap<>();
+        }
+        List<Map<String, Double>> weights = new ArrayList<>();
+        Map<String, Integer> documentFrequency = new HashMap<>();
+        for (Plant plant : plants) {
+            Map<String, Double> plantWeights = termWeights(plant);
+            weights.add(plantWeights);
+            for (String term : plantWeights.keySet()) {
+                documentFrequency.merge(term, 1, Integer::sum);
+            }
+        }
+        for (String word : words) {
+            if (documentFrequency.keySet().stream().noneMatch(term -> term.startsWith(word))) {
+                return null;
+            }
+        }
+
+        Map<String, Double> scores = new HashMap<>();
+        for (int p = 0; p < plants.size(); p++) {
+            double total = 0;
+            boolean matchesAll = true;
+            for (String word : words) {
+                boolean matches = false;
+                for (Map.Entry<String, Double> term : weights.get(p).entrySet()) {
+                    if (term.getKey().startsWith(word)) {
+                        double idf = Math.log(1.0 + (double) plants.size() / documentFrequency.get(term.getKey()));
+                        total += term.getValue() * idf * (term.getKey().equals(word) ? 1.0 : 0.5);
+                        matches = true;
+                    }
+                }
+                matchesAll &= matches;
+            }
+            if (matchesAll) {
+                scores.put(plants.get(p).getPlantId(), total);
+            }
+        }
+        return scores;
+    }
+
+    private static Map<String, Double> termWeights(Plant plant) {
+        Map<String, Double> weights = new HashMap<>();
+        addField(weights, plant.getName(), PlantSearchIndex.NAME_WEIGHT);
+        addField(weights, plant.getType(), PlantSearchIndex.TYPE_WEIGHT);
+        addField(weights, plant.getDescription(), PlantSearchIndex.DESCRIPTION_WEIGHT);
+        return weights;
+    }
+
+    private static void addField(Map<String, Double> weights, String text, double fieldWeight) {
+        List<String> words = PlantSearchIndex.tokenize(text);
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String word : words) {
+            frequencies.merge(word, 1, Integer::sum);
+        }
+        for (Map.Entry<String, Integer> word : frequencies.entrySet()) {
+            double weight = fieldWeight * (1.0 + Math.log(word.getValue())) / Math.sqrt(words.size());
+            weights.merge(word.getKey(), weight, Double::sum);
+        }
+    }
+
+    private static String randomQuery(Random random) {
+        StringBuilder query = new StringBuilder();
+        for (int w = 1 + random.nextInt(2); w > 0; w--) {
+            String word = WORDS[random.nextInt(WORDS.length)];
+            if (random.nextBoolean()) {
+                word = word.substring(0, 1 + random.nextInt(word.length()));
+            }
+            if (random.nextInt(4) == 0) {
+                word = word.toUpperCase();
+            }
+            query.append(random.nextInt(5) == 0 ? " the " : " ").append(word);
+        }
+        return query.toString();
+    }
+
+    private static List<Plant> randomPlants(Random random, int count, int firstId) {
+        List<Plant> plants = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            plants.add(randomPlant(random, plantId(firstId + i)));
+        }
+        return plants;
+    }
+
+    private static Plant randomPlant(Random random, String plantId) {
+        return new Plant(plantId, randomWords(random, 1 + random.nextInt(3)), TYPES[random.nextInt(TYPES.length)],
+                random.nextInt(100), random.nextInt(10), randomWords(random, random.nextInt(8)) + " and the");
+    }
+
+    private static String randomWords(Random random, int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            text.append(i > 0 ? " " : "").append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return text.toString();
+    }
+
+    private static String plantId(int number) {
+        return String.format("P%04d", number);
+    }
+}
+
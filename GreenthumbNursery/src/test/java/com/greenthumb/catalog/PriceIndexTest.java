@@ -0,0 +1,117 @@
+package com.greenthumb.catalog;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks PriceIndex against sorting every plant by price and scanning for ranges,
+ * for a freshly built index and for one updated by a series of deltas
+ */
+class PriceIndexTest {
+
+    @Test
+    void rangesMatchBruteForce() {
+        Random random = new Random(13);
+        for (int size : new int[]{0, 1, 2, 50, 4000}) {
+            double[] prices = randomPrices(random, size);
+            assertMatchesBruteForce(random, prices, PriceIndex.build(prices));
+        }
+    }
+
+    @Test
+    void withChangesMatchesBruteForce() {
+        Random random = new Random(17);
+        double[] prices = randomPrices(random, 2000);
+        PriceIndex index = PriceIndex.build(prices);
+        for (int round = 0; round < 50; round++) {
+            // Drop some plants, insert some, and reprice some of those that stay
+            int[] oldToNew = new int[prices.length];
+            List<Double> newPrices = new ArrayList<>();
+            List<Integer> changed = new ArrayList<>();
+            for (int ordinal = 0; ordinal <= prices.length; ordinal++) {
+                while (random.nextInt(200) == 0) {
+                    changed.add(newPrices.size());
+                    newPrices.add(randomPrice(random));
+                }
+                if (ordinal == prices.length) {
+                    break;
+                }
+                if (random.nextInt(300) == 0) {
+                    oldToNew[ordinal] = -1;
+                    continue;
+                }
+                oldToNew[ordinal] = newPrices.size();
+                if (random.nextInt(50) == 0) {
+                    changed.add(newPrices.size());
+                    newPrices.add(randomPrice(random));
+                } else {
+                    newPrices.add(prices[ordinal]);
+                }
+            }
+
+            prices = newPrices.stream().mapToDouble(Double::doubleValue).toArray();
+            index = index.withChanges(oldToNew, prices, changed.stream().mapToInt(Integer::intValue).toArray());
+            assertMatchesBruteForce(random, prices, index);
+        }
+    }
+
+    private static void assertMatchesBruteForce(Random random, double[] prices, PriceIndex index) {
+        List<Integer> sorted = new ArrayList<>();
+        for (int ordinal = 0; ordinal < prices.length; ordinal++) {
+            sorted.add(ordinal);
+        }
+        sorted.sort(Comparator.<Integer>comparingDouble(ordinal -> prices[ordinal]).thenComparing(ordinal -> ordinal));
+
+        assertEquals(prices.length, index.size());
+        for (int position = 0; position < prices.length; position++) {
+            int ordinal = sorted.get(position);
+            assertEquals(ordinal, index.ordinalAt(position));
+            assertEquals(prices[ordinal], index.priceAt(position));
+            assertEquals(position, index.positionOf(ordinal, prices[ordinal]));
+        }
+
+        for (int q = 0; q < 200; q++) {
+            double min = randomPrice(random) - (random.nextBoolean() ? 0.25 : 0);
+            double max = random.nextInt(10) == 0 ? min - 1 : min + random.nextInt(40);
+            List<Integer> expected = new ArrayList<>();
+            int lowerBound = 0;
+            int upperBound = 0;
+            for (int ordinal : sorted) {
+                if (prices[ordinal] >= min && prices[ordinal] <= max) {
+                    expected.add(ordinal);
+                }
+                lowerBound += prices[ordinal] < min ? 1 : 0;
+                upperBound += prices[ordinal] <= max ? 1 : 0;
+            }
+            String range = min + ".." + max;
+            assertEquals(lowerBound, index.lowerBound(min), range);
+            assertEquals(upperBound, index.upperBound(max), range);
+            assertEquals(expected.size(), index.countInRange(min, max), range);
+            List<Integer> visited = new ArrayList<>();
+            index.forEachInRange(min, max, visited::add);
+            assertEquals(expected, visited, range);
+        }
+    }
+
+    private static double[] randomPrices(Random random, int size) {
+        double[] prices = new double[size];
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            prices[ordinal] = randomPrice(random);
+        }
+        return prices;
+    }
+
+    /**
+     * Prices in half-dollar steps, so many plants share a price
+     */
+    private static double randomPrice(Random random) {
+        return random.nextInt(400) / 2.0;
+    }
+}
+
@@ -0,0 +1,104 @@
+package com.greenthumb.catalog;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks TrigramIndex against the Jaccard similarity of every word's trigram set
+ */
+class TrigramIndexTest {
+    private static final String LETTERS = "aeioulnrst";
+
+    @Test
+    void similarMatchesBruteForce() {
+        Random random = new Random(11);
+        String[] words = new String[2000];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = randomWord(random);
+        }
+        TrigramIndex index = TrigramIndex.build(words);
+        for (int q = 0; q < 300; q++) {
+            String query = random.nextBoolean() ? misspell(random, words[random.nextInt(words.length)]) : randomWord(random);
+            float threshold = random.nextInt(6) / 10.0f;
+            int limit = 1 + random.nextInt(10);
+
+            List<Float> expected = new ArrayList<>();
+            for (String word : words) {
+                float similarity = similarity(query, word);
+                if (similarity >= threshold && similarity > 0) {
+                    expected.add(similarity);
+                }
+            }
+            expected.sort((a, b) -> Float.compare(b, a));
+            List<TrigramIndex.Match> matches = index.similar(query, threshold, limit);
+            assertEquals(Math.min(limit, expected.size()), matches.size(), query);
+
+            Set<Integer> ids = new HashSet<>();
+            for (int m = 0; m < matches.size(); m++) {
+                TrigramIndex.Match match = matches.get(m);
+                assertTrue(ids.add(match.wordId), query);
+                assertEquals(similarity(query, words[match.wordId]), match.similarity, 1e-6, query);
+                assertEquals(expected.get(m), match.similarity, 1e-6, query);
+            }
+        }
+    }
+
+    @Test
+    void gramsArePaddedDistinctAndSorted() {
+        // "  aaa " has the grams "  a", " aa", "aaa" and "aa "
+        long[] grams = TrigramIndex.gramsOf("aaa");
+        assertEquals(4, grams.length);
+        for (int i = 1; i < grams.length; i++) {
+            assertTrue(grams[i - 1] < grams[i]);
+        }
+    }
+
+    private static float similarity(String a, String b) {
+        Set<String> gramsA = grams(a);
+        Set<String> gramsB = grams(b);
+        Set<String> shared = new HashSet<>(gramsA);
+        shared.retainAll(gramsB);
+        return (float) shared.size() / (gramsA.size() + gramsB.size() - shared.size());
+    }
+
+    private static Set<String> grams(String word) {
+        String padded = "  " + word + " ";
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + 3));
+        }
+        return grams;
+    }
+
+    private static String randomWord(Random random) {
+        StringBuilder word = new StringBuilder();
+        for (int length = 3 + random.nextInt(8); length > 0; length--) {
+            word.append(LETTERS.charAt(random.nextInt(LETTERS.length())));
+        }
+        return word.toString();
+    }
+
+    /**
+     * Drop, double or swap one letter
+     */
+    private static String misspell(Random random, String word) {
+        int at = random.nextInt(word.length() - 1);
+        switch (random.nextInt(3)) {
+            case 0:
+                return word.substring(0, at) + word.substring(at + 1);
+            case 1:
+                return word.substring(0, at) + word.charAt(at) + word.substring(at);
+            default:
+                return word.substring(0, at) + word.charAt(at + 1) + word.charAt(at) + word.substring(at + 2);
+        }
+    }
+}
+
@@ -0,0 +1,231 @@
+package com.greenthumb.view;
+
+import org.junit.jupiter.api.Test;
+
+import javax.swing.RowFilter;
+import javax.swing.RowSorter.SortKey;
+import javax.swing.SortOrder;
+import javax.swing.event.TableModelEvent;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks ColumnarRowSorter against a full stable sort and filter of the model rows after
+ * every event a ColumnarTableModel fires while its rows are replaced by random edits
+ */
+class ColumnarRowSorterTest {
+    private static final String[] NAMES = {"fern", "Fern", "aloe", "Basil", "ivy", null};
+
+    @Test
+    void viewMatchesStableSortAndFilterAfterEachEvent() {
+        Random random = new Random(24);
+        ColumnarTableModel<Item> model = new ColumnarTableModel<Item>(item -> item.key)
+                .addStringColumn("Name", item -> item.name)
+                .addDoubleColumn("Price", item -> item.price, ColumnarTableModel.CURRENCY)
+                .addIntColumn("Quantity", item -> item.quantity, null);
+        ColumnarRowSorter<Item> sorter = new ColumnarRowSorter<>(model);
+        int[] events = {0};
+        model.addTableModelListener(e -> {
+            forward(random, sorter, model, e);
+            events[0]++;
+            assertMatchesBruteForce(sorter, model, "event " + events[0]);
+        });
+
+        List<Item> items = new ArrayList<>();
+        int nextKey = 0;
+        for (int round = 0; round < 400; round++) {
+            if (round % 10 == 0) {
+                sorter.setSortKeys(randomSortKeys(random, model.getColumnCount()));
+                sorter.setRowFilter(randomFilter(random, model));
+                assertMatchesBruteForce(sorter, model, "round " + round);
+            }
+            items = edit(random, items, nextKey);
+            nextKey += 100;
+            model.setRows(items);
+            assertMatchesBruteForce(sorter, model, "round " + round);
+        }
+    }
+
+    /**
+     * Pass a model event on as a JTable does; updates are sometimes passed on one column
+     * at a time, as if each column had fired its own event
+     */
+    private static void forward(Random random, ColumnarRowSorter<Item> sorter, ColumnarTableModel<Item> model,
+                                TableModelEvent e) {
+        if (e.getLastRow() == Integer.MAX_VALUE) {
+            sorter.allRowsChanged();
+        } else if (e.getType() == TableModelEvent.INSERT) {
+            sorter.rowsInserted(e.getFirstRow(), e.getLastRow());
+        } else if (e.getType() == TableModelEvent.DELETE) {
+            sorter.rowsDeleted(e.getFirstRow(), e.getLastRow());
+        } else if (random.nextBoolean()) {
+            sorter.rowsUpdated(e.getFirstRow(), e.getLastRow());
+        } else {
+            // The sort columns are not known here, so every column is passed on
+            for (int column = model.getColumnCount() - 1; column >= 0; column--) {
+                sorter.rowsUpdated(e.getFirstRow(), e.getLastRow(), column);
+            }
+        }
+    }
+
+    private static void assertMatchesBruteForce(ColumnarRowSorter<Item> sorter, ColumnarTableModel<Item> model,
+                                                String message) {
+        List<Integer> rows = new ArrayList<>();
+        for (int row = 0; row < model.getRowCount(); row++) {
+            rows.add(row);
+        }
+        // List.sort is stable, so rows with equal keys stay in model order
+        Comparator<Integer> byKeys = (a, b) -> 0;
+        for (SortKey key : sorter.getSortKeys()) {
+            int column = key.getColumn();
+            Comparator<Integer> byColumn = (a, b) -> model.compare(column, a, b);
+            byKeys = byKeys.thenComparing(key.getSortOrder() == SortOrder.DESCENDING ? byColumn.reversed() : byColumn);
+        }
+        rows.sort(byKeys);
+        RowFilter<? super ColumnarTableModel<Item>, ? super Integer> filter = sorter.getRowFilter();
+        List<Integer> expected = new ArrayList<>();
+        for (int row : rows) {
+            if (filter == null || includes(model, filter, row)) {
+                expected.add(row);
+            }
+        }
+
+        int[] viewToModel = new int[sorter.getViewRowCount()];
+        for (int view = 0; view < viewToModel.length; view++) {
+            viewToModel[view] = sorter.convertRowIndexToModel(view);
+        }
+        assertArrayEquals(expected.stream().mapToInt(Integer::intValue).toArray(), viewToModel, message);
+        assertEquals(model.getRowCount(), sorter.getModelRowCount(), message);
+        for (int row = 0; row < model.getRowCount(); row++) {
+            assertEquals(expected.indexOf(row), sorter.convertRowIndexToView(row), message);
+        }
+    }
+
+    /**
+     * Check a filter by price or name read straight from the model
+     */
+    private static boolean includes(ColumnarTableModel<Item> model, RowFilter<?, ?> filter, int row) {
+        if (filter instanceof PriceFilter) {
+            PriceFilter price = (PriceFilter) filter;
+            double value = model.getDouble(row, 1);
+            return value >= price.min && value <= price.max;
+        }
+        String name = model.getString(row, 0);
+        return name != null && name.toLowerCase().contains(((NameFilter) filter).text);
+    }
+
+    private static List<SortKey> randomSortKeys(Random random, int columnCount) {
+        List<SortKey> keys = new ArrayList<>();
+        for (int k = random.nextInt(4); k > 0; k--) {
+            int column = random.nextInt(columnCount);
+            if (keys.stream().noneMatch(key -> key.getColumn() == column)) {
+                keys.add(new SortKey(column, random.nextBoolean() ? SortOrder.ASCENDING : SortOrder.DESCENDING));
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * No filter, a ColumnFilter, or another RowFilter, which the sorter gives an entry per row
+     */
+    private static RowFilter<ColumnarTableModel<Item>, Integer> randomFilter(Random random,
+                                                                            ColumnarTableModel<Item> model) {
+        switch (random.nextInt(3)) {
+            case 0:
+                return null;
+            case 1:
+                double min = random.nextInt(5);
+                return new PriceFilter(model, min, min + random.nextInt(5));
+            default:
+                return new NameFilter(random.nextBoolean() ? "f" : "i");
+        }
+    }
+
+    /**
+     * Delete, insert, move and change some items; few distinct values, so sort keys tie
+     */
+    private static List<Item> edit(Random random, List<Item> oldItems, int nextKey) {
+        List<Item> items = new ArrayList<>(oldItems);
+        int edits = random.nextInt(10) == 0 ? 60 : random.nextInt(10);
+        for (int e = 0; e < edits; e++) {
+            int at = items.isEmpty() ? 0 : random.nextInt(items.size());
+            switch (random.nextInt(5)) {
+                case 0:
+                    if (!items.isEmpty()) {
+                        items.remove(at);
+                    }
+                    break;
+                case 1:
+                case 2:
+                    items.add(random.nextInt(items.size() + 1), randomItem(random, nextKey++));
+                    break;
+                case 3:
+                    if (!items.isEmpty()) {
+                        items.add(random.nextInt(items.size()), items.remove(at));
+                    }
+                    break;
+                default:
+                    if (!items.isEmpty()) {
+                        items.set(at, randomItem(random, items.get(at).key));
+                    }
+                    break;
+            }
+        }
+        return items;
+    }
+
+    private static Item randomItem(Random random, int key) {
+        return new Item(key, NAMES[random.nextInt(NAMES.length)], random.nextInt(10), random.nextInt(4));
+    }
+
+    private static final class Item {
+        final int key;
+        final String name;
+        final double price;
+        final int quantity;
+
+        Item(int key, String name, double price, int quantity) {
+            this.key = key;
+            this.name = name;
+            this.price = price;
+            this.quantity = quantity;
+        }
+    }
+
+    private static final class PriceFilter extends ColumnFilter<Item> {
+        final double min;
+        final double max;
+
+        PriceFilter(ColumnarTableModel<Item> model, double min, double max) {
+            super(model);
+            this.min = min;
+            this.max = max;
+        }
+
+        @Override
+        public boolean includeRow(int row) {
+            double price = getModel().getDouble(row, 1);
+            return price >= min && price <= max;
+        }
+    }
+
+    private static final class NameFilter extends RowFilter<ColumnarTableModel<Item>, Integer> {
+        final String text;
+
+        NameFilter(String text) {
+            this.text = text;
+        }
+
+        @Override
+        public boolean include(Entry<? extends ColumnarTableModel<Item>, ? extends Integer> entry) {
+            String name = entry.getStringValue(0);
+            return name.toLowerCase().contains(text);
+        }
+    }
+}
+
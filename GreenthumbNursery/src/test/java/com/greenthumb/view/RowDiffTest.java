@@ -0,0 +1,165 @@
+package com.greenthumb.view;
+
+import org.junit.jupiter.api.Test;
+
+import javax.swing.event.TableModelEvent;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Checks RowDiff through KeyedTableModel: replaying the events it fires must turn the
+ * old rows into the new ones, and unless the rows are replaced outright, the rows left
+ * in place must be a longest increasing run of old positions found by brute force
+ */
+class RowDiffTest {
+
+    @Test
+    void eventsTurnOldRowsIntoNewRows() {
+        Random random = new Random(19);
+        for (int round = 0; round < 500; round++) {
+            List<Object[]> oldRows = new ArrayList<>();
+            int nextKey = 0;
+            for (int size = random.nextInt(60); oldRows.size() < size; ) {
+                oldRows.add(new Object[]{nextKey++, "v" + random.nextInt(3)});
+            }
+            List<Object[]> newRows = edit(random, oldRows, nextKey);
+
+            KeyedTableModel model = new KeyedTableModel(new String[]{"Key", "Value"}, 0);
+            model.setRows(oldRows);
+            List<List<Object>> shadow = rowsOf(model);
+            boolean[] replaced = {false};
+            int[] deleted = {0};
+            int[] inserted = {0};
+            model.addTableModelListener(e -> {
+                if (e.getLastRow() == Integer.MAX_VALUE) {
+                    replaced[0] = true;
+                    shadow.clear();
+                    shadow.addAll(rowsOf(model));
+                    return;
+                }
+                for (int row = e.getFirstRow(); row <= e.getLastRow(); row++) {
+                    if (e.getType() == TableModelEvent.DELETE) {
+                        shadow.remove(e.getFirstRow());
+                        deleted[0]++;
+                    } else if (e.getType() == TableModelEvent.INSERT) {
+                        shadow.add(row, rowOf(model, row));
+                        inserted[0]++;
+                    } else {
+                        assertFalse(shadow.get(row).equals(rowOf(model, row)), "update of an unchanged row");
+                        shadow.set(row, rowOf(model, row));
+                    }
+                }
+            });
+            model.setRows(newRows);
+
+            List<List<Object>> expected = new ArrayList<>();
+            for (Object[] row : newRows) {
+                expected.add(Arrays.asList(row));
+            }
+            assertEquals(expected, rowsOf(model));
+            assertEquals(expected, shadow);
+            if (!replaced[0]) {
+                int kept = longestIncreasingRun(oldRows, newRows);
+                assertEquals(oldRows.size() - kept, deleted[0]);
+                assertEquals(newRows.size() - kept, inserted[0]);
+            }
+        }
+    }
+
+    @Test
+    void duplicateKeysReplaceAllRows() {
+        KeyedTableModel model = new KeyedTableModel(new String[]{"Key", "Value"}, 0);
+        model.setRows(Arrays.asList(new Object[]{1, "a"}, new Object[]{2, "b"}));
+        List<Integer> lastRows = new ArrayList<>();
+        model.addTableModelListener(e -> lastRows.add(e.getLastRow()));
+        model.setRows(Arrays.asList(new Object[]{1, "a"}, new Object[]{1, "c"}));
+        assertEquals(Collections.singletonList(Integer.MAX_VALUE), lastRows);
+        assertEquals(2, model.getRowCount());
+        assertEquals("c", model.getValueAt(1, 1));
+    }
+
+    /**
+     * Delete, insert, move and change a few rows, and now and then repeat a key or
+     * scatter enough edits that the rows are replaced
+     */
+    private static List<Object[]> edit(Random random, List<Object[]> oldRows, int nextKey) {
+        List<Object[]> rows = new ArrayList<>(oldRows);
+        int edits = random.nextInt(10) == 0 ? 80 : random.nextInt(8);
+        for (int e = 0; e < edits; e++) {
+            int at = rows.isEmpty() ? 0 : random.nextInt(rows.size());
+            switch (random.nextInt(4)) {
+                case 0:
+                    if (!rows.isEmpty()) {
+                        rows.remove(at);
+                    }
+                    break;
+                case 1:
+                    rows.add(random.nextInt(rows.size() + 1), new Object[]{nextKey++, "v" + random.nextInt(3)});
+                    break;
+                case 2:
+                    if (!rows.isEmpty()) {
+                        rows.add(random.nextInt(rows.size()), rows.remove(at));
+                    }
+                    break;
+                default:
+                    if (!rows.isEmpty()) {
+                        rows.set(at, new Object[]{rows.get(at)[0], "v" + random.nextInt(3)});
+                    }
+                    break;
+            }
+        }
+        if (random.nextInt(20) == 0 && !rows.isEmpty()) {
+            rows.add(new Object[]{rows.get(0)[0], "duplicate"});
+        }
+        return rows;
+    }
+
+    /**
+     * Length of the longest increasing run of old positions among the new rows, by O(n^2) dynamic programming
+     */
+    private static int longestIncreasingRun(List<Object[]> oldRows, List<Object[]> newRows) {
+        Map<Object, Integer> oldPositions = new HashMap<>();
+        for (int i = 0; i < oldRows.size(); i++) {
+            oldPositions.put(oldRows.get(i)[0], i);
+        }
+        List<Integer> positions = new ArrayList<>();
+        for (Object[] row : newRows) {
+            if (oldPositions.containsKey(row[0])) {
+                positions.add(oldPositions.get(row[0]));
+            }
+        }
+        int[] longest = new int[positions.size()];
+        int best = 0;
+        for (int i = 0; i < positions.size(); i++) {
+            longest[i] = 1;
+            for (int j = 0; j < i; j++) {
+                if (positions.get(j) < positions.get(i)) {
+                    longest[i] = Math.max(longest[i], longest[j] + 1);
+                }
+            }
+            best = Math.max(best, longest[i]);
+        }
+        return best;
+    }
+
+    private static List<List<Object>> rowsOf(KeyedTableModel model) {
+        List<List<Object>> rows = new ArrayList<>();
+        for (int row = 0; row < model.getRowCount(); row++) {
+            rows.add(rowOf(model, row));
+        }
+        return rows;
+    }
+
+    private static List<Object> rowOf(KeyedTableModel model, int row) {
+        return Arrays.asList(model.getValueAt(row, 0), model.getValueAt(row, 1));
+    }
+}
+